@@ -0,0 +1,98 @@
+package dk.ravnand.streamtuples.benchmarks;
+
+import dk.ravnand.streamtuples.BatchingStage;
+import dk.ravnand.streamtuples.StreamTuples;
+import dk.ravnand.streamtuples.UncheckedSQLException;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * <p>The lookup part of {@code DatabaseTest.streamUpdateSimpleTable} against an in-memory H2 database, one
+ * {@code SELECT ... WHERE id=?} per tuple versus one {@code SELECT ... WHERE id IN (...)} per batch with
+ * {@link BatchingStage}.  H2 in-memory has no network latency, so this only shows the per statement overhead;
+ * a real database will gain more from batching.</p>
+ *
+ * @noinspection SqlNoDataSourceInspection, Convert2MethodRef
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchingBenchmark {
+
+    @Param({"1000"})
+    int size;
+
+    @Param({"10", "100", "500"})
+    int batchSize;
+
+    Connection connection;
+    Integer[] ids;
+
+    @Setup
+    public void setup() throws SQLException {
+        var ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:batchingBenchmark");
+        ds.setUser("sa");
+        ds.setPassword("sa");
+        connection = ds.getConnection();
+        try (var statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE t (id INTEGER PRIMARY KEY, s VARCHAR)");
+            statement.execute("INSERT INTO t SELECT x, 'Row ' || x FROM SYSTEM_RANGE(1, " + size + ")");
+        }
+        ids = IntStream.rangeClosed(1, size).boxed().toArray(Integer[]::new);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public Map<Integer, String> perRow() throws SQLException {
+        try (var statement = connection.prepareStatement("SELECT s FROM t WHERE id=?")) {
+            return StreamTuples.streamOf(ids)
+                    .map(t -> t.map(id -> {
+                        try {
+                            statement.setInt(1, id);
+                            try (var rs = statement.executeQuery()) {
+                                rs.next();
+                                return rs.getString(1);
+                            }
+                        } catch (SQLException e) {
+                            throw new UncheckedSQLException(e);
+                        }
+                    }))
+                    .collect(toMap(t -> t.left(), t -> t.right()));
+        }
+    }
+
+    @Benchmark
+    public Map<Integer, String> batched() {
+        return BatchingStage.<Integer, Integer, String>lookup(connection, "SELECT id, s FROM t WHERE id IN (?)",
+                batchSize, rs -> rs.getInt(1), rs -> rs.getString(2))
+                .apply(StreamTuples.streamOf(ids))
+                .collect(toMap(t -> t.left(), t -> t.right()));
+    }
+}
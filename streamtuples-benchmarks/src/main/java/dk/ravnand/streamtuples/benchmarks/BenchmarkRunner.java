@@ -0,0 +1,25 @@
+package dk.ravnand.streamtuples.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Main class of {@code target/benchmarks.jar}.  Runs the benchmarks selected by the usual JMH command line
+ * (all of them if nothing is given) with the GC profiler always enabled, so that every result
+ * reports both ops/s and bytes allocated per operation ({@code gc.alloc.rate.norm}).</p>
+ *
+ * <pre>java -jar streamtuples-benchmarks/target/benchmarks.jar PipelineBenchmark</pre>
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        var options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
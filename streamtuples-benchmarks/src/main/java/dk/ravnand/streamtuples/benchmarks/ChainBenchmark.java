@@ -0,0 +1,71 @@
+package dk.ravnand.streamtuples.benchmarks;
+
+import dk.ravnand.streamtuples.StreamTuple;
+import dk.ravnand.streamtuples.StreamTuples;
+import dk.ravnand.streamtuples.TupleChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * <p>Keeping every value of four steps, nested as {@code StreamTuple<A, StreamTuple<B, StreamTuple<C, D>>>} where
+ * each step rebuilds the nesting, and as a {@link TupleChain} where each step adds one node.  Compare the
+ * {@code gc.alloc.rate.norm} lines.  The values are small Integers from the Integer cache so only the tuples are
+ * allocated.</p>
+ *
+ * <pre>java -jar benchmarks.jar ChainBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChainBenchmark {
+
+    @Param({"1000000"})
+    int size;
+
+    Integer[] ids;
+
+    @Setup
+    public void setup() {
+        ids = IntStream.range(0, size).map(i -> i % 100).boxed().toArray(Integer[]::new);
+    }
+
+    @Benchmark
+    public long nested() {
+        return StreamTuples.streamOf(ids)
+                .map(t -> t.map(b -> b % 7))
+                .map(t -> t.of(new StreamTuple<>(t.right(), t.right() + 1)))
+                .map(t -> t.of(t.right().of(new StreamTuple<>(t.right().right(), t.right().right() * 2))))
+                .filter(t -> t.right().right().right() > 4)
+                .mapToLong(t -> t.left() + t.right().left() + t.right().right().left() + t.right().right().right())
+                .sum();
+    }
+
+    @Benchmark
+    public long chain() {
+        return Arrays.stream(ids)
+                .map(TupleChain::of)
+                .map(c -> c.map(a -> a % 7))
+                .map(c -> c.map(b -> b + 1))
+                .map(c -> c.map(d -> d * 2))
+                .filter(c -> c.filter(d -> d > 4))
+                .mapToLong(c -> c.head() + c.previous().head() + c.previous().previous().head()
+                        + c.previous().previous().previous().head())
+                .sum();
+    }
+}
@@ -0,0 +1,109 @@
+package dk.ravnand.streamtuples.benchmarks;
+
+import dk.ravnand.streamtuples.StreamTuple;
+import dk.ravnand.streamtuples.TupleChannelReader;
+import dk.ravnand.streamtuples.TupleChannelWriter;
+import dk.ravnand.streamtuples.TupleCodec;
+import dk.ravnand.streamtuples.TupleCodecs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * <p>Writing tuples to bytes and reading them back, with {@link TupleChannelWriter}/{@link TupleChannelReader} and
+ * with ObjectOutputStream/ObjectInputStream writing the left and right value of each tuple as objects (StreamTuple
+ * is not Serializable).  Both work in memory so only the encoding is measured.</p>
+ *
+ * <pre>java -jar benchmarks.jar CodecBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    static final TupleCodec<StreamTuple<Integer, String>> CODEC =
+            TupleCodecs.tuple(TupleCodecs.INT, TupleCodecs.STRING);
+
+    @Param({"100000"})
+    int size;
+
+    List<StreamTuple<Integer, String>> tuples;
+    byte[] codecBytes;
+    byte[] objectStreamBytes;
+
+    @Setup
+    public void setup() throws IOException {
+        tuples = IntStream.range(0, size)
+                .mapToObj(i -> new StreamTuple<>(i, "value " + i))
+                .collect(toList());
+        codecBytes = codecWrite();
+        objectStreamBytes = objectStreamWrite();
+    }
+
+    @Benchmark
+    public byte[] codecWrite() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TupleChannelWriter<Integer, String> writer = new TupleChannelWriter<>(Channels.newChannel(out), CODEC)) {
+            writer.writeAll(tuples.stream());
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] objectStreamWrite() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream objects = new ObjectOutputStream(out)) {
+            objects.writeInt(tuples.size());
+            for (StreamTuple<Integer, String> t : tuples) {
+                objects.writeObject(t.left());
+                objects.writeObject(t.right());
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public long codecRead() {
+        return TupleChannelReader.stream(ByteBuffer.wrap(codecBytes), CODEC)
+                .mapToLong(t -> t.left() + t.right().length())
+                .sum();
+    }
+
+    @Benchmark
+    public long objectStreamRead() throws IOException, ClassNotFoundException {
+        long sum = 0;
+        try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(objectStreamBytes))) {
+            int n = objects.readInt();
+            for (int i = 0; i < n; i++) {
+                StreamTuple<Integer, String> t = new StreamTuple<>((Integer) objects.readObject(),
+                        (String) objects.readObject());
+                sum += t.left() + t.right().length();
+            }
+        }
+        return sum;
+    }
+}
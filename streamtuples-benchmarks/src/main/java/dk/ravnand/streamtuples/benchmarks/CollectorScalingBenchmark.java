@@ -0,0 +1,113 @@
+package dk.ravnand.streamtuples.benchmarks;
+
+import dk.ravnand.streamtuples.StreamTuple;
+import dk.ravnand.streamtuples.StreamTuples;
+import dk.ravnand.streamtuples.TupleCollectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * <p>Parallel {@code StreamTuples.streamOf(...)} pipelines ending in a map, run in a ForkJoinPool with the given
+ * number of workers to show how the collectors scale with cores.  The JDK collectors merge one HashMap per
+ * worker; {@link TupleCollectors#toConcurrentMap()} and {@link TupleCollectors#groupingByLeftConcurrent()} share
+ * a single ConcurrentHashMap.</p>
+ *
+ * <pre>java -jar benchmarks.jar CollectorScalingBenchmark -p threads=1,8,32</pre>
+ *
+ * @noinspection Convert2MethodRef
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectorScalingBenchmark {
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    int threads;
+
+    @Param({"1000000"})
+    int size;
+
+    Integer[] ids;
+    ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        ids = IntStream.range(0, size).boxed().toArray(Integer[]::new);
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    private <T> T inPool(Supplier<T> work) {
+        return pool.submit(work::get).join();
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> jdkToMap() {
+        return inPool(() -> StreamTuples.streamOf(ids).parallel()
+                .map(t -> t.map(r -> r + 1))
+                .collect(toMap(t -> t.left(), t -> t.right())));
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> tupleToMap() {
+        return inPool(() -> StreamTuples.streamOf(ids).parallel()
+                .map(t -> t.map(r -> r + 1))
+                .collect(TupleCollectors.toMap()));
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> tupleToConcurrentMap() {
+        return inPool(() -> StreamTuples.streamOf(ids).parallel()
+                .map(t -> t.map(r -> r + 1))
+                .collect(TupleCollectors.toConcurrentMap()));
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> presizedToMap() {
+        return inPool(() -> StreamTuples.toMap(StreamTuples.streamOf(ids).parallel()
+                .map(t -> t.map(r -> r + 1))));
+    }
+
+    @Benchmark
+    public Map<Integer, List<Integer>> jdkGroupingBy() {
+        return inPool(() -> StreamTuples.streamOf(ids).parallel()
+                .map(t -> new StreamTuple<>(t.left() % 1000, t.right()))
+                .collect(groupingBy(t -> t.left(), mapping(t -> t.right(), toList()))));
+    }
+
+    @Benchmark
+    public Map<Integer, List<Integer>> tupleGroupingByLeftConcurrent() {
+        return inPool(() -> StreamTuples.streamOf(ids).parallel()
+                .map(t -> new StreamTuple<>(t.left() % 1000, t.right()))
+                .collect(TupleCollectors.groupingByLeftConcurrent()));
+    }
+}
@@ -0,0 +1,87 @@
+package dk.ravnand.streamtuples.benchmarks;
+
+import dk.ravnand.streamtuples.StreamTuple;
+import dk.ravnand.streamtuples.TupleInstrumentation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * <p>The cost of {@link TupleInstrumentation}: a map and filter pipeline with plain functions, with functions
+ * wrapped while instrumentation is disabled (should score as the plain ones), and with instrumented functions.</p>
+ *
+ * <pre>java -jar benchmarks.jar InstrumentationBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentationBenchmark {
+
+    @Param({"100000"})
+    int size;
+
+    List<StreamTuple<Integer, Integer>> tuples;
+
+    final Function<Integer, Integer> square = i -> i * i;
+    final Predicate<Integer> even = i -> (i & 1) == 0;
+
+    Function<Integer, Integer> disabledSquare;
+    Predicate<Integer> disabledEven;
+    Function<Integer, Integer> enabledSquare;
+    Predicate<Integer> enabledEven;
+
+    @Setup
+    public void setup() {
+        tuples = IntStream.range(0, size)
+                .mapToObj(i -> new StreamTuple<>(i, i))
+                .collect(toList());
+        TupleInstrumentation.setEnabled(false);
+        disabledSquare = TupleInstrumentation.map("square", square);
+        disabledEven = TupleInstrumentation.filter("even", even);
+        TupleInstrumentation.setEnabled(true);
+        enabledSquare = TupleInstrumentation.map("square", square);
+        enabledEven = TupleInstrumentation.filter("even", even);
+        TupleInstrumentation.setEnabled(false);
+    }
+
+    long run(Function<Integer, Integer> f, Predicate<Integer> p) {
+        return tuples.stream()
+                .map(t -> t.map(f))
+                .filter(t -> t.filter(p))
+                .count();
+    }
+
+    @Benchmark
+    public long plain() {
+        return run(square, even);
+    }
+
+    @Benchmark
+    public long disabled() {
+        return run(disabledSquare, disabledEven);
+    }
+
+    @Benchmark
+    public long enabled() {
+        return run(enabledSquare, enabledEven);
+    }
+}
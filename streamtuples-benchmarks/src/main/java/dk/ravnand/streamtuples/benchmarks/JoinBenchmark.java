@@ -0,0 +1,105 @@
+package dk.ravnand.streamtuples.benchmarks;
+
+import dk.ravnand.streamtuples.IntObjTuple;
+import dk.ravnand.streamtuples.StreamTuple;
+import dk.ravnand.streamtuples.TupleJoins;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * <p>Joining a stream of orders with a smaller stream of customers on the customer id, by grouping the customers
+ * into a {@code Map<Integer, List<String>>} and flatMapping the orders over it, and with {@link TupleJoins}.</p>
+ *
+ * <pre>java -jar benchmarks.jar JoinBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JoinBenchmark {
+
+    @Param({"1000000"})
+    int orders;
+
+    @Param({"100000"})
+    int customers;
+
+    List<StreamTuple<Integer, Double>> orderTuples;
+    List<StreamTuple<Integer, String>> customerTuples;
+    List<IntObjTuple<Double>> orderIntTuples;
+    List<IntObjTuple<String>> customerIntTuples;
+    List<StreamTuple<Integer, Double>> sortedOrderTuples;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        orderTuples = new ArrayList<>();
+        orderIntTuples = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            int customer = random.nextInt(customers * 2); // half the orders have no customer
+            double amount = random.nextInt(10_000) / 100.0;
+            orderTuples.add(new StreamTuple<>(customer, amount));
+            orderIntTuples.add(new IntObjTuple<>(customer, amount));
+        }
+        customerTuples = IntStream.range(0, customers)
+                .mapToObj(i -> new StreamTuple<>(i, "customer " + i))
+                .collect(toList());
+        customerIntTuples = IntStream.range(0, customers)
+                .mapToObj(i -> new IntObjTuple<>(i, "customer " + i))
+                .collect(toList());
+        sortedOrderTuples = new ArrayList<>(orderTuples);
+        sortedOrderTuples.sort((a, b) -> Integer.compare(a.left(), b.left()));
+    }
+
+    @Benchmark
+    public long mapLookup() {
+        Map<Integer, List<String>> byId = customerTuples.stream()
+                .collect(groupingBy(StreamTuple::left, mapping(StreamTuple::right, toList())));
+        return orderTuples.stream()
+                .flatMap(o -> byId.getOrDefault(o.left(), List.of()).stream()
+                        .map(c -> o.of(new StreamTuple<>(o.right(), c))))
+                .count();
+    }
+
+    @Benchmark
+    public long hashJoin() {
+        return TupleJoins.hashJoin(orderTuples.stream(), customerTuples.stream()).count();
+    }
+
+    @Benchmark
+    public long hashJoinParallel() {
+        return TupleJoins.hashJoin(orderTuples.parallelStream(), customerTuples.stream()).count();
+    }
+
+    @Benchmark
+    public long hashJoinInt() {
+        return TupleJoins.hashJoinInt(orderIntTuples.stream(), customerIntTuples.stream()).count();
+    }
+
+    @Benchmark
+    public long mergeJoin() {
+        return TupleJoins.mergeJoin(sortedOrderTuples.stream(), customerTuples.stream()).count();
+    }
+}
@@ -0,0 +1,84 @@
+package dk.ravnand.streamtuples.benchmarks;
+
+import dk.ravnand.streamtuples.PartitionedTupleExecutor;
+import dk.ravnand.streamtuples.StreamTuple;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * <p>Appending the right values to a list per left value, from a parallel stream into synchronized lists and with
+ * a {@link PartitionedTupleExecutor} into plain lists, each only touched by the lane of its key.  The scores depend
+ * on the number of cores.</p>
+ *
+ * <pre>java -jar benchmarks.jar PartitionedBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PartitionedBenchmark {
+
+    @Param({"1000000"})
+    int size;
+
+    @Param({"1000"})
+    int keys;
+
+    List<StreamTuple<Integer, Integer>> tuples;
+    PartitionedTupleExecutor executor;
+
+    @Setup
+    public void setup() {
+        tuples = IntStream.range(0, size)
+                .mapToObj(i -> new StreamTuple<>(i % keys, i))
+                .collect(toList());
+        executor = new PartitionedTupleExecutor();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Benchmark
+    public Map<Integer, List<Integer>> parallelSynchronized() {
+        Map<Integer, List<Integer>> lists = new HashMap<>();
+        for (int key = 0; key < keys; key++) {
+            lists.put(key, Collections.synchronizedList(new ArrayList<>()));
+        }
+        tuples.parallelStream().forEach(t -> lists.get(t.left()).add(t.right()));
+        return lists;
+    }
+
+    @Benchmark
+    public Map<Integer, List<Integer>> partitioned() {
+        Map<Integer, List<Integer>> lists = new HashMap<>();
+        for (int key = 0; key < keys; key++) {
+            lists.put(key, new ArrayList<>());
+        }
+        executor.forEachPartitioned(tuples.stream(), (key, value) -> lists.get(key).add(value));
+        return lists;
+    }
+}
@@ -0,0 +1,138 @@
+package dk.ravnand.streamtuples.benchmarks;
+
+import dk.ravnand.streamtuples.StreamTuples;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * <p>The lookup/filter/update pipeline from {@code StreamTupleTest.simpleMapUpdateOperationUsingStreamTupleForEach}
+ * written four ways:</p>
+ * <ul>
+ * <li>with StreamTuples, allocating a new tuple in each {@code t.map(...)},</li>
+ * <li>with a TupleStream, which fuses the steps and only creates tuples if the terminal operation needs them,</li>
+ * <li>with a hand written record carrying the id and the value (no null checks), which is what the README
+ * recommends,</li>
+ * <li>with a plain stream of ids and no carrier object at all, which has to repeat the lookup instead.</li>
+ * </ul>
+ * <p>Each is run both sequential and parallel.  Run through {@link BenchmarkRunner} to get bytes/op as well.</p>
+ *
+ * @noinspection Convert2MethodRef
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+
+    /**
+     * The hand written alternative to {@code StreamTuple<Integer, String>}.
+     */
+    record IdValue(Integer id, String value) {
+    }
+
+    @Param({"100", "10000"})
+    int size;
+
+    Integer[] ids;
+    Map<Integer, String> lookup;
+
+    @Setup
+    public void setup() {
+        ids = IntStream.range(0, size).boxed().toArray(Integer[]::new);
+        lookup = new HashMap<>();
+        for (Integer id : ids) {
+            lookup.put(id, (id % 2 == 0 ? "even " : "odd ") + id);
+        }
+    }
+
+    @Benchmark
+    public Map<Integer, String> streamTuples() {
+        return StreamTuples.streamOf(ids)
+                .map(t -> t.map(id -> lookup.get(id)))
+                .filter(t -> t.filter(s -> s.startsWith("even")))
+                .map(t -> t.map(s -> s + " OK"))
+                .collect(toMap(t -> t.left(), t -> t.right()));
+    }
+
+    @Benchmark
+    public Map<Integer, String> streamTuplesParallel() {
+        return StreamTuples.streamOf(ids)
+                .parallel()
+                .map(t -> t.map(id -> lookup.get(id)))
+                .filter(t -> t.filter(s -> s.startsWith("even")))
+                .map(t -> t.map(s -> s + " OK"))
+                .collect(toMap(t -> t.left(), t -> t.right()));
+    }
+
+    @Benchmark
+    public Map<Integer, String> tupleStream() {
+        return StreamTuples.tupleStreamOf(ids)
+                .mapRight(id -> lookup.get(id))
+                .filterRight(s -> s.startsWith("even"))
+                .mapRight(s -> s + " OK")
+                .toMap();
+    }
+
+    @Benchmark
+    public Map<Integer, String> tupleStreamParallel() {
+        return StreamTuples.tupleStreamOf(ids)
+                .parallel()
+                .mapRight(id -> lookup.get(id))
+                .filterRight(s -> s.startsWith("even"))
+                .mapRight(s -> s + " OK")
+                .toMap();
+    }
+
+    @Benchmark
+    public Map<Integer, String> record() {
+        return Arrays.stream(ids)
+                .map(id -> new IdValue(id, lookup.get(id)))
+                .filter(r -> r.value().startsWith("even"))
+                .map(r -> new IdValue(r.id(), r.value() + " OK"))
+                .collect(toMap(r -> r.id(), r -> r.value()));
+    }
+
+    @Benchmark
+    public Map<Integer, String> recordParallel() {
+        return Arrays.stream(ids)
+                .parallel()
+                .map(id -> new IdValue(id, lookup.get(id)))
+                .filter(r -> r.value().startsWith("even"))
+                .map(r -> new IdValue(r.id(), r.value() + " OK"))
+                .collect(toMap(r -> r.id(), r -> r.value()));
+    }
+
+    @Benchmark
+    public Map<Integer, String> plainStream() {
+        return Arrays.stream(ids)
+                .filter(id -> lookup.get(id).startsWith("even"))
+                .collect(toMap(id -> id, id -> lookup.get(id) + " OK"));
+    }
+
+    @Benchmark
+    public Map<Integer, String> plainStreamParallel() {
+        return Arrays.stream(ids)
+                .parallel()
+                .filter(id -> lookup.get(id).startsWith("even"))
+                .collect(toMap(id -> id, id -> lookup.get(id) + " OK"));
+    }
+}
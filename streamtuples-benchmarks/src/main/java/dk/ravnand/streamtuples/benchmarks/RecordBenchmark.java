@@ -0,0 +1,98 @@
+package dk.ravnand.streamtuples.benchmarks;
+
+import dk.ravnand.streamtuples.IntObjTuple;
+import dk.ravnand.streamtuples.StreamTriple;
+import dk.ravnand.streamtuples.StreamTuples;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * <p>The same work with the record versions of the tuple classes from {@code META-INF/versions/16} and with the Java 8
+ * classes, which the {@code *Classes} benchmarks get by running with multi-release jars disabled.  Compare the
+ * {@code gc.alloc.rate.norm} lines to see how many of the tuples the JIT removes.  The {@code loop} benchmarks create
+ * tuples which never leave the loop, the {@code stream} benchmarks pass them between stream stages.</p>
+ *
+ * <pre>java -jar benchmarks.jar RecordBenchmark -prof gc</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordBenchmark {
+
+    private static final String CLASSES = "-Djdk.util.jar.enableMultiRelease=false";
+
+    @Param({"1000000"})
+    int size;
+
+    Integer[] ids;
+
+    @Setup
+    public void setup(BenchmarkParams params) {
+        boolean records = !params.getJvmArgs().contains(CLASSES);
+        if (StreamTriple.class.isRecord() != records) {
+            throw new IllegalStateException("Expected " + (records ? "records" : "classes") + " for "
+                    + params.getBenchmark() + ", is benchmarks.jar a multi-release jar?");
+        }
+        ids = IntStream.range(0, size).map(i -> i % 100).boxed().toArray(Integer[]::new);
+    }
+
+    @Benchmark
+    public long loopRecords() {
+        return loop();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = CLASSES)
+    public long loopClasses() {
+        return loop();
+    }
+
+    @Benchmark
+    public long streamRecords() {
+        return stream();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = CLASSES)
+    public long streamClasses() {
+        return stream();
+    }
+
+    private long loop() {
+        long sum = 0;
+        for (int i = 0; i < ids.length; i++) {
+            IntObjTuple<Integer> t = new IntObjTuple<>(i, ids[i]).map(r -> r % 7);
+            StreamTriple<Integer, Integer, Integer> triple = new StreamTriple<>(t.right(), ids[i], t.left());
+            if (triple.filter(c -> c % 2 == 0)) {
+                sum += triple.first() + triple.second();
+            }
+        }
+        return sum;
+    }
+
+    private long stream() {
+        return StreamTuples.streamOf(ids)
+                .map(t -> StreamTuples.tripleOf(t, r -> r % 7))
+                .map(t -> t.map(c -> c + 1))
+                .map(t -> t.map(c -> c * 2))
+                .filter(t -> t.filter(c -> c > 4))
+                .mapToLong(t -> t.first() + t.second() + t.third())
+                .sum();
+    }
+}
@@ -0,0 +1,155 @@
+package dk.ravnand.streamtuples.benchmarks;
+
+import dk.ravnand.streamtuples.StreamTuple;
+import dk.ravnand.streamtuples.StreamTuples;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Using tuples as HashMap keys and sorting them, comparing StreamTuple with {@link LegacyTuple} which has the
+ * equals/hashCode/compareTo StreamTuple had before the hash code was cached: {@code Objects.hash} allocating a
+ * varargs array per call, and compareTo casting to Comparable.</p>
+ *
+ * <p>The map benchmarks put all tuples in a HashMap and look each of them up again, so every tuple is hashed
+ * twice.  The sort benchmarks sort a copy of the tuples with compareTo and with the comparators from
+ * {@link StreamTuples}.</p>
+ *
+ * <pre>java -jar benchmarks.jar SortHashBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SortHashBenchmark {
+
+    /**
+     * The equals, hashCode and compareTo of StreamTuple as they were.
+     */
+    static final class LegacyTuple<L, R> implements Comparable<LegacyTuple<L, R>> {
+        final L left;
+        final R right;
+
+        LegacyTuple(L left, R right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public int compareTo(LegacyTuple<L, R> that) {
+            int i;
+            Comparable<R> cr = (Comparable<R>) right;
+            i = cr.compareTo(that.right);
+            if (i == 0) {
+                Comparable<L> cl = (Comparable<L>) left;
+                i = cl.compareTo(that.left);
+            }
+            return i;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            LegacyTuple<?, ?> that = (LegacyTuple<?, ?>) o;
+            return Objects.equals(left, that.left) &&
+                    Objects.equals(right, that.right);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(left, right);
+        }
+    }
+
+    @Param({"100000"})
+    int size;
+
+    StreamTuple<Integer, String>[] tuples;
+    LegacyTuple<Integer, String>[] legacyTuples;
+
+    @SuppressWarnings("unchecked")
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        tuples = new StreamTuple[size];
+        legacyTuples = new LegacyTuple[size];
+        for (int i = 0; i < size; i++) {
+            String right = "value-" + random.nextInt(size / 10);
+            tuples[i] = new StreamTuple<>(i, right);
+            legacyTuples[i] = new LegacyTuple<>(i, right);
+        }
+    }
+
+    @Benchmark
+    public int hashMapLegacy() {
+        HashMap<LegacyTuple<Integer, String>, Integer> map = new HashMap<>();
+        for (LegacyTuple<Integer, String> t : legacyTuples) {
+            map.put(t, t.left);
+        }
+        int sum = 0;
+        for (LegacyTuple<Integer, String> t : legacyTuples) {
+            sum += map.get(t);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int hashMapStreamTuple() {
+        HashMap<StreamTuple<Integer, String>, Integer> map = new HashMap<>();
+        for (StreamTuple<Integer, String> t : tuples) {
+            map.put(t, t.left());
+        }
+        int sum = 0;
+        for (StreamTuple<Integer, String> t : tuples) {
+            sum += map.get(t);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public LegacyTuple<Integer, String>[] sortLegacyCompareTo() {
+        LegacyTuple<Integer, String>[] copy = legacyTuples.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    @Benchmark
+    public StreamTuple<Integer, String>[] sortCompareTo() {
+        StreamTuple<Integer, String>[] copy = tuples.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    @Benchmark
+    public StreamTuple<Integer, String>[] sortByRightThenLeft() {
+        StreamTuple<Integer, String>[] copy = tuples.clone();
+        Arrays.sort(copy, StreamTuples.byRightThenLeft());
+        return copy;
+    }
+
+    @Benchmark
+    public StreamTuple<Integer, String>[] sortByRightThenLeftComparators() {
+        StreamTuple<Integer, String>[] copy = tuples.clone();
+        Arrays.sort(copy, StreamTuples.byRightThenLeft(Comparator.naturalOrder(), Comparator.naturalOrder()));
+        return copy;
+    }
+}
@@ -0,0 +1,71 @@
+package dk.ravnand.streamtuples.benchmarks;
+
+import dk.ravnand.streamtuples.StreamTuple;
+import dk.ravnand.streamtuples.StreamTuples;
+import dk.ravnand.streamtuples.TupleCollectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * <p>The k highest scores of a stream, with {@code sorted(...).limit(k)} and with {@link TupleCollectors#topK}.</p>
+ *
+ * <pre>java -jar benchmarks.jar TopKBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopKBenchmark {
+
+    static final Comparator<StreamTuple<Integer, Double>> BY_SCORE = StreamTuples.byRight();
+
+    @Param({"1000000"})
+    int size;
+
+    @Param({"10", "1000"})
+    int k;
+
+    List<StreamTuple<Integer, Double>> scores;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        scores = IntStream.range(0, size)
+                .mapToObj(i -> new StreamTuple<>(i, random.nextDouble()))
+                .collect(toList());
+    }
+
+    @Benchmark
+    public List<StreamTuple<Integer, Double>> sortedLimit() {
+        return scores.stream().sorted(BY_SCORE.reversed()).limit(k).collect(toList());
+    }
+
+    @Benchmark
+    public List<StreamTuple<Integer, Double>> topK() {
+        return scores.stream().collect(TupleCollectors.topK(k, BY_SCORE));
+    }
+
+    @Benchmark
+    public List<StreamTuple<Integer, Double>> topKParallel() {
+        return scores.parallelStream().collect(TupleCollectors.topK(k, BY_SCORE));
+    }
+}
@@ -0,0 +1,66 @@
+package dk.ravnand.streamtuples.benchmarks;
+
+import dk.ravnand.streamtuples.StreamTuple;
+import dk.ravnand.streamtuples.StreamTuples;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * <p>Keeping two saved values through a few steps, nested as {@code StreamTuple<A, StreamTuple<B, C>>} and as a
+ * {@link dk.ravnand.streamtuples.StreamTriple}.  Compare the {@code gc.alloc.rate.norm} lines.  The values are
+ * small Integers from the Integer cache so only the tuples are allocated.</p>
+ *
+ * <pre>java -jar benchmarks.jar TripleBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TripleBenchmark {
+
+    @Param({"1000000"})
+    int size;
+
+    Integer[] ids;
+
+    @Setup
+    public void setup() {
+        ids = IntStream.range(0, size).map(i -> i % 100).boxed().toArray(Integer[]::new);
+    }
+
+    @Benchmark
+    public long nested() {
+        return StreamTuples.streamOf(ids)
+                .map(t -> t.of(new StreamTuple<>(t.right(), t.right() % 7)))
+                .map(t -> t.map(p -> p.map(c -> c + 1)))
+                .map(t -> t.map(p -> p.map(c -> c * 2)))
+                .filter(t -> t.right().right() > 4)
+                .mapToLong(t -> t.left() + t.right().left() + t.right().right())
+                .sum();
+    }
+
+    @Benchmark
+    public long triple() {
+        return StreamTuples.streamOf(ids)
+                .map(t -> StreamTuples.tripleOf(t, r -> r % 7))
+                .map(t -> t.map(c -> c + 1))
+                .map(t -> t.map(c -> c * 2))
+                .filter(t -> t.filter(c -> c > 4))
+                .mapToLong(t -> t.first() + t.second() + t.third())
+                .sum();
+    }
+}
@@ -0,0 +1,77 @@
+package dk.ravnand.streamtuples.benchmarks;
+
+import dk.ravnand.streamtuples.StreamTuple;
+import dk.ravnand.streamtuples.StreamTuples;
+import dk.ravnand.streamtuples.TupleBuffer;
+import dk.ravnand.streamtuples.TupleCollectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * <p>Collecting tuples with int left and double right values, sorting them by right then left and summing them
+ * up again, into a {@code List<StreamTuple>} and into a {@link TupleBuffer} with primitive columns.  Compare the
+ * scores and the {@code gc.alloc.rate.norm} lines.</p>
+ *
+ * <pre>java -jar benchmarks.jar TupleBufferBenchmark</pre>
+ *
+ * @noinspection Convert2MethodRef
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TupleBufferBenchmark {
+
+    @Param({"1000000"})
+    int size;
+
+    Integer[] ids;
+    double[] prices;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        ids = new Integer[size];
+        prices = new double[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = i;
+            prices[i] = random.nextInt(10_000) / 100.0;
+        }
+    }
+
+    @Benchmark
+    public double list() {
+        List<StreamTuple<Integer, Double>> list = StreamTuples.streamOf(ids)
+                .map(t -> t.map(id -> prices[id]))
+                .collect(toList());
+        Collections.sort(list);
+        return list.stream().mapToDouble(t -> t.left() * t.right()).sum();
+    }
+
+    @Benchmark
+    public double tupleBuffer() {
+        TupleBuffer<Integer, Double> buffer = StreamTuples.streamOf(ids)
+                .map(t -> t.map(id -> prices[id]))
+                .collect(TupleCollectors.toTupleBuffer());
+        buffer.sort();
+        return buffer.stream().mapToDouble(t -> t.left() * t.right()).sum();
+    }
+}
@@ -0,0 +1,126 @@
+package dk.ravnand.streamtuples.benchmarks;
+
+import dk.ravnand.streamtuples.StreamTuples;
+import dk.ravnand.streamtuples.TuplePipeline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * <p>The lookup/filter/update pipeline of {@link PipelineBenchmark} as hand chained {@code .map(t -> t.map(...))}
+ * steps and as a {@link TuplePipeline} built once in the setup, collected with {@code toMap} either from the tuples
+ * or directly from the fused left/right pairs.</p>
+ *
+ * <p>The {@code ...ThreeShapes} benchmarks run three pipelines with different functions in each operation, so the
+ * calls in {@code StreamTuple.map} and {@code StreamTuple.filter} see several functions, as they do in a program
+ * with many pipelines.</p>
+ *
+ * <pre>java -jar benchmarks.jar TuplePipelineBenchmark</pre>
+ *
+ * @noinspection Convert2MethodRef
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TuplePipelineBenchmark {
+
+    @Param({"100", "10000"})
+    int size;
+
+    Integer[] ids;
+    Map<Integer, String> lookup;
+
+    TuplePipeline<Integer, Integer, String> even;
+    TuplePipeline<Integer, Integer, String> odd;
+    TuplePipeline<Integer, Integer, Integer> lengths;
+
+    @Setup
+    public void setup() {
+        ids = IntStream.range(0, size).boxed().toArray(Integer[]::new);
+        lookup = new HashMap<>();
+        for (Integer id : ids) {
+            lookup.put(id, (id % 2 == 0 ? "even " : "odd ") + id);
+        }
+        even = TuplePipeline.<Integer>builder()
+                .mapRight(id -> lookup.get(id))
+                .filterRight(s -> s.startsWith("even"))
+                .mapRight(s -> s + " OK")
+                .build();
+        odd = TuplePipeline.<Integer>builder()
+                .mapRight(id -> lookup.get(id))
+                .filterRight(s -> s.startsWith("odd"))
+                .mapRight(s -> s + " NOT OK")
+                .build();
+        lengths = TuplePipeline.<Integer>builder()
+                .mapRight(id -> lookup.get(id))
+                .filterRight(s -> s.length() > 5)
+                .mapRight(s -> s.length())
+                .build();
+    }
+
+    @Benchmark
+    public Map<Integer, String> handChained() {
+        return StreamTuples.streamOf(ids)
+                .map(t -> t.map(id -> lookup.get(id)))
+                .filter(t -> t.filter(s -> s.startsWith("even")))
+                .map(t -> t.map(s -> s + " OK"))
+                .collect(toMap(t -> t.left(), t -> t.right()));
+    }
+
+    @Benchmark
+    public Map<Integer, String> pipelineTuples() {
+        return even.apply(Arrays.stream(ids)).collect(toMap(t -> t.left(), t -> t.right()));
+    }
+
+    @Benchmark
+    public Map<Integer, String> pipeline() {
+        return even.tupleStream(Arrays.stream(ids)).toMap();
+    }
+
+    @Benchmark
+    public int handChainedThreeShapes() {
+        Map<Integer, String> evens = StreamTuples.streamOf(ids)
+                .map(t -> t.map(id -> lookup.get(id)))
+                .filter(t -> t.filter(s -> s.startsWith("even")))
+                .map(t -> t.map(s -> s + " OK"))
+                .collect(toMap(t -> t.left(), t -> t.right()));
+        Map<Integer, String> odds = StreamTuples.streamOf(ids)
+                .map(t -> t.map(id -> lookup.get(id)))
+                .filter(t -> t.filter(s -> s.startsWith("odd")))
+                .map(t -> t.map(s -> s + " NOT OK"))
+                .collect(toMap(t -> t.left(), t -> t.right()));
+        Map<Integer, Integer> longOnes = StreamTuples.streamOf(ids)
+                .map(t -> t.map(id -> lookup.get(id)))
+                .filter(t -> t.filter(s -> s.length() > 5))
+                .map(t -> t.map(s -> s.length()))
+                .collect(toMap(t -> t.left(), t -> t.right()));
+        return evens.size() + odds.size() + longOnes.size();
+    }
+
+    @Benchmark
+    public int pipelineThreeShapes() {
+        Map<Integer, String> evens = even.tupleStream(Arrays.stream(ids)).toMap();
+        Map<Integer, String> odds = odd.tupleStream(Arrays.stream(ids)).toMap();
+        Map<Integer, Integer> longOnes = lengths.tupleStream(Arrays.stream(ids)).toMap();
+        return evens.size() + odds.size() + longOnes.size();
+    }
+}
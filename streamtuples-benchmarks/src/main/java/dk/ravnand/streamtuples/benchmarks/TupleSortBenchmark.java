@@ -0,0 +1,69 @@
+package dk.ravnand.streamtuples.benchmarks;
+
+import dk.ravnand.streamtuples.StreamTuple;
+import dk.ravnand.streamtuples.TupleSorts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>{@code .sorted()} against {@link TupleSorts#sorted}, for tuples already sorted by left value as from a query
+ * ordered by key ({@code leftSorted}), and for tuples in random order ({@code random}), with Integer, String and
+ * Double right values.  Double right values are not radix sorted.</p>
+ *
+ * <pre>java -jar benchmarks.jar TupleSortBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TupleSortBenchmark {
+
+    @Param({"1000000"})
+    int size;
+
+    @Param({"leftSorted", "random"})
+    String order;
+
+    @Param({"Integer", "String", "Double"})
+    String rightType;
+
+    List<StreamTuple<Integer, Object>> tuples;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        tuples = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int left = order.equals("leftSorted") ? i : random.nextInt(size);
+            int right = random.nextInt(size / 10);
+            tuples.add(new StreamTuple<>(left, rightType.equals("Integer") ? (Object) right
+                    : rightType.equals("String") ? (Object) ("name" + right) : (Object) (double) right));
+        }
+    }
+
+    @Benchmark
+    public Object streamSorted() {
+        return tuples.stream().sorted().toArray();
+    }
+
+    @Benchmark
+    public Object tupleSorts() {
+        return TupleSorts.sorted(tuples.stream()).toArray();
+    }
+}
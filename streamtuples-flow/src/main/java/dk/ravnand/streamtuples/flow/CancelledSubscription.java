@@ -0,0 +1,18 @@
+package dk.ravnand.streamtuples.flow;
+
+import java.util.concurrent.Flow;
+
+/**
+ * Subscription given to subscribers which are rejected, so they can be sent onError right away.
+ */
+enum CancelledSubscription implements Flow.Subscription {
+    INSTANCE;
+
+    @Override
+    public void request(long n) {
+    }
+
+    @Override
+    public void cancel() {
+    }
+}
@@ -0,0 +1,36 @@
+package dk.ravnand.streamtuples.flow;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outstanding request count of a subscription, where {@link Long#MAX_VALUE} means unbounded.
+ */
+final class Demand {
+
+    private Demand() {
+    }
+
+    /**
+     * Add n to the demand, capping at {@link Long#MAX_VALUE}.
+     */
+    static void add(AtomicLong demand, long n) {
+        long current;
+        long next;
+        do {
+            current = demand.get();
+            if (current == Long.MAX_VALUE) {
+                return;
+            }
+            next = current + n < 0 ? Long.MAX_VALUE : current + n;
+        } while (!demand.compareAndSet(current, next));
+    }
+
+    /**
+     * Subtract one emitted item from the demand, unless it is unbounded.
+     */
+    static void produced(AtomicLong demand) {
+        if (demand.get() != Long.MAX_VALUE) {
+            demand.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package dk.ravnand.streamtuples.flow;
+
+import dk.ravnand.streamtuples.StreamTuple;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * <p>Processor applying one of the StreamTuple helper methods to each tuple passing through, for building tuple
+ * pipelines out of Flow publishers:</p>
+ *
+ * <pre>
+ * TupleProcessor&lt;Integer, Integer, String&gt; toText = TupleProcessor.map(i -&gt; "#" + i);
+ * publisher.subscribe(toText);
+ * toText.subscribe(subscriber);
+ * </pre>
+ *
+ * <p>The processor honours the request-n backpressure of its subscriber.  It requests {@link #DEFAULT_PREFETCH}
+ * tuples from upstream to start with, and requests more when half of them have been processed, so at most that many
+ * tuples are buffered no matter how fast the upstream publisher is.  A processor has a single subscriber.</p>
+ *
+ * <p>An exception thrown by a function cancels the upstream subscription and is sent to the subscriber with
+ * onError, as is an error from upstream.  Tuples buffered at that time are dropped.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public final class TupleProcessor<L, R, U>
+        implements Flow.Processor<StreamTuple<L, R>, StreamTuple<L, U>>, Flow.Subscription {
+
+    /**
+     * Number of tuples requested from upstream ahead of the subscriber.
+     */
+    public static final int DEFAULT_PREFETCH = 128;
+
+    private final Function<StreamTuple<L, R>, StreamTuple<L, U>> single;
+    private final Function<StreamTuple<L, R>, Stream<StreamTuple<L, U>>> many;
+
+    private final Queue<StreamTuple<L, R>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile Flow.Subscription upstream;
+    private volatile Flow.Subscriber<? super StreamTuple<L, U>> downstream;
+    private volatile boolean subscribed; // true when downstream.onSubscribe has returned
+    private volatile boolean done;
+    private volatile Throwable error;
+    private volatile boolean cancelled;
+
+    // only touched in the drain loop
+    private boolean started;
+    private boolean terminated;
+    private int consumed;
+    private Stream<StreamTuple<L, U>> currentStream;
+    private Iterator<StreamTuple<L, U>> current;
+
+    /**
+     * @param single maps a tuple to the tuple to emit, or null to emit nothing.  Null if many is used.
+     * @param many   maps a tuple to the tuples to emit.  Null if single is used.
+     */
+    private TupleProcessor(Function<StreamTuple<L, R>, StreamTuple<L, U>> single,
+                           Function<StreamTuple<L, R>, Stream<StreamTuple<L, U>>> many) {
+        this.single = single;
+        this.many = many;
+    }
+
+    /**
+     * Processor doing {@link StreamTuple#map(Function)}.
+     */
+    public static <L, R, U> TupleProcessor<L, R, U> map(Function<R, U> f) {
+        Objects.requireNonNull(f, "f");
+        return new TupleProcessor<>(t -> t.map(f), null);
+    }
+
+    /**
+     * Processor doing {@link StreamTuple#map(BiFunction)}.
+     */
+    public static <L, R, U> TupleProcessor<L, R, U> map(BiFunction<L, R, U> f) {
+        Objects.requireNonNull(f, "f");
+        return new TupleProcessor<>(t -> t.map(f), null);
+    }
+
+    /**
+     * Processor passing on the tuples for which {@link StreamTuple#filter(Predicate)} is true.
+     */
+    public static <L, R> TupleProcessor<L, R, R> filter(Predicate<R> predicate) {
+        Objects.requireNonNull(predicate, "predicate");
+        return new TupleProcessor<>(t -> t.filter(predicate) ? t : null, null);
+    }
+
+    /**
+     * Processor passing on the tuples for which {@link StreamTuple#filter(BiPredicate)} is true.
+     */
+    public static <L, R> TupleProcessor<L, R, R> filter(BiPredicate<L, R> predicate) {
+        Objects.requireNonNull(predicate, "predicate");
+        return new TupleProcessor<>(t -> t.filter(predicate) ? t : null, null);
+    }
+
+    /**
+     * Processor emitting the tuples of {@link StreamTuple#flatMap(Function)}.  The returned streams are consumed
+     * as the subscriber requests, and closed when exhausted.
+     */
+    public static <L, R, U> TupleProcessor<L, R, U> flatMap(Function<R, Stream<U>> f) {
+        Objects.requireNonNull(f, "f");
+        return new TupleProcessor<>(null, t -> t.flatMap(f));
+    }
+
+    /**
+     * Processor emitting the tuples of {@link StreamTuple#flatMap(BiFunction)}.
+     */
+    public static <L, R, U> TupleProcessor<L, R, U> flatMap(BiFunction<L, R, Stream<U>> f) {
+        Objects.requireNonNull(f, "f");
+        return new TupleProcessor<>(null, t -> t.flatMap(f));
+    }
+
+    /**
+     * Processor doing {@link StreamTuple#peek(Consumer)} on the tuples before passing them on.
+     */
+    public static <L, R> TupleProcessor<L, R, R> peek(Consumer<R> f) {
+        Objects.requireNonNull(f, "f");
+        return new TupleProcessor<>(t -> {
+            t.peek(f);
+            return t;
+        }, null);
+    }
+
+    /**
+     * Processor doing {@link StreamTuple#peek(BiConsumer)} on the tuples before passing them on.
+     */
+    public static <L, R> TupleProcessor<L, R, R> peek(BiConsumer<L, R> f) {
+        Objects.requireNonNull(f, "f");
+        return new TupleProcessor<>(t -> {
+            t.peek(f);
+            return t;
+        }, null);
+    }
+
+    // --- Publisher side
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super StreamTuple<L, U>> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        synchronized (this) {
+            if (downstream == null) {
+                downstream = subscriber;
+                subscriber = null;
+            }
+        }
+        if (subscriber != null) {
+            subscriber.onSubscribe(CancelledSubscription.INSTANCE);
+            subscriber.onError(new IllegalStateException("TupleProcessor allows only a single subscriber"));
+            return;
+        }
+        downstream.onSubscribe(this);
+        subscribed = true;
+        drain();
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            onError(new IllegalArgumentException("request must be positive: " + n));
+            return;
+        }
+        Demand.add(demand, n);
+        drain();
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+        drain();
+    }
+
+    // --- Subscriber side
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        Objects.requireNonNull(subscription, "subscription");
+        synchronized (this) {
+            if (upstream == null) {
+                upstream = subscription;
+                subscription = null;
+            }
+        }
+        if (subscription != null) {
+            subscription.cancel(); // only one upstream allowed.
+            return;
+        }
+        drain();
+    }
+
+    @Override
+    public void onNext(StreamTuple<L, R> item) {
+        queue.add(Objects.requireNonNull(item, "item"));
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        error = Objects.requireNonNull(throwable, "throwable");
+        done = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        done = true;
+        drain();
+    }
+
+    // --- Emitting
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            emit();
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void emit() {
+        Flow.Subscriber<? super StreamTuple<L, U>> subscriber = downstream;
+        Flow.Subscription subscription = upstream;
+        if (terminated || !subscribed) {
+            return;
+        }
+        if (!started && subscription != null && !cancelled) {
+            started = true;
+            subscription.request(DEFAULT_PREFETCH);
+        }
+        while (true) {
+            if (cancelled) {
+                terminate();
+                if (subscription != null) {
+                    subscription.cancel();
+                }
+                return;
+            }
+            if (error != null) {
+                terminate();
+                if (subscription != null) {
+                    subscription.cancel();
+                }
+                subscriber.onError(error);
+                return;
+            }
+            boolean hasCurrent;
+            try {
+                hasCurrent = current != null && current.hasNext();
+            } catch (Throwable e) {
+                error = e;
+                continue;
+            }
+            if (!hasCurrent) {
+                closeCurrent();
+                if (done && queue.isEmpty()) {
+                    terminate();
+                    subscriber.onComplete();
+                    return;
+                }
+            }
+            if (demand.get() == 0) {
+                return;
+            }
+            StreamTuple<L, U> next;
+            try {
+                if (hasCurrent) {
+                    next = current.next();
+                } else {
+                    StreamTuple<L, R> t = queue.poll();
+                    if (t == null) {
+                        return;
+                    }
+                    replenish(subscription);
+                    if (single != null) {
+                        next = single.apply(t);
+                    } else {
+                        currentStream = many.apply(t);
+                        current = currentStream.iterator();
+                        continue;
+                    }
+                }
+            } catch (Throwable e) {
+                error = e;
+                continue;
+            }
+            if (next != null) {
+                Demand.produced(demand);
+                subscriber.onNext(next);
+            }
+        }
+    }
+
+    private void replenish(Flow.Subscription subscription) {
+        if (++consumed == DEFAULT_PREFETCH / 2) {
+            consumed = 0;
+            subscription.request(DEFAULT_PREFETCH / 2);
+        }
+    }
+
+    private void closeCurrent() {
+        if (currentStream != null) {
+            currentStream.close();
+            currentStream = null;
+        }
+        current = null;
+    }
+
+    private void terminate() {
+        terminated = true;
+        queue.clear();
+        closeCurrent();
+    }
+}
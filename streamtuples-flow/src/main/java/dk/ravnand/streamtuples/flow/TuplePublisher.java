@@ -0,0 +1,155 @@
+package dk.ravnand.streamtuples.flow;
+
+import dk.ravnand.streamtuples.StreamTuple;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * <p>Publisher emitting the tuples of a stream, pulling from the stream only as many tuples as the subscriber has
+ * requested, so nothing is buffered.  Each subscriber gets its own stream from the supplier:</p>
+ *
+ * <pre>
+ * TuplePublisher&lt;Integer, Integer&gt; publisher = TuplePublisher.of(() -&gt; StreamTuples.streamOf(1, 2, 3));
+ * </pre>
+ *
+ * <p>Tuples are emitted on the thread calling {@link Flow.Subscription#request(long)}.  The stream is closed
+ * when it is exhausted, fails or the subscription is cancelled.  For sources pushing tuples at their own pace use a
+ * {@link java.util.concurrent.SubmissionPublisher} instead, which blocks or drops when subscribers fall behind.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public final class TuplePublisher<L, R> implements Flow.Publisher<StreamTuple<L, R>> {
+
+    private final Supplier<? extends Stream<StreamTuple<L, R>>> streams;
+
+    private TuplePublisher(Supplier<? extends Stream<StreamTuple<L, R>>> streams) {
+        this.streams = Objects.requireNonNull(streams, "streams");
+    }
+
+    /**
+     * Publisher getting a new stream for each subscriber.
+     */
+    public static <L, R> TuplePublisher<L, R> of(Supplier<? extends Stream<StreamTuple<L, R>>> streams) {
+        return new TuplePublisher<>(streams);
+    }
+
+    /**
+     * Publisher emitting the given tuples to each subscriber.
+     */
+    public static <L, R> TuplePublisher<L, R> of(Iterable<StreamTuple<L, R>> tuples) {
+        Objects.requireNonNull(tuples, "tuples");
+        return new TuplePublisher<>(() -> {
+            Stream.Builder<StreamTuple<L, R>> builder = Stream.builder();
+            tuples.forEach(builder);
+            return builder.build();
+        });
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super StreamTuple<L, R>> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        Stream<StreamTuple<L, R>> stream;
+        try {
+            stream = streams.get();
+        } catch (Throwable e) {
+            subscriber.onSubscribe(CancelledSubscription.INSTANCE);
+            subscriber.onError(e);
+            return;
+        }
+        StreamSubscription<L, R> subscription = new StreamSubscription<>(subscriber, stream);
+        subscriber.onSubscribe(subscription);
+    }
+
+    /**
+     * Emits the tuples of the stream as they are requested.  The drain loop guarded by {@code wip} makes sure only
+     * one thread at a time emits, also when request is called from onNext.
+     */
+    private static class StreamSubscription<L, R> implements Flow.Subscription {
+        private final Flow.Subscriber<? super StreamTuple<L, R>> subscriber;
+        private final Stream<StreamTuple<L, R>> stream;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private Iterator<StreamTuple<L, R>> iterator;
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        private boolean terminated;
+
+        StreamSubscription(Flow.Subscriber<? super StreamTuple<L, R>> subscriber, Stream<StreamTuple<L, R>> stream) {
+            this.subscriber = subscriber;
+            this.stream = stream;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("request must be positive: " + n);
+            } else {
+                Demand.add(demand, n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                emit();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit() {
+            while (!terminated) {
+                if (cancelled) {
+                    terminate();
+                    return;
+                }
+                if (invalidRequest != null) {
+                    terminate();
+                    subscriber.onError(invalidRequest);
+                    return;
+                }
+                if (demand.get() == 0) {
+                    return;
+                }
+                StreamTuple<L, R> next;
+                try {
+                    if (iterator == null) {
+                        iterator = stream.iterator();
+                    }
+                    if (!iterator.hasNext()) {
+                        terminate();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    next = iterator.next();
+                } catch (Throwable e) {
+                    terminate();
+                    subscriber.onError(e);
+                    return;
+                }
+                Demand.produced(demand);
+                subscriber.onNext(next);
+            }
+        }
+
+        private void terminate() {
+            terminated = true;
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+/**
+ * <p>Adapters between StreamTuples and the reactive streams of {@link java.util.concurrent.Flow}, for tuple
+ * pipelines fed by producers which may be faster than the consumers.
+ * {@link dk.ravnand.streamtuples.flow.TuplePublisher} turns a stream into a publisher, and
+ * {@link dk.ravnand.streamtuples.flow.TupleProcessor} has processors corresponding to the StreamTuple helper
+ * methods, all honouring the request-n backpressure of their subscribers.</p>
+ *
+ * <p>This is a separate module as Flow requires Java 9.</p>
+ */
+package dk.ravnand.streamtuples.flow;
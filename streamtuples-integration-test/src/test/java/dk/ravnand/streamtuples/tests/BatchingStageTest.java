@@ -0,0 +1,112 @@
+package dk.ravnand.streamtuples.tests;
+
+import dk.ravnand.streamtuples.BatchingStage;
+import dk.ravnand.streamtuples.StreamTuple;
+import dk.ravnand.streamtuples.StreamTuples;
+import dk.ravnand.streamtuples.UncheckedSQLException;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @noinspection WeakerAccess, SqlNoDataSourceInspection, Convert2MethodRef
+ */
+public class BatchingStageTest {
+
+    protected Connection connection;
+
+    @BeforeEach
+    public void setupDatabase() throws SQLException {
+        var ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:batchingStageTest");
+        ds.setUser("sa");
+        ds.setPassword("sa");
+        connection = ds.getConnection();
+        try (var statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE t (id INTEGER, s VARCHAR)");
+            for (int id = 1; id <= 10; id++) {
+                statement.execute("INSERT INTO t VALUES (" + id + ", 'Row " + id + "')");
+            }
+        }
+    }
+
+    @AfterEach
+    public void destroyDatabase() throws SQLException {
+        connection.close(); // last connection to a mem: database drops it.
+    }
+
+    @Test
+    public void streamUpdateSimpleTableInBatches() throws SQLException {
+        var lookup = BatchingStage.<Integer, Integer, String>lookup(connection,
+                "SELECT id, s FROM t WHERE id IN (?)", 2, rs -> rs.getInt("id"), rs -> rs.getString("s"));
+        var update = BatchingStage.<Integer, String>update(connection,
+                "UPDATE t SET s=? WHERE id=?", 2, (ps, t) -> {
+                    ps.setString(1, t.right());
+                    ps.setInt(2, t.left());
+                });
+
+        var updateResult = update.apply(
+                lookup.apply(StreamTuples.streamOf(2, 3, 5))
+                        .map(t -> t.map(v -> ">" + v + "<")))
+                .collect(toMap(t -> t.left(), t -> t.right()));
+
+        assertThat(updateResult, is(Map.of(2, 1, 3, 1, 5, 1)));
+
+        var result = new TreeMap<Integer, String>();
+        try (var statement = connection.createStatement();
+             var rs = statement.executeQuery("SELECT id, s FROM t WHERE id <= 5")) {
+            while (rs.next()) {
+                result.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        assertThat(result, is(Map.of(1, "Row 1", 2, ">Row 2<", 3, ">Row 3<", 4, "Row 4", 5, ">Row 5<")));
+    }
+
+    @Test
+    public void lookupKeepsStreamOrderAndDropsMissingKeys() {
+        var lookup = BatchingStage.<String, Integer, String>lookup(connection,
+                "SELECT id, s FROM t WHERE id IN (?) ORDER BY id DESC", 3, rs -> rs.getInt(1), rs -> rs.getString(2));
+
+        var found = lookup.apply(IntStream.of(7, 42, 1, 7, 3).mapToObj(id -> new StreamTuple<>("k" + id, id)))
+                .map(t -> t.left() + "=" + t.right())
+                .collect(toList());
+
+        assertThat(found, is(List.of("k7=Row 7", "k1=Row 1", "k7=Row 7", "k3=Row 3")));
+    }
+
+    @Test
+    public void oneCallPerBatch() {
+        var batchSizes = new ArrayList<Integer>();
+        var stage = new BatchingStage<Integer, Integer, Integer>(4, batch -> {
+            batchSizes.add(batch.size());
+            return batch;
+        });
+
+        assertEquals(10, stage.apply(StreamTuples.streamOf(IntStream.rangeClosed(1, 10).boxed().toArray(Integer[]::new))).count());
+        assertThat(batchSizes, is(List.of(4, 4, 2)));
+    }
+
+    @Test
+    public void sqlExceptionsAreWrapped() {
+        var lookup = BatchingStage.<Integer, Integer, String>lookup(connection,
+                "SELECT id, s FROM no_such_table WHERE id IN (?)", 2, rs -> rs.getInt(1), rs -> rs.getString(2));
+
+        assertThrows(UncheckedSQLException.class, () -> lookup.apply(StreamTuples.streamOf(1)).count());
+    }
+}
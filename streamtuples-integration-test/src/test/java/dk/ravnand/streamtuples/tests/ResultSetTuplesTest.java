@@ -0,0 +1,104 @@
+package dk.ravnand.streamtuples.tests;
+
+import dk.ravnand.streamtuples.ResultSetTuples;
+import dk.ravnand.streamtuples.StreamTuple;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @noinspection WeakerAccess, SqlNoDataSourceInspection, Convert2MethodRef
+ */
+public class ResultSetTuplesTest {
+
+    protected Connection connection;
+
+    @BeforeEach
+    public void setupDatabase() throws SQLException {
+        var ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:resultSetTuplesTest");
+        ds.setUser("sa");
+        ds.setPassword("sa");
+        connection = ds.getConnection();
+        try (var statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE t (id INTEGER PRIMARY KEY, s VARCHAR)");
+            statement.execute("INSERT INTO t SELECT x, 'Row ' || x FROM SYSTEM_RANGE(1, 5000)");
+        }
+    }
+
+    @AfterEach
+    public void destroyDatabase() throws SQLException {
+        connection.close(); // last connection to a mem: database drops it.
+    }
+
+    @Test
+    public void rowsAreStreamedAsTuples() throws SQLException {
+        var statement = connection.createStatement();
+        var resultSet = statement.executeQuery("SELECT id, s FROM t WHERE id <= 3 ORDER BY id");
+
+        try (var rows = ResultSetTuples.<Integer, String>stream(resultSet, "id", rs -> rs.getString("s"))) {
+            var m = rows
+                    .map(t -> t.map(s -> ">" + s + "<"))
+                    .collect(toMap(t -> t.left(), t -> t.right()));
+
+            assertThat(m, is(Map.of(1, ">Row 1<", 2, ">Row 2<", 3, ">Row 3<")));
+        }
+        assertTrue(resultSet.isClosed());
+        assertTrue(statement.isClosed());
+    }
+
+    @Test
+    public void rowsAreOnlyReadAsNeeded() throws SQLException {
+        try (var statement = connection.createStatement()) {
+            var resultSet = statement.executeQuery("SELECT id, s FROM t ORDER BY id");
+            try (var rows = ResultSetTuples.stream(resultSet, rs -> rs.getInt(1), rs -> rs.getString(2), 100)) {
+                var first = rows.limit(2).map(t -> t.left()).collect(toList());
+
+                assertThat(first, is(List.of(1, 2)));
+                assertEquals(2, resultSet.getRow());
+                assertFalse(resultSet.isClosed());
+            }
+        }
+    }
+
+    @Test
+    public void scrollableResultSetsAreNotMovedUntilRowsAreRead() throws SQLException {
+        var statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        var resultSet = statement.executeQuery("SELECT id, s FROM t ORDER BY id");
+        try (var rows = ResultSetTuples.stream(resultSet, rs -> rs.getInt(1), rs -> rs.getString(2))) {
+            var spliterator = rows.spliterator();
+            assertEquals(Long.MAX_VALUE, spliterator.estimateSize());
+            assertTrue(resultSet.isBeforeFirst());
+            spliterator.tryAdvance(t -> assertEquals(new StreamTuple<>(1, "Row 1"), t));
+            assertEquals(1, resultSet.getRow());
+        }
+    }
+
+    @Test
+    public void parallelStreamsSeeAllRows() throws SQLException {
+        var resultSet = connection.createStatement().executeQuery("SELECT id, s FROM t");
+        try (var rows = ResultSetTuples.stream(resultSet, rs -> rs.getInt(1), rs -> rs.getString(2), 128)) {
+            var sum = rows.parallel()
+                    .filter(t -> t.filter(s -> s.startsWith("Row")))
+                    .mapToLong(t -> t.left())
+                    .sum();
+
+            assertEquals(5000L * 5001 / 2, sum);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package dk.ravnand.streamtuples;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @noinspection WeakerAccess
+ */
+public class AsyncStageTest {
+
+    static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void mapAsyncKeepsLeft() throws Exception {
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var t = new StreamTuple<>(1, "a").mapAsync(s -> s + s, executor).get();
+            assertThat(t, is(new StreamTuple<>(1, "aa")));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void orderedKeepsStreamOrder() {
+        var ids = IntStream.range(0, 50).boxed().collect(toList());
+        var result = AsyncStage.<Integer, Integer, String>ordered(i -> {
+            sleep((50 - i) % 7);
+            return "#" + i;
+        }, 8).apply(StreamTuples.streamOf(ids.toArray(new Integer[0]))).collect(toList());
+
+        assertThat(result, is(ids.stream().map(i -> new StreamTuple<>(i, "#" + i)).collect(toList())));
+    }
+
+    @Test
+    public void unorderedEmitsAllTuples() {
+        var ids = IntStream.range(0, 50).boxed().collect(toList());
+        var result = AsyncStage.<Integer, Integer, Integer>unordered(i -> {
+            sleep((50 - i) % 7);
+            return -i;
+        }, 8).apply(StreamTuples.streamOf(ids.toArray(new Integer[0])))
+                .collect(Collectors.toMap(t -> t.left(), t -> t.right()));
+
+        assertEquals(50, result.size());
+        ids.forEach(i -> assertEquals(-i, (int) result.get(i)));
+    }
+
+    @Test
+    public void inFlightIsBounded() {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            var running = new AtomicInteger();
+            var maxRunning = new AtomicInteger();
+            long count = AsyncStage.<Integer, Integer, Integer>ordered(i -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(2);
+                running.decrementAndGet();
+                return i;
+            }, executor, 4).apply(IntStream.range(0, 40).mapToObj(i -> new StreamTuple<>(i, i))).count();
+
+            assertEquals(40, count);
+            assertTrue(maxRunning.get() <= 4, "max running " + maxRunning.get());
+            assertTrue(maxRunning.get() > 1, "max running " + maxRunning.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void mappingExceptionIsRethrown() {
+        var stage = AsyncStage.<Integer, Integer, Integer>unordered(i -> {
+            if (i == 3) {
+                throw new IllegalStateException("no " + i);
+            }
+            return i;
+        }, 2);
+        var e = assertThrows(IllegalStateException.class,
+                () -> stage.apply(StreamTuples.streamOf(1, 2, 3, 4)).collect(toList()));
+        assertThat(e.getMessage(), is("no 3"));
+    }
+
+    @Test
+    public void closeClosesSource() {
+        var closed = new AtomicInteger();
+        List<StreamTuple<Integer, Integer>> result;
+        try (var s = AsyncStage.<Integer, Integer, Integer>ordered(i -> i * 2, 2)
+                .apply(StreamTuples.streamOf(1, 2, 3).onClose(closed::incrementAndGet))) {
+            result = s.limit(1).collect(toList());
+        }
+        assertThat(result, is(List.of(new StreamTuple<>(1, 2))));
+        assertEquals(1, closed.get());
+    }
+}
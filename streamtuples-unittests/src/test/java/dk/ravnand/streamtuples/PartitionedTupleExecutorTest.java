@@ -0,0 +1,94 @@
+package dk.ravnand.streamtuples;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @noinspection WeakerAccess
+ */
+public class PartitionedTupleExecutorTest {
+
+    @Test
+    public void forEachKeepsOrderPerKeyWithoutLocks() {
+        // a plain HashMap per key, only touched by the lane of the key
+        var perKey = new ConcurrentHashMap<Integer, List<Integer>>();
+        var threads = new ConcurrentHashMap<Integer, Map<String, Boolean>>();
+        try (var executor = new PartitionedTupleExecutor(4, 16)) {
+            executor.forEachPartitioned(IntStream.range(0, 100_000).mapToObj(i -> new StreamTuple<>(i % 100, i)),
+                    (key, i) -> {
+                        perKey.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+                        threads.computeIfAbsent(key, k -> new HashMap<>()).put(Thread.currentThread().getName(), true);
+                    });
+        }
+        assertEquals(100, perKey.size());
+        perKey.forEach((key, values) -> {
+            assertEquals(1_000, values.size());
+            for (int i = 0; i < values.size(); i++) {
+                assertEquals(key + i * 100, (int) values.get(i));
+            }
+        });
+        threads.values().forEach(names -> assertEquals(1, names.size()));
+    }
+
+    @Test
+    public void mapKeepsOrderPerKey() {
+        try (var executor = new PartitionedTupleExecutor(3, 8)) {
+            var results = executor.mapPartitioned(
+                    IntStream.range(0, 10_000).mapToObj(i -> new StreamTuple<>(i % 7, i)), (k, i) -> k + ":" + i)
+                    .collect(groupingBy(t -> t.left(), mapping(t -> t.right(), toList())));
+            assertEquals(7, results.size());
+            results.forEach((key, values) -> assertThat(values, is(IntStream.range(0, 10_000)
+                    .filter(i -> i % 7 == key)
+                    .mapToObj(i -> key + ":" + i)
+                    .collect(toList()))));
+        }
+    }
+
+    @Test
+    public void failuresAreRethrown() {
+        try (var executor = new PartitionedTupleExecutor(2, 4)) {
+            var e = assertThrows(IllegalArgumentException.class, () -> executor.forEachPartitioned(
+                    IntStream.range(0, 1_000).mapToObj(i -> new StreamTuple<>(i, i)), (k, i) -> {
+                        if (i == 500) {
+                            throw new IllegalArgumentException("500");
+                        }
+                    }));
+            assertEquals("500", e.getMessage());
+
+            assertThrows(IllegalArgumentException.class, () -> executor.mapPartitioned(
+                    IntStream.range(0, 1_000).mapToObj(i -> new StreamTuple<>(i, i)), i -> {
+                        if (i == 500) {
+                            throw new IllegalArgumentException("500");
+                        }
+                        return i;
+                    }).count());
+
+            // still usable
+            assertEquals(10, executor.mapPartitioned(
+                    IntStream.range(0, 10).mapToObj(i -> new StreamTuple<>(i, i)), i -> i).count());
+        }
+    }
+
+    @Test
+    public void closedExecutorRejectsWork() {
+        var executor = new PartitionedTupleExecutor(1, 1);
+        executor.close();
+        assertThrows(IllegalStateException.class, () -> executor.forEachPartitioned(
+                IntStream.range(0, 10).mapToObj(i -> new StreamTuple<>(i, i)), (k, i) -> { }));
+        assertEquals(1, executor.lanes());
+    }
+}
@@ -0,0 +1,91 @@
+package dk.ravnand.streamtuples;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.*;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @noinspection WeakerAccess, Convert2MethodRef
+ */
+public class PrimitiveTuplesTest {
+    @Test
+    public void intKeysLookupFilterAndCollect() {
+        var lookup = Map.of(1, "1.", 2, "2.", 3, "3.");
+        var m = StreamTuples.streamOf(IntStream.of(1, 2, 3), id -> lookup.get(id))
+                .filter(t -> t.filter((id, s) -> id > 1))
+                .map(t -> t.map(s -> s + " OK"))
+                .collect(toMap(t -> t.left(), t -> t.right()));
+
+        assertThat(m, is(Map.of(2, "2. OK", 3, "3. OK")));
+    }
+
+    @Test
+    public void longKeysFlatMapAndPeek() {
+        var list = new ArrayList<>();
+        var m = StreamTuples.streamOf(LongStream.of(1, 2), id -> "#" + id)
+                .flatMap(t -> t.flatMap((id, s) -> id % 2 == 1 ? Stream.of(s) : Stream.of(s, s + s)))
+                .peek(t -> t.peek((id, s) -> list.add(id + s)))
+                .collect(groupingBy(t -> t.left(), mapping(t -> t.right(), toList())));
+
+        assertThat(m, is(Map.of(1L, List.of("#1"), 2L, List.of("#2", "#2#2"))));
+        assertThat(list, is(List.of("1#1", "2#2", "2#2#2")));
+    }
+
+    @Test
+    public void mapToIntKeepsLeftAndMapsBack() {
+        var m = StreamTuples.streamOf("a", "bb", "ccc")
+                .map(t -> t.mapToInt(s -> s.length()))
+                .filter(t -> t.filter(n -> n > 1))
+                .map(t -> t.mapToInt(n -> n * 10))
+                .map(t -> t.map((s, n) -> s + n))
+                .collect(toMap(t -> t.left(), t -> t.right()));
+
+        assertThat(m, is(Map.of("bb", "bb20", "ccc", "ccc30")));
+    }
+
+    @Test
+    public void mapToDoubleUsingBothLeftAndRight() {
+        var m = StreamTuples.streamOf(1, 2, 3)
+                .map(t -> t.mapToDouble((l, r) -> l * 0.5 + r))
+                .filter(t -> t.filter((l, d) -> d > 2))
+                .collect(toMap(t -> t.left(), t -> t.right()));
+
+        assertThat(m, is(Map.of(2, 3.0, 3, 4.5)));
+    }
+
+    @Test
+    public void sortedSameOrderAsStreamTuple() {
+        var l = Stream.of(
+                new ObjIntTuple<>("z", 2),
+                new ObjIntTuple<>("b", 2),
+                new ObjIntTuple<>("a", 3),
+                new ObjIntTuple<>("q", 1))
+                .sorted()
+                .map(t -> t.left())
+                .collect(toList());
+
+        assertThat(l, is(List.of("q", "b", "z", "a")));
+    }
+
+    @Test
+    public void equalsAndHashCodeMatchBoxedTuple() {
+        var boxed = new StreamTuple<>(42, "x");
+
+        assertEquals(boxed.hashCode(), new IntObjTuple<>(42, "x").hashCode());
+        assertEquals(new StreamTuple<>(42L, "x").hashCode(), new LongObjTuple<>(42L, "x").hashCode());
+        assertEquals(new StreamTuple<>("x", 42).hashCode(), new ObjIntTuple<>("x", 42).hashCode());
+        assertEquals(new StreamTuple<>("x", 0.5).hashCode(), new ObjDoubleTuple<>("x", 0.5).hashCode());
+        assertEquals(new IntObjTuple<>(42, "x"), new IntObjTuple<>(42, "x"));
+        assertEquals(boxed, new IntObjTuple<>(42, "x").toStreamTuple());
+    }
+}
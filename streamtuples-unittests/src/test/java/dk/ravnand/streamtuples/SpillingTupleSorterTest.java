@@ -0,0 +1,166 @@
+package dk.ravnand.streamtuples;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @noinspection WeakerAccess, Convert2MethodRef
+ */
+public class SpillingTupleSorterTest {
+
+    static final TupleCodec<Integer> INT = new TupleCodec<>() {
+        @Override
+        public int encodedSize(Integer value) {
+            return 4;
+        }
+
+        @Override
+        public void encode(Integer value, ByteBuffer buffer) {
+            buffer.putInt(value);
+        }
+
+        @Override
+        public Integer decode(ByteBuffer buffer) {
+            return buffer.getInt();
+        }
+    };
+
+    static final TupleCodec<String> STRING = new TupleCodec<>() {
+        @Override
+        public int encodedSize(String value) {
+            return 4 + value.getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        @Override
+        public void encode(String value, ByteBuffer buffer) {
+            var bytes = value.getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(bytes.length).put(bytes);
+        }
+
+        @Override
+        public String decode(ByteBuffer buffer) {
+            var bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    static final TupleCodec<StreamTuple<Integer, String>> CODEC = TupleCodecs.tuple(INT, STRING);
+
+    Path directory;
+
+    @BeforeEach
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("spilling-test");
+    }
+
+    @AfterEach
+    public void deleteDirectory() throws IOException {
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count(), "run files left");
+        }
+        Files.delete(directory);
+    }
+
+    List<StreamTuple<Integer, String>> randomTuples(int n) {
+        var random = new Random(n);
+        return IntStream.range(0, n)
+                .mapToObj(i -> new StreamTuple<>(random.nextInt(100), "v" + random.nextInt(100)))
+                .collect(toList());
+    }
+
+    @Test
+    public void spilledSortIsLikeSorted() {
+        var tuples = randomTuples(10_000);
+        var sorter = new SpillingTupleSorter<>(CODEC, StreamTuples.<Integer, String>byRightThenLeft(), 1000, directory);
+
+        try (var sorted = sorter.apply(tuples.stream())) {
+            assertThat(sorted.collect(toList()), is(tuples.stream().sorted().collect(toList())));
+        }
+    }
+
+    @Test
+    public void spilledSortIsStable() {
+        var tuples = randomTuples(5_000);
+        var sorter = new SpillingTupleSorter<>(CODEC, StreamTuples.<Integer, String>byLeft(), 500, directory);
+
+        try (var sorted = sorter.apply(tuples.stream())) {
+            assertThat(sorted.collect(toList()), is(tuples.stream()
+                    .sorted(Comparator.comparing(t -> t.left())).collect(toList())));
+        }
+    }
+
+    @Test
+    public void smallStreamIsSortedInMemory() {
+        var sorter = new SpillingTupleSorter<>(CODEC, StreamTuples.<Integer, String>byRightThenLeft(), 1 << 20,
+                directory);
+        try (var sorted = sorter.apply(StreamTuples.streamOf(3, 1, 2).map(t -> t.map(r -> "#" + r)))) {
+            assertThat(sorted.map(t -> t.left()).collect(toList()), is(List.of(1, 2, 3)));
+        }
+    }
+
+    @Test
+    public void closingEarlyDeletesRunFiles() {
+        var sorter = new SpillingTupleSorter<>(CODEC, StreamTuples.<Integer, String>byRightThenLeft(), 100, directory);
+        try (var sorted = sorter.apply(randomTuples(1000).stream())) {
+            assertEquals(10, sorted.limit(10).count());
+        }
+    }
+
+    @Test
+    public void codecFailureDeletesRunFiles() {
+        var failing = TupleCodecs.tuple(INT, new TupleCodec<String>() {
+            @Override
+            public int encodedSize(String value) {
+                return 1;
+            }
+
+            @Override
+            public void encode(String value, ByteBuffer buffer) {
+                throw new IllegalStateException("cannot encode " + value);
+            }
+
+            @Override
+            public String decode(ByteBuffer buffer) {
+                throw new IllegalStateException();
+            }
+        });
+        var sorter = new SpillingTupleSorter<>(failing, StreamTuples.<Integer, String>byRightThenLeft(), 10, directory);
+        assertThrows(IllegalStateException.class, () -> sorter.apply(randomTuples(100).stream()));
+    }
+
+    @Test
+    public void groupingIsLikeGroupingBy() {
+        var tuples = randomTuples(10_000);
+        var grouper = new SpillingTupleGrouper<>(CODEC, Comparator.<Integer>naturalOrder(), 1000, directory);
+
+        Map<Integer, List<String>> expected = tuples.stream()
+                .collect(groupingBy(t -> t.left(), TreeMap::new, mapping(t -> t.right(), toList())));
+        try (var groups = grouper.apply(tuples.stream())) {
+            var result = groups.collect(toList());
+            assertThat(result.stream().map(t -> t.left()).collect(toList()), is(List.copyOf(expected.keySet())));
+            result.forEach(t -> assertThat(t.right(), is(expected.get(t.left()))));
+        }
+    }
+}
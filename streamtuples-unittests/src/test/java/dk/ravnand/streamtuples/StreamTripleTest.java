@@ -0,0 +1,69 @@
+package dk.ravnand.streamtuples;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @noinspection WeakerAccess
+ */
+public class StreamTripleTest {
+
+    @Test
+    public void tripleKeepsTheContext() {
+        var result = StreamTuples.streamOf("1", "22", "333")
+                .map(t -> StreamTuples.tripleOf(t, s -> s.length()))
+                .map(t -> t.map((a, b, c) -> a + "/" + b + "/" + c))
+                .filter(t -> t.filter(s -> !s.startsWith("2")))
+                .collect(toList());
+        assertThat(result, is(List.of(
+                new StreamTriple<>("1", "1", "1/1/1"),
+                new StreamTriple<>("333", "333", "333/333/3"))));
+    }
+
+    @Test
+    public void slotMaps() {
+        var t = new StreamTriple<>(1, "b", 3.0);
+        assertThat(t.mapFirst(i -> i + 1), is(new StreamTriple<>(2, "b", 3.0)));
+        assertThat(t.mapSecond(s -> s + s), is(new StreamTriple<>(1, "bb", 3.0)));
+        assertThat(t.map(d -> d / 2), is(new StreamTriple<>(1, "b", 1.5)));
+        assertThat(t.dropFirst(), is(new StreamTuple<>("b", 3.0)));
+        assertThat(t.flatMap((a, b, c) -> Stream.of(a, c.intValue())).collect(toList()),
+                is(List.of(new StreamTriple<>(1, "b", 1), new StreamTriple<>(1, "b", 3))));
+    }
+
+    @Test
+    public void quad() {
+        var q = new StreamTriple<>(1, 2, 3).push(c -> c * 10);
+        assertThat(q, is(new StreamQuad<>(1, 2, 3, 30)));
+        assertThat(q.map((a, b, c, d) -> a + b + c + d), is(new StreamQuad<>(1, 2, 3, 36)));
+        assertThat(q.mapThird(c -> "c"), is(new StreamQuad<>(1, 2, "c", 30)));
+        assertThat(q.dropFirst(), is(new StreamTriple<>(2, 3, 30)));
+        assertEquals(true, q.filter((a, b, c, d) -> d == 30));
+    }
+
+    @Test
+    public void nestedFormsFlatten() {
+        assertThat(StreamTuples.tripleOf(new StreamTuple<>(1, new StreamTuple<>(2, 3))),
+                is(new StreamTriple<>(1, 2, 3)));
+        assertThat(StreamTuples.quadOf(new StreamTuple<>(1, new StreamTuple<>(2, new StreamTuple<>(3, 4)))),
+                is(new StreamQuad<>(1, 2, 3, 4)));
+        assertThat(StreamTuples.quadOf(new StreamTriple<>(1, 2, 3), c -> c + 1), is(new StreamQuad<>(1, 2, 3, 4)));
+    }
+
+    @Test
+    public void equalsAndHashCode() {
+        assertEquals(new StreamTriple<>(1, 2, 3).hashCode(), java.util.Objects.hash(1, 2, 3));
+        assertEquals(new StreamQuad<>(1, 2, 3, 4).hashCode(), java.util.Objects.hash(1, 2, 3, 4));
+        assertNotEquals(new StreamTriple<>(1, 2, 3), new StreamTriple<>(1, 3, 2));
+        assertThrows(NullPointerException.class, () -> new StreamTriple<>(1, null, 3));
+    }
+}
@@ -3,15 +3,18 @@ package dk.ravnand.streamtuples;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.*;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 
 /**
  * @noinspection WeakerAccess, Convert2MethodRef
@@ -237,4 +240,45 @@ public class StreamTupleTest {
 
         assertThat(l, is(List.of("a", 2, "a", 3, "b", 3, "q", 2)));
     }
+
+    @Test
+    public void hashCodeIsObjectsHash() {
+        var t = new StreamTuple<>("a", 1);
+        assertEquals(Objects.hash("a", 1), t.hashCode());
+        assertEquals(t.hashCode(), t.hashCode());
+        assertEquals(new StreamTuple<>("a", 1), t);
+        assertNotEquals(new StreamTuple<>("a", 2), t);
+    }
+
+    @Test
+    public void byRightThenLeftIsLikeCompareTo() {
+        var tuples = List.of(
+                new StreamTuple<>(2, "z"),
+                new StreamTuple<>(3, "a"),
+                new StreamTuple<>(2, "a"),
+                new StreamTuple<>(3, "b"));
+
+        var natural = tuples.stream().sorted().collect(toList());
+        assertThat(tuples.stream().sorted(StreamTuples.byRightThenLeft()).collect(toList()), is(natural));
+        assertThat(tuples.stream()
+                .sorted(StreamTuples.byRightThenLeft(Comparator.naturalOrder(), Comparator.naturalOrder()))
+                .collect(toList()), is(natural));
+    }
+
+    @Test
+    public void byLeftAndByRight() {
+        var tuples = List.of(
+                new StreamTuple<>(2, "b"),
+                new StreamTuple<>(3, "a"),
+                new StreamTuple<>(1, "c"));
+
+        assertThat(tuples.stream().sorted(StreamTuples.byLeft()).map(t -> t.left()).collect(toList()),
+                is(List.of(1, 2, 3)));
+        assertThat(tuples.stream().sorted(StreamTuples.byLeft(Comparator.<Integer>reverseOrder()))
+                .map(t -> t.left()).collect(toList()), is(List.of(3, 2, 1)));
+        assertThat(tuples.stream().sorted(StreamTuples.byRight()).map(t -> t.right()).collect(toList()),
+                is(List.of("a", "b", "c")));
+        assertThat(tuples.stream().sorted(StreamTuples.byRight(Comparator.<String>reverseOrder()))
+                .map(t -> t.right()).collect(toList()), is(List.of("c", "b", "a")));
+    }
 }
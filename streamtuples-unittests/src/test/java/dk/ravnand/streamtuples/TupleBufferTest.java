@@ -0,0 +1,94 @@
+package dk.ravnand.streamtuples;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @noinspection WeakerAccess
+ */
+public class TupleBufferTest {
+    @Test
+    public void primitiveColumnsAreUsedWhenPossible() {
+        var buffer = new TupleBuffer<Integer, Double>();
+        buffer.add(1, 1.5);
+        buffer.add(2, 2.5);
+
+        assertEquals(int.class, buffer.leftColumnType());
+        assertEquals(double.class, buffer.rightColumnType());
+        assertThat(buffer.get(1), is(new StreamTuple<>(2, 2.5)));
+
+        var longs = new TupleBuffer<Long, String>();
+        longs.add(1L, "a");
+        assertEquals(long.class, longs.leftColumnType());
+        assertEquals(Object.class, longs.rightColumnType());
+    }
+
+    @Test
+    public void columnBecomesObjectColumnForOtherTypes() {
+        var buffer = new TupleBuffer<Number, String>(1);
+        buffer.add(1, "a");
+        buffer.add(2L, "b");
+        buffer.add(3, "c");
+
+        assertEquals(Object.class, buffer.leftColumnType());
+        assertThat(buffer.stream().collect(toList()), is(List.of(
+                new StreamTuple<>(1, "a"), new StreamTuple<>(2L, "b"), new StreamTuple<>(3, "c"))));
+    }
+
+    @Test
+    public void sortIsLikeCompareTo() {
+        var random = new Random(1);
+        var tuples = IntStream.range(0, 1000)
+                .mapToObj(i -> new StreamTuple<>(random.nextInt(100), "v" + random.nextInt(50)))
+                .collect(toList());
+
+        TupleBuffer<Integer, String> buffer = tuples.stream().collect(TupleCollectors.toTupleBuffer());
+        buffer.sort();
+
+        assertThat(buffer.stream().collect(toList()), is(tuples.stream().sorted().collect(toList())));
+    }
+
+    @Test
+    public void sortPrimitiveColumns() {
+        var buffer = new TupleBuffer<Long, Double>(0);
+        buffer.add(3L, 1.0);
+        buffer.add(1L, 2.0);
+        buffer.add(2L, 1.0);
+        buffer.add(4L, -0.0);
+        buffer.sort();
+
+        assertThat(buffer.stream().collect(toList()), is(List.of(
+                new StreamTuple<>(4L, -0.0), new StreamTuple<>(2L, 1.0),
+                new StreamTuple<>(3L, 1.0), new StreamTuple<>(1L, 2.0))));
+    }
+
+    @Test
+    public void parallelCollectKeepsEncounterOrder() {
+        var ids = IntStream.range(0, 10_000).boxed().toArray(Integer[]::new);
+        TupleBuffer<Integer, Integer> buffer = StreamTuples.streamOf(ids).parallel()
+                .map(t -> t.map(r -> r * 2))
+                .collect(TupleCollectors.toTupleBuffer());
+
+        assertEquals(10_000, buffer.size());
+        assertEquals(5000, (int) buffer.left(5000));
+        assertEquals(10_000, (int) buffer.right(5000));
+        assertEquals(10_000, buffer.stream().parallel().count());
+    }
+
+    @Test
+    public void nullsAndBadIndexesAreRejected() {
+        var buffer = new TupleBuffer<Integer, String>();
+        assertThrows(NullPointerException.class, () -> buffer.add(1, null));
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.get(0));
+        assertEquals(0, buffer.size());
+    }
+}
@@ -0,0 +1,88 @@
+package dk.ravnand.streamtuples;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toMap;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @noinspection WeakerAccess, Convert2MethodRef
+ */
+public class TupleCacheTest {
+    @Test
+    public void repeatedKeysSkipTheMappingFunction() {
+        var calls = new AtomicInteger();
+        var cache = new TupleCache<Integer, String>(100);
+
+        for (int i = 0; i < 3; i++) {
+            var m = StreamTuples.streamOf(1, 2, 3)
+                    .map(t -> t.mapCached(id -> "#" + id + "/" + calls.incrementAndGet(), cache))
+                    .collect(toMap(t -> t.left(), t -> t.right()));
+            assertThat(m, is(Map.of(1, "#1/1", 2, "#2/2", 3, "#3/3")));
+        }
+
+        assertEquals(3, calls.get());
+        assertEquals(3, cache.missCount());
+        assertEquals(6, cache.hitCount());
+        assertEquals(0, cache.evictionCount());
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvictedWhenFull() {
+        var cache = new TupleCache<Integer, String>(2);
+        cache.get(1, k -> "one");
+        cache.get(2, k -> "two");
+        cache.get(1, k -> "not called");
+        cache.get(3, k -> "three");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictionCount());
+        assertEquals("one", cache.getIfPresent(1));
+        assertNull(cache.getIfPresent(2));
+    }
+
+    @Test
+    public void entriesExpireAfterWrite() {
+        var now = new AtomicLong();
+        var cache = new TupleCache<Integer, String>(10, TimeUnit.SECONDS.toNanos(5), now::get);
+        cache.get(1, k -> "old");
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(4));
+        assertEquals("old", cache.get(1, k -> "new"));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertNull(cache.getIfPresent(1));
+        assertEquals("new", cache.get(1, k -> "new"));
+        assertEquals(1, cache.evictionCount());
+        assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    public void parallelStreamsShareTheCacheBounded() {
+        var calls = new AtomicInteger();
+        var cache = new TupleCache<Integer, Integer>(1_000);
+
+        var sum = IntStream.range(0, 100_000).boxed().parallel()
+                .map(i -> new StreamTuple<>(i, i % 500))
+                .map(t -> t.mapCached(r -> {
+                    calls.incrementAndGet();
+                    return r * 2;
+                }, cache))
+                .mapToLong(t -> t.right())
+                .sum();
+
+        assertEquals(200 * 499 * 500L, sum);
+        assertEquals(100_000, cache.hitCount() + cache.missCount());
+        assertEquals(calls.get(), cache.missCount());
+        assertEquals(500, cache.size());
+    }
+}
@@ -0,0 +1,86 @@
+package dk.ravnand.streamtuples;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @noinspection WeakerAccess
+ */
+public class TupleChainTest {
+
+    @Test
+    public void chainKeepsEveryStepTyped() {
+        var result = Stream.of("1", "22", "333")
+                .map(TupleChain::of)
+                .map(c -> c.map(s -> s.length()))
+                .filter(c -> c.filter(n -> n != 2))
+                .map(c -> c.map(n -> n * 10.0))
+                .map(c -> c.previous().previous().head() + "/" + c.previous().head() + "/" + c.head())
+                .collect(toList());
+        assertThat(result, is(List.of("1/1/10.0", "333/3/30.0")));
+    }
+
+    @Test
+    public void pushSharesThePrevious() {
+        var first = TupleChain.of("a");
+        var second = first.push(2);
+        var third = second.push(3.0);
+        var other = second.push("c");
+        assertThat(third.previous(), sameInstance(second));
+        assertThat(other.previous(), sameInstance(second));
+        assertThat(third.size(), is(3));
+        assertNull(first.previous());
+        assertThat(third.toList(), is(List.of("a", 2, 3.0)));
+        assertThat(other.toList(), is(List.of("a", 2, "c")));
+    }
+
+    @Test
+    public void get() {
+        var chain = TupleChain.of("a").push(2).push(3.0);
+        assertEquals(3.0, (double) chain.get(0));
+        assertEquals(2, (int) chain.get(1));
+        assertEquals("a", chain.get(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> chain.get(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> chain.get(-1));
+    }
+
+    @Test
+    public void replaceAndFlatMap() {
+        var chain = TupleChain.of(new StreamTuple<>("a", 1));
+        assertThat(chain.toList(), is(List.of("a", 1)));
+        assertThat(chain.replace("b").toList(), is(List.of("a", "b")));
+        assertThat(chain.replace("b").previous(), sameInstance(chain.previous()));
+        assertThat(chain.flatMap(n -> Stream.of(n, n + 1)).map(TupleChain::toList).collect(toList()),
+                is(List.of(List.of("a", 1, 1), List.of("a", 1, 2))));
+    }
+
+    @Test
+    public void equalsHashCodeAndToString() {
+        var a = TupleChain.of("a").push(2).push(3);
+        var b = TupleChain.of("a").push(2).push(3);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(Arrays.asList("a", 2, 3).hashCode(), a.hashCode());
+        assertNotEquals(a, TupleChain.of("a").push(3).push(3));
+        assertNotEquals(a, TupleChain.of(2).push(3));
+        assertThat(a.toString(), is("TupleChain[a, 2, 3]"));
+    }
+
+    @Test
+    public void nullValuesAreRejected() {
+        assertThrows(NullPointerException.class, () -> TupleChain.of(null));
+        assertThrows(NullPointerException.class, () -> TupleChain.of("a").push(null));
+    }
+}
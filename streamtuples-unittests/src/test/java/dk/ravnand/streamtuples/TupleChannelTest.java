@@ -0,0 +1,124 @@
+package dk.ravnand.streamtuples;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @noinspection WeakerAccess
+ */
+public class TupleChannelTest {
+
+    static final TupleCodec<StreamTuple<Integer, StreamTuple<String, Double>>> CODEC =
+            TupleCodecs.tuple(TupleCodecs.INT, TupleCodecs.tuple(TupleCodecs.STRING, TupleCodecs.DOUBLE));
+
+    static List<StreamTuple<Integer, StreamTuple<String, Double>>> tuples(int n) {
+        return IntStream.range(0, n)
+                .mapToObj(i -> new StreamTuple<>(i, new StreamTuple<>("s\u00e6" + i, i / 2.0)))
+                .collect(toList());
+    }
+
+    static byte[] write(List<StreamTuple<Integer, StreamTuple<String, Double>>> tuples) {
+        var out = new ByteArrayOutputStream();
+        try (var writer = new TupleChannelWriter<>(Channels.newChannel(out), CODEC)) {
+            assertEquals(tuples.size(), writer.writeAll(tuples.stream()));
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void fileRoundTrip() throws IOException {
+        var file = Files.createTempFile("tuples", ".bin");
+        try {
+            var tuples = tuples(100_000);
+            try (var writer = TupleChannelWriter.open(file, CODEC)) {
+                writer.writeAll(tuples.stream());
+            }
+            try (var read = TupleChannelReader.stream(file, CODEC)) {
+                assertThat(read.collect(toList()), is(tuples));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void byteBufferAndChannelRoundTrip() {
+        var tuples = tuples(10_000);
+        var bytes = write(tuples);
+
+        try (var read = TupleChannelReader.stream(ByteBuffer.wrap(bytes), CODEC)) {
+            assertThat(read.collect(toList()), is(tuples));
+        }
+        try (var read = TupleChannelReader.stream(Channels.newChannel(new ByteArrayInputStream(bytes)), CODEC)) {
+            assertThat(read.collect(toList()), is(tuples));
+        }
+    }
+
+    @Test
+    public void framesLargerThanTheBufferAreHandled() {
+        var big = String.join("", Collections.nCopies(200_000, "x"));
+        var tuples = List.of(new StreamTuple<>(1, new StreamTuple<>(big, 1.0)),
+                new StreamTuple<>(2, new StreamTuple<>("small", 2.0)));
+        var bytes = write(tuples);
+
+        try (var read = TupleChannelReader.stream(Channels.newChannel(new ByteArrayInputStream(bytes)), CODEC)) {
+            assertThat(read.collect(toList()), is(tuples));
+        }
+    }
+
+    @Test
+    public void stringCodecMatchesGetBytes() {
+        for (var s : List.of("", "abc", "\u00e6\u00f8\u00e5", "\u20ac", "\ud83d\ude00", "bad \ud83d surrogate")) {
+            var buffer = ByteBuffer.allocate(TupleCodecs.STRING.encodedSize(s));
+            TupleCodecs.STRING.encode(s, buffer);
+            assertEquals(0, buffer.remaining());
+
+            var expected = s.getBytes(StandardCharsets.UTF_8);
+            buffer.flip();
+            assertEquals(expected.length, buffer.getInt());
+            var actual = new byte[buffer.remaining()];
+            buffer.get(actual);
+            assertThat(actual, is(expected));
+
+            buffer.flip();
+            assertEquals(new String(expected, StandardCharsets.UTF_8), TupleCodecs.STRING.decode(buffer));
+        }
+    }
+
+    @Test
+    public void primitiveCodecs() {
+        var codec = TupleCodecs.tuple(TupleCodecs.LONG, TupleCodecs.BOOLEAN);
+        var t = new StreamTuple<>(Long.MIN_VALUE, true);
+        var buffer = ByteBuffer.allocate(codec.encodedSize(t));
+        codec.encode(t, buffer);
+        assertEquals(9, buffer.position());
+        buffer.flip();
+        assertThat(codec.decode(buffer), is(t));
+    }
+
+    @Test
+    public void truncatedInputFails() {
+        var bytes = write(tuples(10));
+        var truncated = ByteBuffer.wrap(bytes, 0, bytes.length - 3);
+        try (var read = TupleChannelReader.stream(truncated, CODEC)) {
+            assertThrows(UncheckedIOException.class, () -> read.collect(toList()));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package dk.ravnand.streamtuples;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @noinspection WeakerAccess
+ */
+public class TupleCollectorsTest {
+    @Test
+    public void toMapSequentialAndParallel() {
+        var expected = Map.of("1", "1", "2", "2", "3", "3");
+
+        assertThat(StreamTuples.streamOf("1", "2", "3").collect(TupleCollectors.toMap()), is(expected));
+        assertThat(StreamTuples.streamOf("1", "2", "3").parallel().collect(TupleCollectors.toMap()), is(expected));
+        assertThat(StreamTuples.streamOf("1", "2", "3").parallel().collect(TupleCollectors.toConcurrentMap()), is(expected));
+    }
+
+    @Test
+    public void largeParallelCollectionsAgree() {
+        var ids = IntStream.range(0, 100_000).boxed().toArray(Integer[]::new);
+
+        var viaMerge = StreamTuples.streamOf(ids).parallel()
+                .map(t -> t.map(r -> r * 2))
+                .collect(TupleCollectors.toMap());
+        var viaConcurrent = StreamTuples.streamOf(ids).parallel()
+                .map(t -> t.map(r -> r * 2))
+                .collect(TupleCollectors.toConcurrentMap(ids.length));
+        var viaPresized = StreamTuples.toMap(StreamTuples.streamOf(ids).parallel().map(t -> t.map(r -> r * 2)));
+
+        assertEquals(100_000, viaMerge.size());
+        assertEquals(viaMerge, viaConcurrent);
+        assertEquals(viaMerge, viaPresized);
+        assertEquals(Integer.valueOf(198), viaPresized.get(99));
+    }
+
+    @Test
+    public void duplicateLeftValuesAreRejected() {
+        assertThrows(IllegalStateException.class, () -> StreamTuples.streamOf(1, 1).collect(TupleCollectors.toMap()));
+        assertThrows(IllegalStateException.class, () -> StreamTuples.streamOf(1, 1).collect(TupleCollectors.toConcurrentMap()));
+        assertThrows(IllegalStateException.class, () -> StreamTuples.toMap(StreamTuples.streamOf(1, 1)));
+    }
+
+    @Test
+    public void groupingByLeftKeepsEncounterOrder() {
+        var m = StreamTuples.streamOf(1, 2, 3)
+                .parallel()
+                .flatMap(t -> t.flatMap((l, r) -> l % 2 == 1 ? Stream.of(r * 2) : Stream.of(r, r * 2, r * 3)))
+                .collect(TupleCollectors.groupingByLeft());
+
+        assertThat(m, is(Map.of(
+                1, List.of(2),
+                2, List.of(2, 4, 6),
+                3, List.of(6))));
+    }
+
+    @Test
+    public void groupingByLeftConcurrentKeepsAllValues() {
+        var m = IntStream.range(0, 10_000).boxed().parallel()
+                .map(i -> new StreamTuple<>(i % 10, i))
+                .collect(TupleCollectors.groupingByLeftConcurrent());
+
+        assertEquals(10, m.size());
+        assertEquals(1_000, m.get(3).size());
+        assertEquals(10_000, m.values().stream().mapToInt(List::size).sum());
+    }
+
+    @Test
+    public void topAndBottomKMatchSortAndLimit() {
+        var random = new Random(1);
+        var tuples = IntStream.range(0, 10_000)
+                .mapToObj(i -> new StreamTuple<>(i, random.nextInt(500))) // many equal right values
+                .collect(toList());
+        Comparator<StreamTuple<Integer, Integer>> byRight = StreamTuples.byRight();
+
+        for (int k : new int[]{1, 7, 100, 20_000}) {
+            assertThat(tuples.stream().collect(TupleCollectors.bottomK(k, byRight)),
+                    is(tuples.stream().sorted(byRight).limit(k).collect(toList())));
+            assertThat(tuples.parallelStream().collect(TupleCollectors.bottomK(k, byRight)),
+                    is(tuples.stream().sorted(byRight).limit(k).collect(toList())));
+            assertThat(tuples.parallelStream().collect(TupleCollectors.topK(k, byRight)),
+                    is(tuples.stream().sorted(byRight.reversed()).limit(k).collect(toList())));
+            assertThat(tuples.parallelStream().collect(TupleCollectors.bottomK(k)),
+                    is(tuples.stream().sorted().limit(k).collect(toList())));
+        }
+        assertThrows(IllegalArgumentException.class, () -> TupleCollectors.topK(0));
+    }
+
+    @Test
+    public void nullComparatorsAreRejected() {
+        assertThrows(NullPointerException.class, () -> TupleCollectors.topK(3, null));
+        assertThrows(NullPointerException.class, () -> TupleCollectors.bottomK(3, null));
+        assertThrows(NullPointerException.class, () -> TupleCollectors.topKPerLeft(3, null));
+    }
+
+    @Test
+    public void topKPerLeft() {
+        var m = IntStream.range(0, 1_000).parallel()
+                .mapToObj(i -> new StreamTuple<>(i % 3, i))
+                .collect(TupleCollectors.topKPerLeft(2));
+        assertThat(m, is(Map.of(0, List.of(999, 996), 1, List.of(997, 994), 2, List.of(998, 995))));
+    }
+
+    @Test
+    public void combiningPartialsKeepsEqualValuesInEncounterOrder() {
+        Comparator<StreamTuple<String, Integer>> byRight = StreamTuples.byRight();
+        var first = List.of(new StreamTuple<>("a", 0), new StreamTuple<>("b", 9));
+        var second = List.of(new StreamTuple<>("c", 1), new StreamTuple<>("d", 1));
+
+        assertThat(combine(TupleCollectors.bottomK(2, byRight), first, second),
+                is(List.of(new StreamTuple<>("a", 0), new StreamTuple<>("c", 1))));
+
+        var firstTop = List.of(new StreamTuple<>("a", 9), new StreamTuple<>("b", 0));
+        var secondTop = List.of(new StreamTuple<>("c", 5), new StreamTuple<>("d", 5));
+        assertThat(combine(TupleCollectors.topK(2, byRight), firstTop, secondTop),
+                is(List.of(new StreamTuple<>("a", 9), new StreamTuple<>("c", 5))));
+
+        var byLength = Comparator.comparing(String::length);
+        var firstPerLeft = List.of(new StreamTuple<>(1, "eee"), new StreamTuple<>(1, "a"));
+        var secondPerLeft = List.of(new StreamTuple<>(1, "cc"), new StreamTuple<>(1, "dd"));
+        assertThat(combine(TupleCollectors.topKPerLeft(2, byLength), firstPerLeft, secondPerLeft),
+                is(Map.of(1, List.of("eee", "cc"))));
+    }
+
+    /**
+     * Collect the lists as the two partials of a parallel stream, the first list first in encounter order.
+     */
+    private static <T, A, X> X combine(Collector<T, A, X> collector, List<T> first, List<T> second) {
+        A a = collector.supplier().get();
+        first.forEach(t -> collector.accumulator().accept(a, t));
+        A b = collector.supplier().get();
+        second.forEach(t -> collector.accumulator().accept(b, t));
+        return collector.finisher().apply(collector.combiner().apply(a, b));
+    }
+}
@@ -0,0 +1,97 @@
+package dk.ravnand.streamtuples;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @noinspection WeakerAccess
+ */
+public class TupleInstrumentationTest {
+
+    @AfterEach
+    public void disable() {
+        TupleInstrumentation.setEnabled(false);
+        TupleInstrumentation.reset();
+    }
+
+    @Test
+    public void disabledReturnsTheFunction() {
+        Function<Integer, Integer> f = i -> i + 1;
+        assertFalse(TupleInstrumentation.isEnabled());
+        assertSame(f, TupleInstrumentation.map("disabled", f));
+        assertNull(TupleInstrumentation.snapshot("disabled"));
+    }
+
+    @Test
+    public void countsAndRatios() {
+        TupleInstrumentation.setEnabled(true);
+        Function<Integer, Integer> twice = TupleInstrumentation.map("twice", i -> i * 2);
+        Predicate<Integer> small = TupleInstrumentation.filter("small", i -> i < 50);
+        Function<Integer, Stream<Integer>> repeat =
+                TupleInstrumentation.flatMap("repeat", i -> Stream.of(i, i, i));
+
+        var result = IntStream.range(0, 100)
+                .mapToObj(i -> new StreamTuple<>("k", i))
+                .map(t -> t.map(twice))
+                .filter(t -> t.filter(small))
+                .flatMap(t -> t.flatMap(repeat))
+                .collect(toList());
+        assertEquals(75, result.size());
+
+        var twiceStats = TupleInstrumentation.snapshot("twice");
+        assertEquals(100, twiceStats.invocationCount());
+        assertTrue(twiceStats.percentileNanos(50) <= twiceStats.percentileNanos(100));
+
+        var smallStats = TupleInstrumentation.snapshot("small");
+        assertEquals(25, smallStats.passedCount());
+        assertEquals(75, smallStats.rejectedCount());
+        assertEquals(0.25, smallStats.passRatio(), 1e-9);
+
+        var repeatStats = TupleInstrumentation.snapshot("repeat");
+        assertEquals(25, repeatStats.invocationCount());
+        assertEquals(75, repeatStats.emittedCount());
+        assertEquals(3.0, repeatStats.fanOut(), 1e-9);
+
+        assertEquals(3, TupleInstrumentation.snapshots().size());
+    }
+
+    @Test
+    public void stagesAreMXBeans() throws Exception {
+        TupleInstrumentation.setEnabled(true);
+        Predicate<String> empty = TupleInstrumentation.filter("empty, strings", s -> s.isEmpty());
+        empty.test("");
+        empty.test("x");
+
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var name = new ObjectName("dk.ravnand.streamtuples:type=Stage,name=" + ObjectName.quote("empty, strings"));
+        assertEquals(2L, server.getAttribute(name, "InvocationCount"));
+        assertEquals(0.5, (Double) server.getAttribute(name, "PassRatio"), 1e-9);
+
+        TupleInstrumentation.reset();
+        assertFalse(server.isRegistered(name));
+    }
+
+    @Test
+    public void histogramBucketsHoldTheirValues() {
+        for (long v : new long[]{0, 1, 127, 128, 129, 130, 255, 256, 1_000, 123_456_789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.index(v);
+            assertTrue(LatencyHistogram.highestValue(index) >= v);
+            assertTrue(index == 0 || LatencyHistogram.highestValue(index - 1) < v);
+            assertTrue(LatencyHistogram.highestValue(index) - v <= v / 64);
+        }
+    }
+}
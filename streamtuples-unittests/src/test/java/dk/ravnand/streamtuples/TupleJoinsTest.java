@@ -0,0 +1,104 @@
+package dk.ravnand.streamtuples;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @noinspection WeakerAccess
+ */
+public class TupleJoinsTest {
+
+    static <L, R> StreamTuple<L, R> t(L left, R right) {
+        return new StreamTuple<>(left, right);
+    }
+
+    static final List<StreamTuple<String, Integer>> ORDERS = List.of(t("a", 1), t("b", 2), t("a", 3), t("c", 4));
+    static final List<StreamTuple<String, String>> CUSTOMERS = List.of(t("a", "Ann"), t("b", "Bob"), t("a", "Al"));
+
+    @Test
+    public void hashJoin() {
+        var joined = TupleJoins.hashJoin(ORDERS.stream(), CUSTOMERS.stream()).collect(toList());
+        assertThat(joined, is(List.of(
+                t("a", t(1, "Ann")), t("a", t(1, "Al")),
+                t("b", t(2, "Bob")),
+                t("a", t(3, "Ann")), t("a", t(3, "Al")))));
+    }
+
+    @Test
+    public void leftOuterJoin() {
+        var joined = TupleJoins.leftOuterJoin(ORDERS.stream(), CUSTOMERS.stream()).collect(toList());
+        assertThat(joined, is(List.of(
+                t("a", t(1, Optional.of("Ann"))), t("a", t(1, Optional.of("Al"))),
+                t("b", t(2, Optional.of("Bob"))),
+                t("a", t(3, Optional.of("Ann"))), t("a", t(3, Optional.of("Al"))),
+                t("c", t(4, Optional.<String>empty())))));
+    }
+
+    @Test
+    public void semiJoin() {
+        var joined = TupleJoins.semiJoin(ORDERS.stream(), CUSTOMERS.stream()).collect(toList());
+        assertThat(joined, is(List.of(t("a", 1), t("b", 2), t("a", 3))));
+    }
+
+    @Test
+    public void parallelProbeMatchesSequential() {
+        var build = IntStream.range(0, 10_000).mapToObj(i -> t(i % 5_000, i)).collect(toList());
+        var probe = IntStream.range(0, 100_000).mapToObj(i -> t(i % 7_000, i)).collect(toList());
+
+        var sequential = TupleJoins.hashJoin(probe.stream(), build.stream()).collect(toList());
+        var parallel = TupleJoins.hashJoin(probe.parallelStream(), build.stream()).collect(toList());
+        assertEquals(100_000 / 7_000 * 5_000 * 2 + 2 * Math.min(100_000 % 7_000, 5_000), sequential.size());
+        assertThat(parallel, is(sequential));
+    }
+
+    @Test
+    public void hashJoinInt() {
+        var build = IntStream.range(0, 1_000).mapToObj(i -> new IntObjTuple<>(i * 3, "b" + i)).collect(toList());
+        var joined = TupleJoins.hashJoinInt(IntStream.range(0, 3_000).mapToObj(i -> new IntObjTuple<>(i, i)),
+                build.stream()).collect(toList());
+        assertEquals(1_000, joined.size());
+        for (var t : joined) {
+            assertEquals(0, t.left() % 3);
+            assertEquals(t.left(), (int) t.right().left());
+            assertEquals("b" + t.left() / 3, t.right().right());
+        }
+    }
+
+    @Test
+    public void mergeJoinMatchesHashJoin() {
+        var first = List.of(t(1, "x"), t(2, "y"), t(2, "z"), t(4, "w"), t(5, "v"));
+        var second = List.of(t(0, 0.0), t(2, 2.0), t(2, 2.5), t(3, 3.0), t(5, 5.0));
+        var merged = TupleJoins.mergeJoin(first.stream(), second.stream()).collect(toList());
+        assertThat(merged, is(List.of(
+                t(2, t("y", 2.0)), t(2, t("y", 2.5)),
+                t(2, t("z", 2.0)), t(2, t("z", 2.5)),
+                t(5, t("v", 5.0)))));
+        assertThat(merged, is(TupleJoins.hashJoin(first.stream(), second.stream()).collect(toList())));
+    }
+
+    @Test
+    public void mergeJoinFailsOnUnsortedInput() {
+        var stream = TupleJoins.mergeJoin(List.of(t(2, "a"), t(1, "b")).stream(), List.of(t(1, "c")).stream());
+        assertThrows(IllegalStateException.class, () -> stream.collect(toList()));
+    }
+
+    @Test
+    public void closeClosesBothStreams() {
+        var closed = new AtomicInteger();
+        TupleJoins.hashJoin(ORDERS.stream().onClose(closed::incrementAndGet),
+                CUSTOMERS.stream().onClose(closed::incrementAndGet)).close();
+        TupleJoins.mergeJoin(ORDERS.stream().onClose(closed::incrementAndGet),
+                CUSTOMERS.stream().onClose(closed::incrementAndGet)).close();
+        assertEquals(4, closed.get());
+    }
+}
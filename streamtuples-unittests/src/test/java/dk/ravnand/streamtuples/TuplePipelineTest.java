@@ -0,0 +1,121 @@
+package dk.ravnand.streamtuples;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @noinspection WeakerAccess, Convert2MethodRef
+ */
+public class TuplePipelineTest {
+
+    @Test
+    public void pipelineCanBeAppliedToSeveralStreams() {
+        var lookup = Map.of(1, "even 1", 2, "odd 2", 3, "even 3");
+        var pipeline = TuplePipeline.<Integer>builder()
+                .mapRight(id -> lookup.get(id))
+                .filterRight(s -> s.startsWith("even"))
+                .mapRight(s -> s + " OK")
+                .build();
+
+        assertThat(pipeline.tupleStream(Stream.of(1, 2, 3)).toMap(), is(Map.of(1, "even 1 OK", 3, "even 3 OK")));
+        assertThat(pipeline.apply(Stream.of(2, 3)).collect(toList()), is(List.of(new StreamTuple<>(3, "even 3 OK"))));
+    }
+
+    @Test
+    public void givesTheSameAsHandChainedStreams() {
+        var pipeline = TuplePipeline.<Integer>builder()
+                .mapRight(r -> r * 3)
+                .filterBoth((l, r) -> (l + r) % 4 != 0)
+                .flatMapRight(r -> Stream.of(r, -r))
+                .mapBoth((l, r) -> l + ":" + r)
+                .build();
+
+        var expected = StreamTuples.streamOf(IntStream.range(0, 100).boxed().toArray(Integer[]::new))
+                .map(t -> t.map(r -> r * 3))
+                .filter(t -> t.filter((l, r) -> (l + r) % 4 != 0))
+                .flatMap(t -> t.flatMap(r -> Stream.of(r, -r)))
+                .map(t -> t.map((l, r) -> l + ":" + r))
+                .collect(toList());
+
+        assertEquals(expected, pipeline.apply(IntStream.range(0, 100).boxed()).collect(toList()));
+        assertEquals(expected.size(), pipeline.apply(IntStream.range(0, 100).boxed().parallel()).count());
+    }
+
+    @Test
+    public void mapAndFilterLeft() {
+        var pipeline = TuplePipeline.<String>builder()
+                .mapRight(s -> s.length())
+                .mapLeft(s -> s.toUpperCase())
+                .filterLeft(s -> !s.startsWith("B"))
+                .build();
+
+        assertThat(pipeline.tupleStream(Stream.of("a", "bb", "ccc")).toMap(), is(Map.of("A", 1, "CCC", 3)));
+    }
+
+    @Test
+    public void builderCanBeSharedByPipelines() {
+        var start = TuplePipeline.<Integer>builder().mapRight(r -> r * 10);
+        var plus = start.mapRight(r -> r + 1).build();
+        var minus = start.mapRight(r -> r - 1).build();
+
+        assertThat(plus.tupleStream(Stream.of(1, 2)).toMap(), is(Map.of(1, 11, 2, 21)));
+        assertThat(minus.tupleStream(Stream.of(1, 2)).toMap(), is(Map.of(1, 9, 2, 19)));
+        assertThat(start.build().tupleStream(Stream.of(1)).toMap(), is(Map.of(1, 10)));
+    }
+
+    @Test
+    public void peekAndSteps() {
+        var seen = new ArrayList<String>();
+        var pipeline = TuplePipeline.<Integer>builder()
+                .peek((l, r) -> seen.add(l + "-" + r))
+                .filterRight(r -> r > 1)
+                .build();
+
+        assertThat(pipeline.tupleStream(Stream.of(1, 2)).toMap(), is(Map.of(2, 2)));
+        assertThat(seen, is(List.of("1-1", "2-2")));
+        assertThat(pipeline.steps(), is(List.of("peek", "filterRight")));
+        assertThat(pipeline.toString(), is("TuplePipeline[peek, filterRight]"));
+    }
+
+    @Test
+    public void countIsKnownWithoutRunningSizePreservingSteps() {
+        var ran = new AtomicBoolean();
+        var sizePreserving = TuplePipeline.<Integer>builder().peek((l, r) -> ran.set(true)).build();
+        var filtering = TuplePipeline.<Integer>builder().filterRight(r -> r > 1).build();
+
+        assertEquals(3, sizePreserving.tupleStream(Stream.of(1, 2, 3)).count());
+        assertThat(ran.get(), is(false));
+        assertEquals(2, filtering.tupleStream(Stream.of(1, 2, 3)).count());
+    }
+
+    @Test
+    public void closingTheResultClosesTheItems() {
+        var closed = new AtomicBoolean();
+        var pipeline = TuplePipeline.<Integer>builder().build();
+
+        pipeline.apply(Stream.of(1).onClose(() -> closed.set(true))).close();
+
+        assertThat(closed.get(), is(true));
+    }
+
+    @Test
+    public void nullsAreRejected() {
+        var builder = TuplePipeline.<Integer>builder();
+
+        assertThrows(NullPointerException.class, () -> builder.mapRight(null));
+        assertThrows(NullPointerException.class, () -> builder.filterLeft(null));
+        assertThrows(NullPointerException.class, () -> builder.build().apply(null));
+    }
+}
@@ -0,0 +1,112 @@
+package dk.ravnand.streamtuples;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @noinspection WeakerAccess
+ */
+public class TupleSortsTest {
+
+    @Test
+    public void sortedDuplicateLeftValues() {
+        var l = TupleSorts.sorted(Stream.of(
+                new StreamTuple<>(2, "z"),
+                new StreamTuple<>(2, "b"),
+                new StreamTuple<>(3, "a"),
+                new StreamTuple<>(3, "q")))
+                .flatMap(t -> Stream.of(t.right(), t.left()))
+                .collect(toList());
+        assertThat(l, is(List.of("a", 3, "b", 2, "q", 3, "z", 2)));
+    }
+
+    @Test
+    public void sameOrderAsSortedForIntegers() {
+        var random = new Random(1);
+        assertSameAsSorted(100_000, i -> new StreamTuple<>(random.nextInt(1000) - 500, random.nextInt()));
+        assertSameAsSorted(100_000, i -> new StreamTuple<>(i, random.nextInt(100) - 50)); // sorted by left
+        assertSameAsSorted(100_000, i -> new StreamTuple<>("k" + random.nextInt(1000), random.nextInt(10)));
+        assertSameAsSorted(100_000, i -> new StreamTuple<>(random.nextLong(), random.nextLong()));
+        assertSameAsSorted(100_000, i -> new StreamTuple<>(i / 10, (long) (i % 10) - 5));
+    }
+
+    @Test
+    public void sameOrderAsSortedForStrings() {
+        var random = new Random(2);
+        String prefix = String.join("", Collections.nCopies(200, "x"));
+        assertSameAsSorted(50_000, i -> new StreamTuple<>(random.nextInt(100), "s" + random.nextInt(5000)));
+        assertSameAsSorted(50_000, i -> new StreamTuple<>(i, randomString(random)));
+        assertSameAsSorted(10_000, i -> new StreamTuple<>(random.nextInt(100), prefix + random.nextInt(50)));
+        assertSameAsSorted(10_000, i -> new StreamTuple<>(random.nextInt(100), i % 3 == 0 ? "" : randomString(random)));
+    }
+
+    @Test
+    public void sameOrderAsSortedForOtherTypes() {
+        var random = new Random(3);
+        assertSameAsSorted(100_000, i -> new StreamTuple<>(random.nextInt(100), random.nextDouble()));
+        assertSameAsSorted(100_000, i -> new StreamTuple<>(i, (double) random.nextInt(100)));
+        assertSameAsSorted(1000, i -> new StreamTuple<>(i, i % 2 == 0 ? (Object) i : (Object) (long) i), false);
+    }
+
+    @Test
+    public void alreadySortedAndParallel() {
+        var random = new Random(4);
+        assertSameAsSorted(100_000, i -> new StreamTuple<>(random.nextInt(100), i));
+        var tuples = IntStream.range(0, 200_000).mapToObj(i -> new StreamTuple<>(random.nextInt(), random.nextDouble()))
+                .collect(toList());
+        var expected = tuples.stream().sorted().collect(toList());
+        var actual = TupleSorts.sorted(tuples.parallelStream()).collect(toList());
+        assertThat(actual, is(expected));
+    }
+
+    @Test
+    public void leftNotComparedWhenRightValuesDiffer() {
+        var a = new StreamTuple<>(new Object(), 2);
+        var b = new StreamTuple<>(new Object(), 1);
+        assertThat(TupleSorts.sorted(Stream.of(a, b)).collect(toList()), is(List.of(b, a)));
+        assertThrows(ClassCastException.class,
+                () -> TupleSorts.sorted(Stream.of(a, b, new StreamTuple<>(new Object(), 1))).count());
+    }
+
+    private static String randomString(Random random) {
+        char[] chars = new char[random.nextInt(6)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = random.nextBoolean() ? (char) ('a' + random.nextInt(3)) : (char) random.nextInt(0x10000);
+        }
+        return new String(chars);
+    }
+
+    private static <L, R> void assertSameAsSorted(int n, IntFunction<StreamTuple<L, R>> tuple) {
+        assertSameAsSorted(n, tuple, true);
+    }
+
+    /**
+     * The same tuple instances in the same order as {@code sorted()}, so also the order of equal tuples is kept.
+     */
+    private static <L, R> void assertSameAsSorted(int n, IntFunction<StreamTuple<L, R>> tuple, boolean comparable) {
+        var tuples = IntStream.range(0, n).mapToObj(tuple).collect(toList());
+        if (!comparable) {
+            assertThrows(ClassCastException.class, () -> TupleSorts.sorted(tuples.stream()).count());
+            return;
+        }
+        var expected = tuples.stream().sorted().toArray();
+        var actual = TupleSorts.sorted(tuples.stream()).toArray();
+        assertThat(actual.length, is(expected.length));
+        for (int i = 0; i < expected.length; i++) {
+            assertSame(expected[i], actual[i], "at " + i + " " + Arrays.asList(expected[i], actual[i]));
+        }
+    }
+}
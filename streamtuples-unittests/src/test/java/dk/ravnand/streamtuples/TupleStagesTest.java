@@ -0,0 +1,129 @@
+package dk.ravnand.streamtuples;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @noinspection WeakerAccess
+ */
+public class TupleStagesTest {
+
+    @Test
+    public void distinctByLeftKeepsTheFirst() {
+        var tuples = List.of(new StreamTuple<>(1, "a"), new StreamTuple<>(2, "b"), new StreamTuple<>(1, "c"),
+                new StreamTuple<>(3, "b"));
+        assertThat(tuples.stream().filter(TupleStages.distinctByLeft()).collect(toList()),
+                is(List.of(tuples.get(0), tuples.get(1), tuples.get(3))));
+        assertThat(tuples.stream().filter(TupleStages.distinctByRight()).collect(toList()),
+                is(List.of(tuples.get(0), tuples.get(1), tuples.get(2))));
+    }
+
+    @Test
+    public void distinctByLeftParallel() {
+        var left = IntStream.range(0, 1_000_000).parallel()
+                .mapToObj(i -> new StreamTuple<>(i % 10_000, i))
+                .filter(TupleStages.distinctByLeft())
+                .map(t -> t.left())
+                .distinct()
+                .count();
+        assertEquals(10_000, left);
+    }
+
+    @Test
+    public void approximateDropsDuplicatesAndFewOthers() {
+        int keys = 100_000;
+        var passed = IntStream.range(0, keys * 3).parallel()
+                .mapToObj(i -> new StreamTuple<>("key" + i % keys, i))
+                .filter(TupleStages.distinctByLeft(keys, 0.01, 1 << 20))
+                .map(t -> t.left())
+                .collect(toList());
+        assertEquals(passed.size(), passed.stream().distinct().count());
+        assertTrue(passed.size() > keys * 0.98, "passed " + passed.size());
+    }
+
+    @Test
+    public void bloomFilterIsCappedAndSized() {
+        var sized = BloomFilter.of(1_000_000, 0.01, Long.MAX_VALUE);
+        assertEquals(1L << 24, sized.bitCount()); // 9.6M bits rounded up
+        assertEquals(12, sized.hashCount());
+
+        var capped = BloomFilter.of(1_000_000, 0.01, 1 << 20);
+        assertEquals(8L << 20, capped.bitCount());
+
+        assertThrows(IllegalArgumentException.class, () -> BloomFilter.of(10, 1.0, 1024));
+    }
+
+    @Test
+    public void findFirstMatchingStopsLookingUpstream() {
+        var looked = new AtomicInteger();
+        var first = TupleStages.findFirstMatching(IntStream.range(0, 1000).boxed().map(StreamTuples::of)
+                .map(t -> t.map(i -> looked.incrementAndGet() * 2)), (l, r) -> l > 10 && r % 3 == 0);
+        assertThat(first, is(Optional.of(new StreamTuple<>(11, 24))));
+        assertEquals(12, looked.get());
+        assertThat(TupleStages.findFirstMatching(StreamTuples.streamOf(1, 2), r -> r > 2), is(Optional.empty()));
+    }
+
+    @Test
+    public void findFirstMatchingParallelIsInEncounterOrder() {
+        var looked = new AtomicInteger();
+        var first = TupleStages.findFirstMatching(IntStream.range(0, 1_000_000).boxed().parallel()
+                .map(StreamTuples::of)
+                .map(t -> t.map(i -> looked.incrementAndGet() > 0 ? i : 0)), r -> r % 1000 == 999 && r > 5000);
+        assertThat(first, is(Optional.of(new StreamTuple<>(5999, 5999))));
+        assertTrue(looked.get() < 1_000_000, "looked " + looked.get());
+    }
+
+    @Test
+    public void innerStreamsOfFlatMapAreReadLazily() {
+        var closed = new AtomicBoolean();
+        var tuples = TupleStages.flatMap(StreamTuples.streamOf("a", "b"),
+                (l, r) -> Stream.iterate(1, i -> i + 1).onClose(() -> closed.set(true)));
+        assertThat(TupleStages.findFirstMatching(tuples, r -> r == 5), is(Optional.of(new StreamTuple<>("a", 5))));
+        tuples.close();
+        assertTrue(closed.get());
+
+        assertThat(TupleStages.flatMap(StreamTuples.streamOf(1, 2, 3), r -> Stream.of(r, r * 10)).collect(toList()),
+                is(List.of(new StreamTuple<>(1, 1), new StreamTuple<>(1, 10), new StreamTuple<>(2, 2),
+                        new StreamTuple<>(2, 20), new StreamTuple<>(3, 3), new StreamTuple<>(3, 30))));
+    }
+
+    @Test
+    public void anyMatchParallelWithInfiniteInnerStreams() {
+        var tuples = TupleStages.flatMap(IntStream.range(0, 100).boxed().parallel().map(StreamTuples::of),
+                (l, r) -> Stream.iterate(r, i -> i + 100));
+        assertTrue(TupleStages.anyMatchRight(tuples, r -> r == 4200));
+        assertTrue(TupleStages.anyMatchRight(StreamTuples.streamOf(1, 2, 3).parallel(), r -> r == 3));
+        assertFalse(TupleStages.anyMatchLeft(StreamTuples.streamOf(1, 2, 3).parallel(), l -> l == 4));
+    }
+
+    @Test
+    public void takeWhileAndDropWhile() {
+        var pulled = new AtomicInteger();
+        var taken = TupleStages.takeWhileRight(IntStream.range(0, 100).boxed().map(StreamTuples::of)
+                .peek(t -> pulled.incrementAndGet()), r -> r < 3).map(t -> t.right()).collect(toList());
+        assertThat(taken, is(List.of(0, 1, 2)));
+        assertEquals(4, pulled.get());
+
+        var dropped = TupleStages.dropWhileRight(IntStream.range(0, 10).boxed().map(StreamTuples::of), r -> r < 7)
+                .map(t -> t.right()).collect(toList());
+        assertThat(dropped, is(List.of(7, 8, 9)));
+        assertThat(TupleStages.dropWhileRight(IntStream.range(0, 100_000).boxed().map(StreamTuples::of).parallel(),
+                r -> r < 7).count(), is(100_000L - 7));
+        assertThat(TupleStages.dropWhileRight(StreamTuples.streamOf(1, 2), r -> r == 1).collect(toList()),
+                is(List.of(new StreamTuple<>(2, 2))));
+    }
+}
@@ -0,0 +1,149 @@
+package dk.ravnand.streamtuples;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.*;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @noinspection WeakerAccess, Convert2MethodRef
+ */
+public class TupleStreamTest {
+    @Test
+    public void simpleMapUpdateOperationUsingTupleStream() {
+        var map = new HashMap<>(Map.of(1, "1.", 2, "2."));
+        var result = TupleStream.of(map.keySet().stream())
+                .mapRight(key -> map.get(key))
+                .filterRight(s -> s.startsWith("1"))
+                .mapRight(s -> s + " OK")
+                .mapBoth((key, s) -> map.put(key, s))
+                .toMap();
+
+        assertThat(result, is(Map.of(1, "1.")));
+        assertThat(map, is(Map.of(1, "1. OK", 2, "2.")));
+    }
+
+    @Test
+    public void canWeMapBetweenTypesUsingBothLeftAndRight() {
+        var m = StreamTuples.tupleStreamOf("1", "2", "3")
+                .mapRight(v -> Integer.valueOf(v) * 2)
+                .mapBoth((id, v) -> id + "*2=" + v)
+                .collect(toMap(t -> t.left(), t -> t.right()));
+
+        assertThat(m, is(Map.of("1", "1*2=2",
+                "2", "2*2=4",
+                "3", "3*2=6")));
+    }
+
+    @Test
+    public void filterBothAndFlatMapRight() {
+        var m = StreamTuples.tupleStreamOf(1, 2, 3)
+                .filterBoth((l, r) -> l > 1)
+                .flatMapRight(r -> r % 2 == 1 ? Stream.of(r * 2) : Stream.of(r, r * 2, r * 3))
+                .collect(groupingBy(t -> t.left(), mapping(t -> t.right(), toList())));
+
+        assertThat(m, is(Map.of(
+                2, List.of(2, 4, 6),
+                3, List.of(6))));
+    }
+
+    @Test
+    public void peekSeesLeftAndRight() {
+        var list = new ArrayList<>();
+        var m = TupleStream.ofTuples(StreamTuples.streamOf(1, 2, 3))
+                .mapRight(r -> r * 2)
+                .peek((l, r) -> list.add(l + "-" + r))
+                .toMap();
+
+        assertThat(m, is(Map.of(1, 2, 2, 4, 3, 6)));
+        assertThat(list, is(List.of("1-2", "2-4", "3-6")));
+    }
+
+    @Test
+    public void nullIntermediateValuesCanBeFilteredAway() {
+        var m = StreamTuples.tupleStreamOf(1, 2, 3)
+                .mapRight(r -> r == 2 ? null : "v" + r)
+                .filterRight(r -> r != null)
+                .toMap();
+
+        assertThat(m, is(Map.of(1, "v1", 3, "v3")));
+    }
+
+    @Test
+    public void stepsAreOnlyEvaluatedForRequestedElements() {
+        var evaluated = new AtomicInteger();
+        var first = StreamTuples.tupleStreamOf(1, 2, 3, 4)
+                .mapRight(r -> evaluated.incrementAndGet() * 10)
+                .flatMapRight(r -> Stream.of(r, r + 1))
+                .stream()
+                .findFirst()
+                .get();
+
+        assertEquals(new StreamTuple<>(1, 10), first);
+        assertEquals(1, evaluated.get());
+    }
+
+    @Test
+    public void parallelToMapAndCount() {
+        var m = TupleStream.of(IntStream.range(0, 10_000).boxed()).parallel()
+                .filterRight(r -> r % 2 == 0)
+                .mapRight(r -> r / 2)
+                .toMap();
+
+        assertEquals(5_000, m.size());
+        assertEquals(Integer.valueOf(2_500), m.get(5_000));
+        assertEquals(10_000, TupleStream.of(IntStream.range(0, 10_000).boxed()).mapRight(r -> -r).count());
+        assertEquals(5_000, TupleStream.of(IntStream.range(0, 10_000).boxed()).parallel()
+                .filterRight(r -> r % 2 == 0).stream().count());
+    }
+
+    @Test
+    public void duplicateLeftValuesAreRejectedByToMap() {
+        assertThrows(IllegalStateException.class, () -> StreamTuples.tupleStreamOf(1, 1).toMap());
+    }
+
+    @Test
+    public void nullRightValuesAreRejectedByToMapSequentialAndParallel() {
+        var sequential = assertThrows(NullPointerException.class, () -> StreamTuples.tupleStreamOf(1, 2, 3)
+                .mapRight(r -> r == 2 ? null : r)
+                .toMap());
+        var parallel = assertThrows(NullPointerException.class, () -> StreamTuples.tupleStreamOf(1, 2, 3)
+                .parallel()
+                .mapRight(r -> r == 2 ? null : r)
+                .toMap());
+
+        assertThat(sequential.getMessage(), is("null right value for left value 2"));
+        assertThat(parallel.getMessage(), is("null right value for left value 2"));
+    }
+
+    @Test
+    public void canOnlyBeOperatedUponOnce() {
+        var ts = StreamTuples.tupleStreamOf(1, 2, 3).mapRight(r -> r + "!");
+        assertThat(ts.toMap(), is(Map.of(1, "1!", 2, "2!", 3, "3!")));
+        assertThrows(IllegalStateException.class, () -> ts.toMap());
+        assertThrows(IllegalStateException.class, () -> ts.count());
+        assertThrows(IllegalStateException.class, () -> ts.stream());
+
+        var filtered = StreamTuples.tupleStreamOf(1, 2, 3).filterRight(r -> r > 1);
+        assertEquals(2, filtered.count());
+        assertThrows(IllegalStateException.class, () -> filtered.count());
+
+        var start = StreamTuples.tupleStreamOf(1, 2, 3);
+        start.mapRight(r -> r * 2);
+        assertThrows(IllegalStateException.class, () -> start.filterRight(r -> r > 1));
+        assertThrows(IllegalStateException.class, () -> start.forEach((l, r) -> {
+        }));
+        assertThrows(IllegalStateException.class, () -> start.parallel());
+    }
+}
@@ -0,0 +1,90 @@
+package dk.ravnand.streamtuples;
+
+import dk.ravnand.streamtuples.TupleWindows.Window;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @noinspection WeakerAccess
+ */
+public class TupleWindowsTest {
+
+    /**
+     * Tuples of key and time.
+     */
+    static Stream<StreamTuple<String, Long>> events(Object... keysAndTimes) {
+        var events = new ArrayList<StreamTuple<String, Long>>();
+        for (int i = 0; i < keysAndTimes.length; i += 2) {
+            events.add(new StreamTuple<>((String) keysAndTimes[i], ((Integer) keysAndTimes[i + 1]).longValue()));
+        }
+        return events.stream();
+    }
+
+    static <R> StreamTuple<String, Window<R>> w(String key, long start, long end, R result) {
+        return new StreamTuple<>(key, new Window<>(start, end, result));
+    }
+
+    @Test
+    public void tumbling() {
+        var windows = TupleWindows.<String, Long, Long>tumbling(t -> t.right(), 10, Collectors.counting())
+                .apply(events("a", 1, "b", 2, "a", 9, "a", 10, "b", 25, "a", 29))
+                .collect(toList());
+        assertThat(windows, is(List.of(
+                w("a", 0, 10, 2L), w("b", 0, 10, 1L),
+                w("a", 10, 20, 1L),
+                w("b", 20, 30, 1L), w("a", 20, 30, 1L))));
+    }
+
+    @Test
+    public void sliding() {
+        var windows = TupleWindows.<String, Long, List<Long>>sliding(t -> t.right(), 10, 5, toList())
+                .apply(events("a", 3, "a", 7, "a", 12))
+                .collect(toList());
+        assertThat(windows, is(List.of(
+                w("a", -5, 5, List.of(3L)),
+                w("a", 0, 10, List.of(3L, 7L)),
+                w("a", 5, 15, List.of(7L, 12L)),
+                w("a", 10, 20, List.of(12L)))));
+    }
+
+    @Test
+    public void lateTuplesAreDropped() {
+        var windows = TupleWindows.<String, Long, Long>tumbling(t -> t.right(), 10, Collectors.counting())
+                .apply(events("a", 1, "a", 15, "a", 5, "a", 12))
+                .collect(toList());
+        assertThat(windows, is(List.of(w("a", 0, 10, 1L), w("a", 10, 20, 2L))));
+    }
+
+    @Test
+    public void windowsAreEmittedBeforeTheStreamEnds() {
+        var infinite = Stream.iterate(0L, i -> i + 1).map(i -> new StreamTuple<>(i % 3 == 0 ? "x" : "y", i));
+        var windows = TupleWindows.<String, Long, Long>tumbling(t -> t.right(), 100,
+                Collectors.summingLong(t -> t))
+                .apply(infinite)
+                .limit(4)
+                .collect(toList());
+        assertEquals(4, windows.size());
+        assertThat(windows.get(3), is(w("x", 100, 200, Stream.iterate(102L, i -> i + 3).limit(33)
+                .mapToLong(i -> i).sum())));
+    }
+
+    @Test
+    public void count() {
+        var windows = TupleWindows.<String, Long, Long>count(2, Collectors.summingLong(t -> t))
+                .apply(events("a", 1, "b", 2, "a", 3, "a", 4, "b", 5, "c", 6))
+                .collect(toList());
+        assertThat(windows, is(List.of(
+                w("a", 0, 3, 4L),
+                w("b", 1, 5, 7L),
+                w("a", 3, 6, 4L), w("c", 5, 6, 6L))));
+    }
+}
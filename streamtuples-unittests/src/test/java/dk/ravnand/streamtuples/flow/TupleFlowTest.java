@@ -0,0 +1,204 @@
+package dk.ravnand.streamtuples.flow;
+
+import dk.ravnand.streamtuples.StreamTuple;
+import dk.ravnand.streamtuples.StreamTuples;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @noinspection WeakerAccess, Convert2MethodRef
+ */
+public class TupleFlowTest {
+
+    /**
+     * Subscriber recording what it gets, requesting only when told to.
+     */
+    static class TestSubscriber<T> implements Flow.Subscriber<T> {
+        final List<T> items = new ArrayList<>();
+        final CountDownLatch terminated = new CountDownLatch(1);
+        Flow.Subscription subscription;
+        Throwable error;
+        boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(T item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            terminated.countDown();
+        }
+    }
+
+    @Test
+    public void publisherPullsOnlyWhatIsRequested() {
+        var pulled = new AtomicInteger();
+        var publisher = TuplePublisher.of(() -> StreamTuples.streamOf(1, 2, 3, 4, 5)
+                .peek(t -> pulled.incrementAndGet()));
+        var subscriber = new TestSubscriber<StreamTuple<Integer, Integer>>();
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(2);
+        assertThat(subscriber.items, is(List.of(new StreamTuple<>(1, 1), new StreamTuple<>(2, 2))));
+        assertTrue(pulled.get() <= 3, "pulled " + pulled.get());
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(10);
+        assertEquals(5, subscriber.items.size());
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void cancelClosesStream() {
+        var closed = new AtomicInteger();
+        var publisher = TuplePublisher.of(() -> StreamTuples.streamOf(1, 2, 3).onClose(closed::incrementAndGet));
+        var subscriber = new TestSubscriber<StreamTuple<Integer, Integer>>();
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(1);
+        subscriber.subscription.cancel();
+        assertEquals(1, closed.get());
+        assertEquals(1, subscriber.items.size());
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void processorsMirrorStreamTupleHelpers() {
+        var publisher = TuplePublisher.of(List.of(new StreamTuple<>(1, 10), new StreamTuple<>(2, 20),
+                new StreamTuple<>(3, 30)));
+        TupleProcessor<Integer, Integer, Integer> filter = TupleProcessor.filter((l, r) -> l != 2);
+        TupleProcessor<Integer, Integer, String> map = TupleProcessor.map(r -> "#" + r);
+        TupleProcessor<Integer, String, String> flatMap = TupleProcessor.flatMap((l, r) -> Stream.of(r, r + l));
+        var peeked = new ArrayList<String>();
+        TupleProcessor<Integer, String, String> peek = TupleProcessor.peek(r -> peeked.add(r));
+        var subscriber = new TestSubscriber<StreamTuple<Integer, String>>();
+
+        publisher.subscribe(filter);
+        filter.subscribe(map);
+        map.subscribe(flatMap);
+        flatMap.subscribe(peek);
+        peek.subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertThat(subscriber.items, is(List.of(new StreamTuple<>(1, "#10"), new StreamTuple<>(1, "#101"),
+                new StreamTuple<>(3, "#30"), new StreamTuple<>(3, "#303"))));
+        assertThat(peeked, is(List.of("#10", "#101", "#30", "#303")));
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void flatMapHonoursDemand() {
+        var publisher = TuplePublisher.of(() -> StreamTuples.streamOf(1));
+        TupleProcessor<Integer, Integer, Integer> flatMap =
+                TupleProcessor.flatMap(r -> IntStream.range(0, 1000).boxed());
+        var subscriber = new TestSubscriber<StreamTuple<Integer, Integer>>();
+        publisher.subscribe(flatMap);
+        flatMap.subscribe(subscriber);
+
+        subscriber.subscription.request(3);
+        assertThat(subscriber.items.stream().map(StreamTuple::right).collect(toList()), is(List.of(0, 1, 2)));
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void upstreamIsRequestedInPrefetchChunks() {
+        var pulled = new AtomicInteger();
+        var publisher = TuplePublisher.of(() -> IntStream.range(0, 10_000).boxed()
+                .map(i -> new StreamTuple<>(i, i)).peek(t -> pulled.incrementAndGet()));
+        TupleProcessor<Integer, Integer, Integer> filter = TupleProcessor.filter(r -> r % 2 == 0);
+        var subscriber = new TestSubscriber<StreamTuple<Integer, Integer>>();
+        publisher.subscribe(filter);
+        filter.subscribe(subscriber);
+
+        subscriber.subscription.request(10);
+        assertEquals(10, subscriber.items.size());
+        assertTrue(pulled.get() <= TupleProcessor.DEFAULT_PREFETCH + TupleProcessor.DEFAULT_PREFETCH / 2,
+                "pulled " + pulled.get());
+    }
+
+    @Test
+    public void functionExceptionIsSentAsError() {
+        var closed = new AtomicInteger();
+        var publisher = TuplePublisher.of(() -> StreamTuples.streamOf(1, 2, 3).onClose(closed::incrementAndGet));
+        TupleProcessor<Integer, Integer, Integer> map = TupleProcessor.map(r -> 6 / (r - 2));
+        var subscriber = new TestSubscriber<StreamTuple<Integer, Integer>>();
+        publisher.subscribe(map);
+        map.subscribe(subscriber);
+
+        subscriber.subscription.request(10);
+        assertThat(subscriber.items, is(List.of(new StreamTuple<>(1, -6))));
+        assertTrue(subscriber.error instanceof ArithmeticException);
+        assertFalse(subscriber.completed);
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    public void secondSubscriberIsRejected() {
+        TupleProcessor<Integer, Integer, Integer> map = TupleProcessor.map(r -> r);
+        map.subscribe(new TestSubscriber<>());
+        var second = new TestSubscriber<StreamTuple<Integer, Integer>>();
+        map.subscribe(second);
+
+        assertTrue(second.error instanceof IllegalStateException);
+    }
+
+    @Test
+    public void fastProducerIsSlowedDownBySubmissionPublisher() throws InterruptedException {
+        TupleProcessor<Integer, Integer, Integer> map = TupleProcessor.map((l, r) -> l + r);
+        var subscriber = new TestSubscriber<StreamTuple<Integer, Integer>>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                super.onSubscribe(subscription);
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(StreamTuple<Integer, Integer> item) {
+                super.onNext(item);
+                subscription.request(1);
+            }
+        };
+        map.subscribe(subscriber);
+        try (var publisher = new SubmissionPublisher<StreamTuple<Integer, Integer>>()) {
+            publisher.subscribe(map);
+            for (int i = 0; i < 1000; i++) {
+                publisher.submit(new StreamTuple<>(i, i)); // blocks when the subscriber is behind.
+            }
+        }
+
+        assertTrue(subscriber.terminated.await(10, TimeUnit.SECONDS));
+        assertNull(subscriber.error);
+        assertThat(subscriber.items.stream().map(StreamTuple::right).collect(toList()),
+                is(IntStream.range(0, 1000).map(i -> 2 * i).boxed().collect(toList())));
+    }
+}
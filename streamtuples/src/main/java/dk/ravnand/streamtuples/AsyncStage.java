@@ -0,0 +1,196 @@
+package dk.ravnand.streamtuples;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>Stream stage running a blocking right value mapping, like a JDBC lookup, for up to {@code maxInFlight} tuples
+ * at the same time while keeping the left value.  Apply it to the whole stream:</p>
+ *
+ * <pre>
+ * Stream&lt;StreamTuple&lt;Integer, String&gt;&gt; found = AsyncStage.&lt;Integer, Integer, String&gt;ordered(id -&gt; lookup(id), 64)
+ *         .apply(StreamTuples.streamOf(ids));
+ * </pre>
+ *
+ * <p>Ordered stages emit the tuples in stream order, unordered stages as soon as each mapping completes.  At most
+ * {@code maxInFlight} tuples are taken from the incoming stream ahead of what has been emitted.  The resulting
+ * stream is sequential; closing it cancels mappings not yet started.</p>
+ *
+ * <p>Without an explicit executor the mappings run on virtual threads when the JVM has them (Java 21+), and on
+ * a shared pool of daemon threads otherwise.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public class AsyncStage<L, R, U> implements Function<Stream<StreamTuple<L, R>>, Stream<StreamTuple<L, U>>> {
+
+    private final Function<R, U> f;
+    private final Executor executor;
+    private final int maxInFlight;
+    private final boolean ordered;
+
+    private AsyncStage(Function<R, U> f, Executor executor, int maxInFlight, boolean ordered) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.f = Objects.requireNonNull(f, "f");
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.maxInFlight = maxInFlight;
+        this.ordered = ordered;
+    }
+
+    /**
+     * Stage emitting the mapped tuples in stream order, running on {@link #defaultExecutor()}.
+     */
+    public static <L, R, U> AsyncStage<L, R, U> ordered(Function<R, U> f, int maxInFlight) {
+        return new AsyncStage<>(f, defaultExecutor(), maxInFlight, true);
+    }
+
+    /**
+     * Stage emitting the mapped tuples in stream order.
+     */
+    public static <L, R, U> AsyncStage<L, R, U> ordered(Function<R, U> f, Executor executor, int maxInFlight) {
+        return new AsyncStage<>(f, executor, maxInFlight, true);
+    }
+
+    /**
+     * Stage emitting the mapped tuples as they complete, running on {@link #defaultExecutor()}.
+     */
+    public static <L, R, U> AsyncStage<L, R, U> unordered(Function<R, U> f, int maxInFlight) {
+        return new AsyncStage<>(f, defaultExecutor(), maxInFlight, false);
+    }
+
+    /**
+     * Stage emitting the mapped tuples as they complete.
+     */
+    public static <L, R, U> AsyncStage<L, R, U> unordered(Function<R, U> f, Executor executor, int maxInFlight) {
+        return new AsyncStage<>(f, executor, maxInFlight, false);
+    }
+
+    /**
+     * Executor starting a virtual thread per task if the JVM supports it, and otherwise a shared cached pool of
+     * daemon threads.
+     */
+    public static Executor defaultExecutor() {
+        return DefaultExecutorHolder.EXECUTOR;
+    }
+
+    @Override
+    public Stream<StreamTuple<L, U>> apply(Stream<StreamTuple<L, R>> tuples) {
+        AsyncSpliterator<L, R, U> spliterator = new AsyncSpliterator<>(tuples.spliterator(), this);
+        return StreamSupport.stream(spliterator, false)
+                .onClose(spliterator::cancel)
+                .onClose(tuples::close);
+    }
+
+    private static class DefaultExecutorHolder {
+        static final Executor EXECUTOR = create();
+
+        private static Executor create() {
+            try {
+                // Java 21+, looked up reflectively as this library is compiled for Java 8.
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                return Executors.newCachedThreadPool(runnable -> {
+                    Thread thread = new Thread(runnable, "streamtuples-async");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+    }
+
+    private static class AsyncSpliterator<L, R, U> implements Spliterator<StreamTuple<L, U>> {
+        private final Spliterator<StreamTuple<L, R>> source;
+        private final AsyncStage<L, R, U> stage;
+        private final ArrayDeque<CompletableFuture<StreamTuple<L, U>>> inFlight = new ArrayDeque<>();
+        private final BlockingQueue<CompletableFuture<StreamTuple<L, U>>> completed = new LinkedBlockingQueue<>();
+
+        AsyncSpliterator(Spliterator<StreamTuple<L, R>> source, AsyncStage<L, R, U> stage) {
+            this.source = source;
+            this.stage = stage;
+        }
+
+        private void submit(StreamTuple<L, R> t) {
+            CompletableFuture<StreamTuple<L, U>> future = t.mapAsync(stage.f, stage.executor);
+            inFlight.add(future);
+            if (!stage.ordered) {
+                future.whenComplete((result, failure) -> completed.add(future));
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super StreamTuple<L, U>> action) {
+            //noinspection StatementWithEmptyBody
+            while (inFlight.size() < stage.maxInFlight && source.tryAdvance(this::submit)) {
+            }
+            if (inFlight.isEmpty()) {
+                return false;
+            }
+            CompletableFuture<StreamTuple<L, U>> next;
+            if (stage.ordered) {
+                next = inFlight.poll();
+            } else {
+                try {
+                    next = completed.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    cancel();
+                    throw new CancellationException("Interrupted while waiting for mapping to complete");
+                }
+                inFlight.remove(next);
+            }
+            StreamTuple<L, U> result;
+            try {
+                result = next.join();
+            } catch (CompletionException e) {
+                cancel();
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+            action.accept(result);
+            return true;
+        }
+
+        void cancel() {
+            for (CompletableFuture<StreamTuple<L, U>> future : inFlight) {
+                future.cancel(false);
+            }
+            inFlight.clear();
+            completed.clear();
+        }
+
+        @Override
+        public Spliterator<StreamTuple<L, U>> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            long size = source.estimateSize();
+            return size == Long.MAX_VALUE ? size : size + inFlight.size();
+        }
+
+        @Override
+        public int characteristics() {
+            return (stage.ordered ? source.characteristics() & ORDERED : 0) | NONNULL;
+        }
+    }
+}
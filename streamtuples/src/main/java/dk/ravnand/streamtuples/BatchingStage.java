@@ -0,0 +1,267 @@
+package dk.ravnand.streamtuples;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>Stream stage handling tuples a batch at a time instead of one at a time, typically to make one database
+ * round trip per batch instead of one per row.  The stage is applied to the whole stream:</p>
+ *
+ * <pre>
+ * Stream&lt;StreamTuple&lt;Integer, String&gt;&gt; found = BatchingStage.&lt;Integer, Integer, String&gt;lookup(
+ *         connection, "SELECT id, s FROM t WHERE id IN (?)", 100, rs -&gt; rs.getInt(1), rs -&gt; rs.getString(2))
+ *         .apply(StreamTuples.streamOf(2, 3));
+ * </pre>
+ *
+ * <p>The batches are taken lazily from the incoming stream, so the stream is not consumed ahead of what is needed
+ * downstream except for the current batch.  The resulting stream is sequential.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public class BatchingStage<L, R, U> implements Function<Stream<StreamTuple<L, R>>, Stream<StreamTuple<L, U>>> {
+
+    private final int batchSize;
+    private final Supplier<Batcher<L, R, U>> batchers;
+
+    /**
+     * @param batchSize     maximum number of tuples passed to batchFunction at a time.
+     * @param batchFunction gets a batch of tuples in stream order and returns the tuples to emit for that batch.
+     */
+    public BatchingStage(int batchSize, Function<List<StreamTuple<L, R>>, List<StreamTuple<L, U>>> batchFunction) {
+        this(batchSize, batchersOf(Objects.requireNonNull(batchFunction, "batchFunction")));
+    }
+
+    private static <L, R, U> Supplier<Batcher<L, R, U>> batchersOf(
+            Function<List<StreamTuple<L, R>>, List<StreamTuple<L, U>>> batchFunction) {
+        return () -> new Batcher<L, R, U>() {
+            @Override
+            public List<StreamTuple<L, U>> apply(List<StreamTuple<L, R>> batch) {
+                return batchFunction.apply(batch);
+            }
+        };
+    }
+
+    private BatchingStage(int batchSize, Supplier<Batcher<L, R, U>> batchers) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        this.batchers = batchers;
+    }
+
+    /**
+     * Apply the stage to a stream.  Resources like prepared statements are released when the returned stream is
+     * exhausted or closed.
+     */
+    @Override
+    public Stream<StreamTuple<L, U>> apply(Stream<StreamTuple<L, R>> tuples) {
+        Batcher<L, R, U> batcher = batchers.get();
+        return StreamSupport.stream(new BatchingSpliterator<>(tuples.spliterator(), batchSize, batcher), false)
+                .onClose(batcher::close)
+                .onClose(tuples::close);
+    }
+
+    /**
+     * <p>Look up the right value of each tuple in the database, with one query per batch.  The sql must contain
+     * a single {@code ?} which is expanded to {@code batchSize} parameters for the right values in the batch, like
+     * {@code "SELECT id, s FROM t WHERE id IN (?)"}, so the same prepared statement is used for all batches.</p>
+     *
+     * <p>The tuples are emitted in stream order with the looked up value as the new right value and the left value
+     * kept.  Tuples where no row was found are dropped, and if more than one row is found for a key the first
+     * one is used.</p>
+     *
+     * @param connection  connection to query.  Not closed.
+     * @param sql         query with a single {@code ?} for the keys.
+     * @param batchSize   maximum number of tuples per query.
+     * @param keyMapper   reads the key a row was found for, which must be equal to the right value looked up.
+     * @param valueMapper reads the new right value from a row.
+     */
+    public static <L, K, U> BatchingStage<L, K, U> lookup(Connection connection, String sql, int batchSize,
+                                                          ResultSetMapper<K> keyMapper, ResultSetMapper<U> valueMapper) {
+        Objects.requireNonNull(connection, "connection");
+        int parameterAt = sql.indexOf('?');
+        if (parameterAt < 0 || sql.indexOf('?', parameterAt + 1) >= 0) {
+            throw new IllegalArgumentException("sql must contain exactly one '?': " + sql);
+        }
+        String batchSql = sql.substring(0, parameterAt)
+                + String.join(", ", Collections.nCopies(batchSize, "?"))
+                + sql.substring(parameterAt + 1);
+        return new BatchingStage<>(batchSize, () -> new StatementBatcher<L, K, U>(connection, batchSql) {
+            @Override
+            List<StreamTuple<L, U>> apply(PreparedStatement statement, List<StreamTuple<L, K>> batch)
+                    throws SQLException {
+                Set<K> keys = new LinkedHashSet<>();
+                for (StreamTuple<L, K> t : batch) {
+                    keys.add(t.right());
+                }
+                int i = 1;
+                for (K key : keys) {
+                    statement.setObject(i++, key);
+                }
+                // Pad with a key already asked for, so all batches can share the statement.
+                K padding = batch.get(0).right();
+                while (i <= batchSize) {
+                    statement.setObject(i++, padding);
+                }
+                Map<K, U> found = new HashMap<>();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        found.putIfAbsent(keyMapper.map(resultSet), valueMapper.map(resultSet));
+                    }
+                }
+                List<StreamTuple<L, U>> result = new ArrayList<>(batch.size());
+                for (StreamTuple<L, K> t : batch) {
+                    U value = found.get(t.right());
+                    if (value != null) {
+                        result.add(t.of(value));
+                    }
+                }
+                return result;
+            }
+        });
+    }
+
+    /**
+     * Run an update statement for each tuple using {@link PreparedStatement#executeBatch()}, with one round trip
+     * per batch.  The tuples are emitted in stream order with the update count as the new right value and the left
+     * value kept.
+     *
+     * @param connection connection to update through.  Not closed, and no commit is done.
+     * @param sql        update statement with parameters, like {@code "UPDATE t SET s=? WHERE id=?"}.
+     * @param batchSize  maximum number of tuples per round trip.
+     * @param binder     sets the statement parameters for a tuple.
+     */
+    public static <L, R> BatchingStage<L, R, Integer> update(Connection connection, String sql, int batchSize,
+                                                             StatementBinder<StreamTuple<L, R>> binder) {
+        Objects.requireNonNull(connection, "connection");
+        Objects.requireNonNull(sql, "sql");
+        return new BatchingStage<>(batchSize, () -> new StatementBatcher<L, R, Integer>(connection, sql) {
+            @Override
+            List<StreamTuple<L, Integer>> apply(PreparedStatement statement, List<StreamTuple<L, R>> batch)
+                    throws SQLException {
+                for (StreamTuple<L, R> t : batch) {
+                    binder.bind(statement, t);
+                    statement.addBatch();
+                }
+                int[] counts = statement.executeBatch();
+                List<StreamTuple<L, Integer>> result = new ArrayList<>(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    result.add(batch.get(i).of(counts[i]));
+                }
+                return result;
+            }
+        });
+    }
+
+    /**
+     * Handles the batches of a single stream, and releases what it holds when done.
+     */
+    private abstract static class Batcher<L, R, U> implements Function<List<StreamTuple<L, R>>, List<StreamTuple<L, U>>> {
+        void close() {
+        }
+    }
+
+    /**
+     * Prepares the statement for the first batch and reuses it for the rest of the stream.
+     */
+    private abstract static class StatementBatcher<L, R, U> extends Batcher<L, R, U> {
+        private final Connection connection;
+        private final String sql;
+        private PreparedStatement statement;
+
+        StatementBatcher(Connection connection, String sql) {
+            this.connection = connection;
+            this.sql = sql;
+        }
+
+        abstract List<StreamTuple<L, U>> apply(PreparedStatement statement, List<StreamTuple<L, R>> batch)
+                throws SQLException;
+
+        @Override
+        public List<StreamTuple<L, U>> apply(List<StreamTuple<L, R>> batch) {
+            try {
+                if (statement == null) {
+                    statement = connection.prepareStatement(sql);
+                }
+                return apply(statement, batch);
+            } catch (SQLException e) {
+                throw new UncheckedSQLException(e);
+            }
+        }
+
+        @Override
+        void close() {
+            if (statement != null) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    throw new UncheckedSQLException(e);
+                } finally {
+                    statement = null;
+                }
+            }
+        }
+    }
+
+    private static class BatchingSpliterator<L, R, U> implements Spliterator<StreamTuple<L, U>> {
+        private final Spliterator<StreamTuple<L, R>> source;
+        private final int batchSize;
+        private final Batcher<L, R, U> batcher;
+        private Iterator<StreamTuple<L, U>> current = Collections.emptyIterator();
+
+        BatchingSpliterator(Spliterator<StreamTuple<L, R>> source, int batchSize, Batcher<L, R, U> batcher) {
+            this.source = source;
+            this.batchSize = batchSize;
+            this.batcher = batcher;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super StreamTuple<L, U>> action) {
+            while (!current.hasNext()) {
+                List<StreamTuple<L, R>> batch = new ArrayList<>(batchSize);
+                //noinspection StatementWithEmptyBody
+                while (batch.size() < batchSize && source.tryAdvance(batch::add)) {
+                }
+                if (batch.isEmpty()) {
+                    batcher.close();
+                    return false;
+                }
+                current = batcher.apply(batch).iterator();
+            }
+            action.accept(current.next());
+            return true;
+        }
+
+        @Override
+        public Spliterator<StreamTuple<L, U>> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return source.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return (source.characteristics() & ORDERED) | NONNULL;
+        }
+    }
+}
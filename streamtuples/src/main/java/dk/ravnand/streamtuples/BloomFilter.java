@@ -0,0 +1,103 @@
+package dk.ravnand.streamtuples;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>Bloom filter of the hash codes of the objects added, in a fixed number of bits in an AtomicLongArray so it
+ * can be added to from several threads.  Adding is also locked on one of a few stripes chosen by hash code, so two
+ * threads adding the same object at the same time cannot both see it as new.  The bit indexes are derived from the
+ * 32 bit hash code by double hashing, so objects with equal hash codes are indistinguishable.</p>
+ */
+class BloomFilter {
+
+    private static final int STRIPES = 64;
+
+    private final AtomicLongArray words;
+    private final Object[] locks = new Object[STRIPES];
+    private final long mask;
+    private final int hashes;
+
+    /**
+     * @param bits   number of bits, rounded down to a power of two, at least 64.
+     * @param hashes number of bits set per object.
+     */
+    BloomFilter(long bits, int hashes) {
+        long rounded = Long.highestOneBit(Math.max(Long.SIZE, Math.min(bits, (long) Integer.MAX_VALUE * Long.SIZE)));
+        this.words = new AtomicLongArray((int) (rounded / Long.SIZE));
+        this.mask = rounded - 1;
+        this.hashes = hashes;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Filter sized for the expected number of objects at the false positive rate, but at most the given size.
+     */
+    static BloomFilter of(long expected, double falsePositiveRate, long maxBytes) {
+        if (expected <= 0) {
+            throw new IllegalArgumentException("expected must be positive: " + expected);
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1: " + falsePositiveRate);
+        }
+        if (maxBytes < Long.BYTES) {
+            throw new IllegalArgumentException("maxBytes must be at least 8: " + maxBytes);
+        }
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (ln2 * ln2));
+        long maxBits = maxBytes > Long.MAX_VALUE / Byte.SIZE ? Long.MAX_VALUE : maxBytes * Byte.SIZE;
+        long bits = Math.min(optimalBits, maxBits);
+        // round up to a power of two when the cap allows, as the constructor rounds down
+        long rounded = Long.highestOneBit(bits) == bits ? bits : Long.highestOneBit(bits) << 1;
+        if (rounded > 0 && rounded <= maxBits) {
+            bits = rounded;
+        }
+        int hashes = (int) Math.max(1, Math.min(16, Math.round((double) Long.highestOneBit(bits) / expected * ln2)));
+        return new BloomFilter(bits, hashes);
+    }
+
+    long bitCount() {
+        return mask + 1;
+    }
+
+    int hashCount() {
+        return hashes;
+    }
+
+    /**
+     * Add the object.
+     *
+     * @return true if the object was not in the filter before (so false positives make this false for some objects
+     * not added before).
+     */
+    boolean add(Object o) {
+        long h1 = mix(o.hashCode());
+        long h2 = mix(h1) | 1;
+        synchronized (locks[(int) (h1 >>> 58)]) {
+            boolean added = false;
+            for (int i = 0; i < hashes; i++) {
+                long bit = (h1 + i * h2) & mask;
+                int word = (int) (bit >>> 6);
+                long bitMask = 1L << bit;
+                if ((words.get(word) & bitMask) == 0) {
+                    words.getAndAccumulate(word, bitMask, (a, b) -> a | b);
+                    added = true;
+                }
+            }
+            return added;
+        }
+    }
+
+    /**
+     * The finalizer of MurmurHash3, spreading the bits over all 64.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
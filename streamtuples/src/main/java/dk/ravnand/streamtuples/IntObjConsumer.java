@@ -0,0 +1,9 @@
+package dk.ravnand.streamtuples;
+
+/**
+ * Consumer of an {@code int} left value and an object right value, for {@link IntObjTuple}.
+ */
+@FunctionalInterface
+public interface IntObjConsumer<R> {
+    void accept(int left, R right);
+}
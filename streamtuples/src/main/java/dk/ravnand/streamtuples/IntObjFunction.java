@@ -0,0 +1,9 @@
+package dk.ravnand.streamtuples;
+
+/**
+ * Function of an {@code int} left value and an object right value, for {@link IntObjTuple}.
+ */
+@FunctionalInterface
+public interface IntObjFunction<R, U> {
+    U apply(int left, R right);
+}
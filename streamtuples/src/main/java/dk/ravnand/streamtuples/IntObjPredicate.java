@@ -0,0 +1,9 @@
+package dk.ravnand.streamtuples;
+
+/**
+ * Predicate of an {@code int} left value and an object right value, for {@link IntObjTuple}.
+ */
+@FunctionalInterface
+public interface IntObjPredicate<R> {
+    boolean test(int left, R right);
+}
@@ -0,0 +1,80 @@
+package dk.ravnand.streamtuples;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>Histogram of non-negative long values (nanoseconds) in log-linear buckets like HdrHistogram: values below
+ * {@link #SUB_BUCKETS} have a bucket each, and above that each power of two is split into {@code SUB_BUCKETS / 2}
+ * buckets, so a value is known within 1/64 (1.6%) of itself.  Recording is a couple of shifts and an atomic
+ * increment, with no allocation.</p>
+ */
+class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+    private final AtomicLongArray counts = new AtomicLongArray(index(Long.MAX_VALUE) + 1);
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int) (value >>> shift) - HALF_SUB_BUCKETS;
+    }
+
+    /**
+     * @return the largest value in the bucket.
+     */
+    static long highestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long top = HALF_SUB_BUCKETS + (index - SUB_BUCKETS) % HALF_SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+
+    void record(long value) {
+        counts.incrementAndGet(index(Math.max(0, value)));
+    }
+
+    void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    /**
+     * The counts of the buckets at this moment.  Not atomic with respect to concurrent recording.
+     */
+    long[] counts() {
+        long[] copy = new long[counts.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+        }
+        return copy;
+    }
+
+    /**
+     * @param counts     as given by {@link #counts()}.
+     * @param percentile from 0 to 100.
+     * @return the highest value of the bucket holding the percentile, or 0 if there are no values.
+     */
+    static long percentile(long[] counts, double percentile) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return highestValue(i);
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,9 @@
+package dk.ravnand.streamtuples;
+
+/**
+ * Consumer of a {@code long} left value and an object right value, for {@link LongObjTuple}.
+ */
+@FunctionalInterface
+public interface LongObjConsumer<R> {
+    void accept(long left, R right);
+}
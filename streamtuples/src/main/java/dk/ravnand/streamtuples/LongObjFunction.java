@@ -0,0 +1,9 @@
+package dk.ravnand.streamtuples;
+
+/**
+ * Function of a {@code long} left value and an object right value, for {@link LongObjTuple}.
+ */
+@FunctionalInterface
+public interface LongObjFunction<R, U> {
+    U apply(long left, R right);
+}
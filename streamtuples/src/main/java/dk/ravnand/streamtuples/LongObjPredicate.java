@@ -0,0 +1,9 @@
+package dk.ravnand.streamtuples;
+
+/**
+ * Predicate of a {@code long} left value and an object right value, for {@link LongObjTuple}.
+ */
+@FunctionalInterface
+public interface LongObjPredicate<R> {
+    boolean test(long left, R right);
+}
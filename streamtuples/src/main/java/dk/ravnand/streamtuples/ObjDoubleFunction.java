@@ -0,0 +1,9 @@
+package dk.ravnand.streamtuples;
+
+/**
+ * Function of an object left value and a {@code double} right value, for {@link ObjDoubleTuple}.
+ */
+@FunctionalInterface
+public interface ObjDoubleFunction<L, U> {
+    U apply(L left, double right);
+}
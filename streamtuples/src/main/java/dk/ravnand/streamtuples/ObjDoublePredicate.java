@@ -0,0 +1,9 @@
+package dk.ravnand.streamtuples;
+
+/**
+ * Predicate of an object left value and a {@code double} right value, for {@link ObjDoubleTuple}.
+ */
+@FunctionalInterface
+public interface ObjDoublePredicate<L> {
+    boolean test(L left, double right);
+}
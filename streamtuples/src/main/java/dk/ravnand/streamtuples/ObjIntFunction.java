@@ -0,0 +1,9 @@
+package dk.ravnand.streamtuples;
+
+/**
+ * Function of an object left value and an {@code int} right value, for {@link ObjIntTuple}.
+ */
+@FunctionalInterface
+public interface ObjIntFunction<L, U> {
+    U apply(L left, int right);
+}
@@ -0,0 +1,9 @@
+package dk.ravnand.streamtuples;
+
+/**
+ * Predicate of an object left value and an {@code int} right value, for {@link ObjIntTuple}.
+ */
+@FunctionalInterface
+public interface ObjIntPredicate<L> {
+    boolean test(L left, int right);
+}
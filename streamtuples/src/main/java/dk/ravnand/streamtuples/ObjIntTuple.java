@@ -0,0 +1,167 @@
+package dk.ravnand.streamtuples;
+
+import java.util.Objects;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
+
+/**
+ * <p>A {@link StreamTuple} with a primitive {@code int} right value, typically a count or a score
+ * calculated from the left value.  Created with {@link StreamTuple#mapToInt(java.util.function.ToIntFunction)}.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public final class ObjIntTuple<L> implements Comparable<ObjIntTuple<L>> {
+
+    private final L left;
+    private final int right;
+
+    /**
+     * for {@code (l, r) -> new ObjIntTuple<>(l, r) }
+     *
+     * @param left  leftmost item in tuple. Must be non-null.
+     * @param right rightmost item in tuple.
+     */
+    public ObjIntTuple(L left, int right) {
+        this.left = Objects.requireNonNull(left, "left");
+        this.right = right;
+    }
+
+    /**
+     * Gets the left value.
+     *
+     * @return L left
+     */
+    public L left() {
+        return left;
+    }
+
+    /**
+     * Gets the right value
+     *
+     * @return int right
+     */
+    public int right() {
+        return right;
+    }
+
+    /**
+     * Return new tuple with the given right value and the same left value.
+     */
+    public <U> StreamTuple<L, U> of(U right) {
+        return new StreamTuple<>(left, right);
+    }
+
+    /**
+     * for <pre>.map(t -> t.map(r -> ...))</pre>
+     */
+    public <U> StreamTuple<L, U> map(IntFunction<U> f) {
+        return of(f.apply(right));
+    }
+
+    /**
+     * for <pre>.map(t -> t.map((l, r) -> ...))</pre>
+     */
+    public <U> StreamTuple<L, U> map(ObjIntFunction<L, U> f) {
+        return of(f.apply(left, right));
+    }
+
+    /**
+     * for <pre>.map(t -> t.mapToInt(r -> ...))</pre> keeping the right value unboxed.
+     */
+    public ObjIntTuple<L> mapToInt(IntUnaryOperator f) {
+        return new ObjIntTuple<>(left, f.applyAsInt(right));
+    }
+
+    /**
+     * for <pre>.filter(t -> t.filter(r -> ...))</pre>
+     */
+    public boolean filter(IntPredicate predicate) {
+        return predicate.test(right);
+    }
+
+    /**
+     * for <pre>.filter(t -> t.filter((l, r) -> ...))</pre>
+     */
+    public boolean filter(ObjIntPredicate<L> predicate) {
+        return predicate.test(left, right);
+    }
+
+    /**
+     * for <pre>.flatMap(t -> t.flatMap(r -> ....))</pre>
+     */
+    public <U> Stream<StreamTuple<L, U>> flatMap(IntFunction<Stream<U>> f) {
+        return f.apply(right).map(this::of);
+    }
+
+    /**
+     * for <pre>.flatMap(t -> t.flatMap((l, r) -> ....))</pre>
+     */
+    public <U> Stream<StreamTuple<L, U>> flatMap(ObjIntFunction<L, Stream<U>> f) {
+        return f.apply(left, right).map(this::of);
+    }
+
+    /**
+     * for <pre>.peek(t -> t.peek(r -> ....))</pre>
+     */
+    public void peek(IntConsumer f) {
+        f.accept(right);
+    }
+
+    /**
+     * for <pre>.peek(t -> t.peek((l, r) -> ....))</pre>
+     */
+    public void peek(ObjIntConsumer<L> f) {
+        f.accept(left, right);
+    }
+
+    /**
+     * Box the right value, for when the rest of the stream needs a plain {@link StreamTuple}.
+     */
+    public StreamTuple<L, Integer> toStreamTuple() {
+        return new StreamTuple<>(left, right);
+    }
+
+    @Override
+    public String toString() {
+        return "ObjIntTuple{" +
+                "left=" + left +
+                ", right=" + right +
+                '}';
+    }
+
+    /**
+     * Same ordering as {@link StreamTuple#compareTo(StreamTuple)}: the right value is considered first, and then the
+     * key.  The left value must be comparable if right values are equal so this may fail with a ClassCastException.
+     *
+     * @noinspection unchecked
+     */
+    @Override
+    public int compareTo(ObjIntTuple<L> that) {
+        int i = Integer.compare(right, that.right);
+        if (i == 0) {
+            i = ((Comparable<L>) left).compareTo(that.left);
+        }
+        return i;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ObjIntTuple<?> that = (ObjIntTuple<?>) o;
+        return right == that.right &&
+                left.equals(that.left);
+    }
+
+    /**
+     * Same value as {@link StreamTuple#hashCode()} for the boxed tuple, but without boxing or varargs.
+     */
+    @Override
+    public int hashCode() {
+        return 31 * (31 + left.hashCode()) + Integer.hashCode(right);
+    }
+}
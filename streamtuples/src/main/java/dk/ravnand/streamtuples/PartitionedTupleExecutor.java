@@ -0,0 +1,372 @@
+package dk.ravnand.streamtuples;
+
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>Runs the work for each tuple on one of a fixed number of single threaded lanes chosen by the hash code of the
+ * left value, so all tuples with the same left value are handled by the same thread in stream order.  Per key side
+ * effects like updating a map or a database row then need no locking and cannot race, while different keys are
+ * handled in parallel:</p>
+ *
+ * <pre>
+ * try (PartitionedTupleExecutor executor = new PartitionedTupleExecutor()) {
+ *     executor.forEachPartitioned(tuples, (id, s) -&gt; map.put(id, s));
+ * }
+ * </pre>
+ *
+ * <p>The tuples are handed to the lanes in batches of up to {@value #BATCH_SIZE}.  Each lane has a bounded queue,
+ * and the calling thread waits when the queue of the lane of the next batch is full, so a slow lane slows down the
+ * stream instead of filling the heap.  The functions given must not use the
+ * same executor themselves, as a lane waiting for itself waits forever.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public class PartitionedTupleExecutor implements AutoCloseable {
+
+    static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    /**
+     * Largest number of tuples handed to a lane at a time.
+     */
+    public static final int BATCH_SIZE = 64;
+
+    private static final Runnable STOP = () -> {
+    };
+
+    private static final AtomicInteger executorNumber = new AtomicInteger();
+
+    private final Lane[] lanes;
+    private final int queueCapacity;
+    private final int batchSize;
+    private volatile boolean closed;
+
+    /**
+     * Executor with a lane per available processor.
+     */
+    public PartitionedTupleExecutor() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param lanes         number of threads.
+     * @param queueCapacity number of tuples waiting for each lane before the stream has to wait.
+     */
+    public PartitionedTupleExecutor(int lanes, int queueCapacity) {
+        if (lanes < 1) {
+            throw new IllegalArgumentException("lanes must be positive: " + lanes);
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be positive: " + queueCapacity);
+        }
+        this.queueCapacity = queueCapacity;
+        this.batchSize = Math.min(BATCH_SIZE, queueCapacity);
+        this.lanes = new Lane[lanes];
+        int executor = executorNumber.incrementAndGet();
+        for (int i = 0; i < lanes; i++) {
+            this.lanes[i] = new Lane(queueCapacity / batchSize, "streamtuples-lane-" + executor + "-" + i);
+        }
+    }
+
+    public int lanes() {
+        return lanes.length;
+    }
+
+    /**
+     * Run the action for each tuple on the lane of its left value, and wait until all are done.  The stream is
+     * consumed by the calling thread in encounter order.
+     *
+     * @throws RuntimeException the first exception thrown by the action, after which the remaining tuples are
+     *                          skipped.
+     */
+    public <L, R> void forEachPartitioned(Stream<StreamTuple<L, R>> tuples, BiConsumer<L, R> action) {
+        Objects.requireNonNull(action, "action");
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Batcher<L, R> batcher = new Batcher<>(t -> {
+            if (failure.get() == null) {
+                try {
+                    action.accept(t.left(), t.right());
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        });
+        Spliterator<StreamTuple<L, R>> source = tuples.spliterator();
+        //noinspection StatementWithEmptyBody
+        while (failure.get() == null && source.tryAdvance(batcher::add)) {
+        }
+        batcher.flush();
+        // the lanes run their tasks in order, so when each has run this one all the tasks before it are done
+        CountDownLatch done = new CountDownLatch(lanes.length);
+        for (Lane lane : lanes) {
+            lane.submit(done::countDown);
+        }
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, new CancellationException("Interrupted while waiting for the lanes"));
+        }
+        rethrow(failure.get());
+    }
+
+    /**
+     * Map the right value of each tuple on the lane of its left value.  The resulting stream is sequential and has
+     * the results for each left value in encounter order, but the results for different left values come as they
+     * are ready.  Closing it skips the mappings not yet started.
+     */
+    public <L, R, U> Stream<StreamTuple<L, U>> mapPartitioned(Stream<StreamTuple<L, R>> tuples, Function<R, U> f) {
+        Objects.requireNonNull(f, "f");
+        return mapPartitioned(tuples, (BiFunction<L, R, U>) (l, r) -> f.apply(r));
+    }
+
+    /**
+     * As {@link #mapPartitioned(Stream, Function)} with a function of both values.
+     */
+    public <L, R, U> Stream<StreamTuple<L, U>> mapPartitioned(Stream<StreamTuple<L, R>> tuples,
+                                                              BiFunction<L, R, U> f) {
+        Objects.requireNonNull(f, "f");
+        MapSpliterator<L, R, U> spliterator = new MapSpliterator<>(tuples.spliterator(), f);
+        return StreamSupport.stream(spliterator, false)
+                .onClose(spliterator::cancel)
+                .onClose(tuples::close);
+    }
+
+    /**
+     * Let the lanes finish the tasks already queued and stop their threads.  Does not wait for them to finish.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            for (Lane lane : lanes) {
+                lane.put(STOP);
+            }
+        }
+    }
+
+    private int laneOf(Object left) {
+        int h = left.hashCode();
+        h ^= h >>> 16;
+        return (h & Integer.MAX_VALUE) % lanes.length;
+    }
+
+    private static void rethrow(Throwable failure) {
+        if (failure == null) {
+            return;
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        throw new IllegalStateException(failure);
+    }
+
+    private class Lane implements Runnable {
+        private final BlockingQueue<Runnable> queue;
+        private final Thread thread;
+
+        /**
+         * @param queueCapacity number of batches.
+         */
+        Lane(int queueCapacity, String name) {
+            queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+            thread = new Thread(this, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void submit(Runnable task) {
+            if (closed) {
+                throw new IllegalStateException("PartitionedTupleExecutor is closed");
+            }
+            put(task);
+        }
+
+        void put(Runnable task) {
+            try {
+                queue.put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while waiting for room in the queue of "
+                        + thread.getName());
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Runnable task;
+                while ((task = queue.take()) != STOP) {
+                    task.run();
+                }
+            } catch (InterruptedException e) {
+                // stop
+            }
+        }
+    }
+
+    /**
+     * Collects the tuples for each lane and hands them over a batch at a time, as a queue operation per tuple costs
+     * more than many per tuple actions.
+     */
+    private class Batcher<L, R> {
+        private final Consumer<StreamTuple<L, R>> task;
+        private final Object[][] batches = new Object[lanes.length][];
+        private final int[] sizes = new int[lanes.length];
+
+        /**
+         * @param task what to do with each tuple on its lane.
+         */
+        Batcher(Consumer<StreamTuple<L, R>> task) {
+            this.task = task;
+        }
+
+        void add(StreamTuple<L, R> t) {
+            int lane = laneOf(t.left());
+            if (batches[lane] == null) {
+                batches[lane] = new Object[batchSize];
+            }
+            batches[lane][sizes[lane]++] = t;
+            if (sizes[lane] == batchSize) {
+                submit(lane);
+            }
+        }
+
+        /**
+         * Hand over the batches not yet full.
+         */
+        void flush() {
+            for (int lane = 0; lane < lanes.length; lane++) {
+                if (sizes[lane] > 0) {
+                    submit(lane);
+                }
+            }
+        }
+
+        private void submit(int lane) {
+            Object[] batch = batches[lane];
+            int size = sizes[lane];
+            batches[lane] = null;
+            sizes[lane] = 0;
+            lanes[lane].submit(() -> {
+                for (int i = 0; i < size; i++) {
+                    @SuppressWarnings("unchecked")
+                    StreamTuple<L, R> t = (StreamTuple<L, R>) batch[i];
+                    task.accept(t);
+                }
+            });
+        }
+    }
+
+    /**
+     * Result of a mapping which threw.
+     */
+    private static class Failure {
+        final Throwable throwable;
+
+        Failure(Throwable throwable) {
+            this.throwable = throwable;
+        }
+    }
+
+    /**
+     * Submits tuples to the lanes until {@code lanes * queueCapacity} are in flight, and emits the results as the
+     * lanes put them in a shared queue.  As a lane runs its tasks in order the results of each left value are
+     * queued in order.
+     */
+    private class MapSpliterator<L, R, U> implements Spliterator<StreamTuple<L, U>> {
+        private final Spliterator<StreamTuple<L, R>> source;
+        private final Batcher<L, R> batcher;
+        private final BlockingQueue<Object> results = new LinkedBlockingQueue<>();
+        private final int maxInFlight = lanes.length * queueCapacity;
+        private int inFlight;
+        private volatile boolean cancelled;
+
+        MapSpliterator(Spliterator<StreamTuple<L, R>> source, BiFunction<L, R, U> f) {
+            this.source = source;
+            this.batcher = new Batcher<>(t -> {
+                if (cancelled) {
+                    return;
+                }
+                Object result;
+                try {
+                    result = t.of(f.apply(t.left(), t.right()));
+                } catch (Throwable e) {
+                    result = new Failure(e);
+                }
+                results.add(result);
+            });
+        }
+
+        private void submit(StreamTuple<L, R> t) {
+            batcher.add(t);
+            inFlight++;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super StreamTuple<L, U>> action) {
+            //noinspection StatementWithEmptyBody
+            while (inFlight < maxInFlight && source.tryAdvance(this::submit)) {
+            }
+            if (inFlight == 0) {
+                return false;
+            }
+            Object result = results.poll();
+            try {
+                if (result == null) {
+                    batcher.flush();
+                    result = results.take();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw new CancellationException("Interrupted while waiting for mapping to complete");
+            }
+            inFlight--;
+            if (result instanceof Failure) {
+                cancel();
+                rethrow(((Failure) result).throwable);
+            }
+            @SuppressWarnings("unchecked")
+            StreamTuple<L, U> t = (StreamTuple<L, U>) result;
+            action.accept(t);
+            return true;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public Spliterator<StreamTuple<L, U>> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            long size = source.estimateSize();
+            return size == Long.MAX_VALUE ? size : size + inFlight;
+        }
+
+        @Override
+        public int characteristics() {
+            return NONNULL;
+        }
+    }
+}
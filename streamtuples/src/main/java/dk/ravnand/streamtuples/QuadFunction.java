@@ -0,0 +1,9 @@
+package dk.ravnand.streamtuples;
+
+/**
+ * Function of the four values of a {@link StreamQuad}.
+ */
+@FunctionalInterface
+public interface QuadFunction<A, B, C, D, U> {
+    U apply(A first, B second, C third, D fourth);
+}
@@ -0,0 +1,9 @@
+package dk.ravnand.streamtuples;
+
+/**
+ * Predicate of the four values of a {@link StreamQuad}.
+ */
+@FunctionalInterface
+public interface QuadPredicate<A, B, C, D> {
+    boolean test(A first, B second, C third, D fourth);
+}
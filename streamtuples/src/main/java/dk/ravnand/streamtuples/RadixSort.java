@@ -0,0 +1,169 @@
+package dk.ravnand.streamtuples;
+
+import java.util.Arrays;
+
+/**
+ * <p>Stable radix sorts of an array of values by a key per value, used by {@link TupleSorts} when the keys are all
+ * Integer, Long or String.  The values are moved along with their keys, so the sort is stable and makes no
+ * comparisons of the values.</p>
+ */
+class RadixSort {
+
+    private static final int BITS = 8;
+    private static final int RADIX = 1 << BITS;
+    private static final int MASK = RADIX - 1;
+
+    /**
+     * Below this many values a String range is sorted by insertion sort.
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    /**
+     * Keys with a longer common prefix than this many bytes are merge sorted, so long equal keys do not make the
+     * recursion deep.
+     */
+    private static final int MAX_DIGITS = 64;
+
+    /**
+     * The long (or widened int) key in an order where the unsigned order is the signed order of the key.
+     */
+    static long unsigned(long key) {
+        return key ^ Long.MIN_VALUE;
+    }
+
+    /**
+     * Least significant digit first radix sort by keys made with {@link #unsigned(long)}.  Digits which are the same
+     * for all keys, like the high bytes of small numbers, take no pass.
+     *
+     * @param keys   the key of each value, sorted along with them.
+     * @param values the values to sort.
+     */
+    static void sort(long[] keys, Object[] values) {
+        int n = keys.length;
+        if (n < 2) {
+            return;
+        }
+        long[] keyWork = new long[n];
+        Object[] valueWork = new Object[n];
+        int[] count = new int[RADIX + 1];
+        for (int shift = 0; shift < Long.SIZE; shift += BITS) {
+            Arrays.fill(count, 0);
+            for (long key : keys) {
+                count[(int) (key >>> shift & MASK) + 1]++;
+            }
+            if (count[(int) (keys[0] >>> shift & MASK) + 1] == n) {
+                continue; // all keys have this digit
+            }
+            for (int d = 0; d < RADIX; d++) {
+                count[d + 1] += count[d];
+            }
+            for (int i = 0; i < n; i++) {
+                int to = count[(int) (keys[i] >>> shift & MASK)]++;
+                keyWork[to] = keys[i];
+                valueWork[to] = values[i];
+            }
+            System.arraycopy(keyWork, 0, keys, 0, n);
+            System.arraycopy(valueWork, 0, values, 0, n);
+        }
+    }
+
+    /**
+     * Most significant digit first radix sort by String keys in {@link String#compareTo(String)} order, one byte of a
+     * char at a time.
+     *
+     * @param keys   the key of each value, sorted along with them.
+     * @param values the values to sort.
+     */
+    static void sort(String[] keys, Object[] values) {
+        int n = keys.length;
+        sort(keys, values, new String[n], new Object[n], 0, n, 0);
+    }
+
+    /**
+     * Sort the range where all keys have the same first {@code digit} bytes.
+     */
+    private static void sort(String[] keys, Object[] values, String[] keyWork, Object[] valueWork,
+                             int from, int to, int digit) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(keys, values, from, to);
+            return;
+        }
+        if (digit >= MAX_DIGITS) {
+            mergeSort(keys, values, keyWork, valueWork, from, to);
+            return;
+        }
+        // digit -1, for the keys ending before this byte, comes first
+        int[] count = new int[RADIX + 2];
+        for (int i = from; i < to; i++) {
+            count[digit(keys[i], digit) + 2]++;
+        }
+        if (count[digit(keys[from], digit) + 2] == to - from) {
+            // all keys have this digit
+            if (keys[from].length() > digit >> 1) {
+                sort(keys, values, keyWork, valueWork, from, to, digit + 1);
+            }
+            return;
+        }
+        for (int d = 0; d <= RADIX; d++) {
+            count[d + 1] += count[d];
+        }
+        for (int i = from; i < to; i++) {
+            int at = from + count[digit(keys[i], digit) + 1]++;
+            keyWork[at] = keys[i];
+            valueWork[at] = values[i];
+        }
+        System.arraycopy(keyWork, from, keys, from, to - from);
+        System.arraycopy(valueWork, from, values, from, to - from);
+        // count[d] is now the start of the keys with digit d, and the keys ending here need no more sorting
+        for (int d = 0; d < RADIX; d++) {
+            int start = from + count[d];
+            int end = from + count[d + 1];
+            if (end - start > 1) {
+                sort(keys, values, keyWork, valueWork, start, end, digit + 1);
+            }
+        }
+    }
+
+    /**
+     * The byte of the key at the position, high byte of a char first, or -1 after the end.
+     */
+    private static int digit(String key, int digit) {
+        int index = digit >> 1;
+        if (index >= key.length()) {
+            return -1;
+        }
+        char c = key.charAt(index);
+        return (digit & 1) == 0 ? c >>> BITS : c & MASK;
+    }
+
+    private static void mergeSort(String[] keys, Object[] values, String[] keyWork, Object[] valueWork,
+                                  int from, int to) {
+        int n = to - from;
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = from + i;
+        }
+        TupleBuffer.IndexSort.sort(order, n, (i, j) -> keys[i].compareTo(keys[j]));
+        for (int i = 0; i < n; i++) {
+            keyWork[from + i] = keys[order[i]];
+            valueWork[from + i] = values[order[i]];
+        }
+        System.arraycopy(keyWork, from, keys, from, n);
+        System.arraycopy(valueWork, from, values, from, n);
+    }
+
+    private static void insertionSort(String[] keys, Object[] values, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            String key = keys[i];
+            Object value = values[i];
+            int j = i - 1;
+            while (j >= from && keys[j].compareTo(key) > 0) {
+                keys[j + 1] = keys[j];
+                values[j + 1] = values[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            values[j + 1] = value;
+        }
+    }
+}
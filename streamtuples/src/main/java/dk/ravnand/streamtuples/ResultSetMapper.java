@@ -0,0 +1,12 @@
+package dk.ravnand.streamtuples;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reads a value from the current row of a ResultSet, like {@code rs -> rs.getString("s")}.
+ */
+@FunctionalInterface
+public interface ResultSetMapper<T> {
+    T map(ResultSet resultSet) throws SQLException;
+}
@@ -0,0 +1,164 @@
+package dk.ravnand.streamtuples;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>Lazy stream of tuples read from a ResultSet, one row at a time as the stream is consumed, so tables much
+ * larger than memory can be streamed.  Each row is read directly into a StreamTuple by the given mappers without
+ * an intermediate {@code Object[]} per row.</p>
+ *
+ * <pre>
+ * try (Stream&lt;StreamTuple&lt;Integer, String&gt;&gt; rows = ResultSetTuples.stream(
+ *         statement.executeQuery("SELECT id, s FROM t"), "id", rs -&gt; rs.getString("s"))) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * <p>The rows are fetched from the database as the JDBC driver does with the fetch size of the ResultSet.
+ * Closing the stream closes the ResultSet and the Statement it came from.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public class ResultSetTuples {
+
+    private static final int DEFAULT_SPLIT_SIZE = 1024;
+
+    /**
+     * Stream the rows with the value of the key column as left value.
+     *
+     * @param resultSet   rows to stream, positioned before the first row to stream.
+     * @param keyColumn   label of the column with the left value, which is cast to K.
+     * @param valueMapper reads the right value from the current row.
+     * @noinspection unchecked
+     */
+    public static <K, V> Stream<StreamTuple<K, V>> stream(ResultSet resultSet, String keyColumn,
+                                                          ResultSetMapper<V> valueMapper) {
+        return stream(resultSet, rs -> (K) rs.getObject(keyColumn), valueMapper);
+    }
+
+    /**
+     * Stream the rows with left and right value read by the given mappers.
+     *
+     * @param resultSet   rows to stream, positioned before the first row to stream.
+     * @param keyMapper   reads the left value from the current row.
+     * @param valueMapper reads the right value from the current row.
+     */
+    public static <K, V> Stream<StreamTuple<K, V>> stream(ResultSet resultSet, ResultSetMapper<K> keyMapper,
+                                                          ResultSetMapper<V> valueMapper) {
+        return StreamSupport.stream(new ResultSetSpliterator<>(resultSet, keyMapper, valueMapper), false)
+                .onClose(() -> close(resultSet));
+    }
+
+    /**
+     * Stream the rows after setting the number of rows the driver should fetch from the database at a time.
+     *
+     * @param fetchSize fetch size hint for the JDBC driver, see {@link ResultSet#setFetchSize(int)}.
+     */
+    public static <K, V> Stream<StreamTuple<K, V>> stream(ResultSet resultSet, ResultSetMapper<K> keyMapper,
+                                                          ResultSetMapper<V> valueMapper, int fetchSize) {
+        try {
+            resultSet.setFetchSize(fetchSize);
+        } catch (SQLException e) {
+            throw new UncheckedSQLException(e);
+        }
+        return stream(resultSet, keyMapper, valueMapper);
+    }
+
+    private static void close(ResultSet resultSet) {
+        try {
+            Statement statement = resultSet.getStatement();
+            try {
+                resultSet.close();
+            } finally {
+                if (statement != null) {
+                    statement.close();
+                }
+            }
+        } catch (SQLException e) {
+            throw new UncheckedSQLException(e);
+        }
+    }
+
+    /**
+     * Reads a row per tryAdvance.  Splits off a batch of fetch size rows at a time for parallel streams.  The number
+     * of rows is never known up front, as moving to the last row of a scrollable ResultSet makes many drivers fetch
+     * all of the rows.
+     */
+    private static class ResultSetSpliterator<K, V> implements Spliterator<StreamTuple<K, V>> {
+        private final ResultSet resultSet;
+        private final ResultSetMapper<K> keyMapper;
+        private final ResultSetMapper<V> valueMapper;
+        private boolean exhausted;
+
+        ResultSetSpliterator(ResultSet resultSet, ResultSetMapper<K> keyMapper, ResultSetMapper<V> valueMapper) {
+            this.resultSet = resultSet;
+            this.keyMapper = keyMapper;
+            this.valueMapper = valueMapper;
+        }
+
+        /**
+         * @return the tuple for the next row, or null if there are no more rows.
+         */
+        private StreamTuple<K, V> readRow() {
+            if (exhausted) {
+                return null;
+            }
+            try {
+                if (!resultSet.next()) {
+                    exhausted = true;
+                    return null;
+                }
+                return new StreamTuple<>(keyMapper.map(resultSet), valueMapper.map(resultSet));
+            } catch (SQLException e) {
+                throw new UncheckedSQLException(e);
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super StreamTuple<K, V>> action) {
+            StreamTuple<K, V> tuple = readRow();
+            if (tuple == null) {
+                return false;
+            }
+            action.accept(tuple);
+            return true;
+        }
+
+        @Override
+        public Spliterator<StreamTuple<K, V>> trySplit() {
+            if (exhausted) {
+                return null;
+            }
+            int batchSize;
+            try {
+                batchSize = resultSet.getFetchSize() > 0 ? resultSet.getFetchSize() : DEFAULT_SPLIT_SIZE;
+            } catch (SQLException e) {
+                throw new UncheckedSQLException(e);
+            }
+            Object[] batch = new Object[batchSize];
+            int n = 0;
+            StreamTuple<K, V> tuple;
+            while (n < batch.length && (tuple = readRow()) != null) {
+                batch[n++] = tuple;
+            }
+            return n == 0 ? null : Spliterators.spliterator(batch, 0, n, ORDERED | NONNULL);
+        }
+
+        @Override
+        public long estimateSize() {
+            return exhausted ? 0 : Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package dk.ravnand.streamtuples;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>Groups the right values by left value for streams which may be larger than the heap, as the
+ * external memory version of {@code collect(groupingBy(t -> t.left(), mapping(t -> t.right(), toList())))}.  The
+ * tuples are sorted by left value with a {@link SpillingTupleSorter} and adjacent tuples with the same left value
+ * are then emitted as one tuple with the list of right values:</p>
+ *
+ * <pre>
+ * try (Stream&lt;StreamTuple&lt;Integer, List&lt;String&gt;&gt;&gt; groups = new SpillingTupleGrouper&lt;&gt;(codec,
+ *         Comparator.&lt;Integer&gt;naturalOrder(), 64 &lt;&lt; 20).apply(tuples)) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * <p>The groups come in left value order, and the right values of a group in encounter order.  Only one group at a
+ * time is held in memory.  Close the returned stream to delete any run files left.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public class SpillingTupleGrouper<L, R>
+        implements Function<Stream<StreamTuple<L, R>>, Stream<StreamTuple<L, List<R>>>> {
+
+    private final Comparator<? super L> leftComparator;
+    private final SpillingTupleSorter<L, R> sorter;
+
+    /**
+     * Grouper writing run files in the default temporary-file directory.
+     *
+     * @param codec           writes and reads the tuples in the run files.
+     * @param leftComparator  orders the left values.  Left values comparing as equal are in the same group.
+     * @param memoryThreshold see {@link SpillingTupleSorter#SpillingTupleSorter(TupleCodec, Comparator, long)}.
+     */
+    public SpillingTupleGrouper(TupleCodec<StreamTuple<L, R>> codec, Comparator<? super L> leftComparator,
+                                long memoryThreshold) {
+        this(codec, leftComparator, memoryThreshold, null);
+    }
+
+    /**
+     * @param directory where to write the run files, or null for the default temporary-file directory.
+     */
+    public SpillingTupleGrouper(TupleCodec<StreamTuple<L, R>> codec, Comparator<? super L> leftComparator,
+                                long memoryThreshold, Path directory) {
+        this.leftComparator = Objects.requireNonNull(leftComparator, "leftComparator");
+        this.sorter = new SpillingTupleSorter<>(codec, StreamTuples.byLeft(leftComparator), memoryThreshold,
+                directory);
+    }
+
+    @Override
+    public Stream<StreamTuple<L, List<R>>> apply(Stream<StreamTuple<L, R>> tuples) {
+        Stream<StreamTuple<L, R>> sorted = sorter.apply(tuples);
+        return StreamSupport.stream(new GroupingSpliterator<>(sorted.spliterator(), leftComparator), false)
+                .onClose(sorted::close);
+    }
+
+    private static class GroupingSpliterator<L, R> extends Spliterators.AbstractSpliterator<StreamTuple<L, List<R>>> {
+        private final Spliterator<StreamTuple<L, R>> sorted;
+        private final Comparator<? super L> leftComparator;
+        private StreamTuple<L, R> next;
+
+        GroupingSpliterator(Spliterator<StreamTuple<L, R>> sorted, Comparator<? super L> leftComparator) {
+            super(Long.MAX_VALUE, ORDERED | NONNULL);
+            this.sorted = sorted;
+            this.leftComparator = leftComparator;
+        }
+
+        private StreamTuple<L, R> read() {
+            next = null;
+            sorted.tryAdvance(t -> next = t);
+            return next;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super StreamTuple<L, List<R>>> action) {
+            StreamTuple<L, R> first = next != null ? next : read();
+            if (first == null) {
+                return false;
+            }
+            List<R> rights = new ArrayList<>();
+            rights.add(first.right());
+            StreamTuple<L, R> t;
+            while ((t = read()) != null && leftComparator.compare(first.left(), t.left()) == 0) {
+                rights.add(t.right());
+            }
+            action.accept(first.of(rights));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package dk.ravnand.streamtuples;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>Sorts a stream of tuples which may be larger than the heap.  Tuples are collected in memory until their encoded
+ * size reaches the memory threshold, and then sorted and written through the codec to a run file.  The sorted
+ * stream merges the run files, read through memory mapped buffers, with the tuples still in memory.  Streams
+ * that stay below the threshold are sorted in memory without touching the disk.</p>
+ *
+ * <pre>
+ * try (Stream&lt;StreamTuple&lt;Integer, String&gt;&gt; sorted = new SpillingTupleSorter&lt;&gt;(codec,
+ *         StreamTuples.&lt;Integer, String&gt;byRightThenLeft(), 64 &lt;&lt; 20).apply(tuples)) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * <p>The sort is stable.  The incoming stream is consumed when the stage is applied, and the returned stream is
+ * sequential.  Close the returned stream to delete any run files left.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public class SpillingTupleSorter<L, R> implements Function<Stream<StreamTuple<L, R>>, Stream<StreamTuple<L, R>>> {
+
+    /**
+     * Largest memory threshold, so a run fits in a single mapped buffer.
+     */
+    public static final long MAXIMUM_MEMORY_THRESHOLD = 1 << 30;
+
+    private final TupleCodec<StreamTuple<L, R>> codec;
+    private final Comparator<? super StreamTuple<L, R>> comparator;
+    private final long memoryThreshold;
+    private final Path directory;
+
+    /**
+     * Sorter writing run files in the default temporary-file directory.
+     *
+     * @param codec           writes and reads the tuples in the run files.
+     * @param comparator      order to sort in.
+     * @param memoryThreshold encoded size in bytes of the tuples held in memory before they are written to a run
+     *                        file.  The heap used for them is some multiple of this.
+     */
+    public SpillingTupleSorter(TupleCodec<StreamTuple<L, R>> codec, Comparator<? super StreamTuple<L, R>> comparator,
+                               long memoryThreshold) {
+        this(codec, comparator, memoryThreshold, null);
+    }
+
+    /**
+     * @param directory where to write the run files, or null for the default temporary-file directory.
+     */
+    public SpillingTupleSorter(TupleCodec<StreamTuple<L, R>> codec, Comparator<? super StreamTuple<L, R>> comparator,
+                               long memoryThreshold, Path directory) {
+        if (memoryThreshold < 1 || memoryThreshold > MAXIMUM_MEMORY_THRESHOLD) {
+            throw new IllegalArgumentException("memoryThreshold must be between 1 and " + MAXIMUM_MEMORY_THRESHOLD
+                    + ": " + memoryThreshold);
+        }
+        this.codec = Objects.requireNonNull(codec, "codec");
+        this.comparator = Objects.requireNonNull(comparator, "comparator");
+        this.memoryThreshold = memoryThreshold;
+        this.directory = directory;
+    }
+
+    @Override
+    public Stream<StreamTuple<L, R>> apply(Stream<StreamTuple<L, R>> tuples) {
+        List<Run<L, R>> runs = new ArrayList<>();
+        List<StreamTuple<L, R>> buffer = new ArrayList<>();
+        try {
+            long[] bytes = {0};
+            tuples.spliterator().forEachRemaining(t -> {
+                buffer.add(t);
+                bytes[0] += codec.encodedSize(t);
+                if (bytes[0] >= memoryThreshold) {
+                    buffer.sort(comparator);
+                    runs.add(spill(buffer, bytes[0]));
+                    buffer.clear();
+                    bytes[0] = 0;
+                }
+            });
+            buffer.sort(comparator);
+            if (runs.isEmpty()) {
+                return buffer.stream().onClose(tuples::close);
+            }
+            for (Run<L, R> run : runs) {
+                run.open(codec);
+            }
+        } catch (RuntimeException | Error e) {
+            deleteAll(runs);
+            throw e;
+        }
+        MergingSpliterator<L, R> merging = new MergingSpliterator<>(runs, buffer, comparator);
+        return StreamSupport.stream(merging, false)
+                .onClose(() -> deleteAll(runs))
+                .onClose(tuples::close);
+    }
+
+    private Run<L, R> spill(List<StreamTuple<L, R>> sorted, long bytes) {
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Run of " + bytes + " bytes does not fit in a mapped buffer");
+        }
+        try {
+            Path file = directory == null
+                    ? Files.createTempFile("streamtuples-", ".run")
+                    : Files.createTempFile(directory, "streamtuples-", ".run");
+            Run<L, R> run = new Run<>(file, sorted.size());
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+                for (StreamTuple<L, R> t : sorted) {
+                    codec.encode(t, out);
+                }
+            } catch (IOException | RuntimeException e) {
+                run.delete();
+                throw e;
+            }
+            return run;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <L, R> void deleteAll(List<Run<L, R>> runs) {
+        UncheckedIOException failure = null;
+        for (Run<L, R> run : runs) {
+            try {
+                run.delete();
+            } catch (UncheckedIOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * A sorted run written to a file, read back through a memory mapped buffer.
+     */
+    private static class Run<L, R> {
+        private final Path file;
+        private int remaining;
+        private MappedByteBuffer in;
+        private TupleCodec<StreamTuple<L, R>> codec;
+        private boolean deleted;
+
+        Run(Path file, int count) {
+            this.file = file;
+            this.remaining = count;
+        }
+
+        void open(TupleCodec<StreamTuple<L, R>> codec) {
+            this.codec = codec;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            try {
+                // The mapping stays valid after the file is deleted on most platforms, so nothing is left behind
+                // if the stream is never closed.  Otherwise the file is deleted on close.
+                delete();
+            } catch (UncheckedIOException ignored) {
+            }
+        }
+
+        /**
+         * @return the next tuple of the run, or null if there are no more.
+         */
+        StreamTuple<L, R> next() {
+            if (remaining == 0) {
+                in = null;
+                return null;
+            }
+            remaining--;
+            return codec.decode(in);
+        }
+
+        void delete() {
+            if (!deleted) {
+                try {
+                    Files.deleteIfExists(file);
+                    deleted = true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges the runs and the sorted in memory tuples, preferring the earliest run for equal tuples so the sort
+     * stays stable.
+     */
+    private static class MergingSpliterator<L, R> extends Spliterators.AbstractSpliterator<StreamTuple<L, R>> {
+        private final List<Run<L, R>> runs;
+        private final List<StreamTuple<L, R>> memory;
+        private final PriorityQueue<Head<L, R>> heads;
+        private int memoryIndex;
+
+        MergingSpliterator(List<Run<L, R>> runs, List<StreamTuple<L, R>> memory,
+                           Comparator<? super StreamTuple<L, R>> comparator) {
+            super(Long.MAX_VALUE, ORDERED | NONNULL);
+            this.runs = runs;
+            this.memory = memory;
+            Comparator<Head<L, R>> byTuple = (a, b) -> comparator.compare(a.tuple, b.tuple);
+            this.heads = new PriorityQueue<>(runs.size() + 1, byTuple.thenComparingInt(h -> h.source));
+            for (int i = 0; i <= runs.size(); i++) {
+                StreamTuple<L, R> first = read(i);
+                if (first != null) {
+                    heads.add(new Head<>(first, i));
+                }
+            }
+        }
+
+        /**
+         * @param source index of the run, or runs.size() for the tuples in memory.
+         */
+        private StreamTuple<L, R> read(int source) {
+            if (source < runs.size()) {
+                return runs.get(source).next();
+            }
+            return memoryIndex < memory.size() ? memory.get(memoryIndex++) : null;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super StreamTuple<L, R>> action) {
+            Head<L, R> head = heads.poll();
+            if (head == null) {
+                return false;
+            }
+            StreamTuple<L, R> tuple = head.tuple;
+            StreamTuple<L, R> next = read(head.source);
+            if (next != null) {
+                head.tuple = next;
+                heads.add(head);
+            }
+            action.accept(tuple);
+            return true;
+        }
+    }
+
+    private static class Head<L, R> {
+        StreamTuple<L, R> tuple;
+        final int source;
+
+        Head(StreamTuple<L, R> tuple, int source) {
+            this.tuple = tuple;
+            this.source = source;
+        }
+    }
+}
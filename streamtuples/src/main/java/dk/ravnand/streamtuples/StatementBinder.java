@@ -0,0 +1,13 @@
+package dk.ravnand.streamtuples;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Sets the parameters of a PreparedStatement from a value, like
+ * {@code (ps, t) -> { ps.setString(1, t.right()); ps.setInt(2, t.left()); }}.
+ */
+@FunctionalInterface
+public interface StatementBinder<T> {
+    void bind(PreparedStatement statement, T value) throws SQLException;
+}
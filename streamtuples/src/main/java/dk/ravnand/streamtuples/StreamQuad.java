@@ -0,0 +1,151 @@
+package dk.ravnand.streamtuples;
+
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * <p>Four values in one object, like {@link StreamTriple} with one more saved value.  The fourth value is the
+ * current one.  Get these with {@link StreamTriple#push(Function)} or
+ * {@link StreamTuples#quadOf(StreamTriple, Function)}.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public final class StreamQuad<A, B, C, D> {
+
+    private final A first;
+    private final B second;
+    private final C third;
+    private final D fourth;
+
+    /**
+     * All values must be non-null.
+     */
+    public StreamQuad(A first, B second, C third, D fourth) {
+        this.first = Objects.requireNonNull(first, "first");
+        this.second = Objects.requireNonNull(second, "second");
+        this.third = Objects.requireNonNull(third, "third");
+        this.fourth = Objects.requireNonNull(fourth, "fourth");
+    }
+
+    public A first() {
+        return first;
+    }
+
+    public B second() {
+        return second;
+    }
+
+    public C third() {
+        return third;
+    }
+
+    public D fourth() {
+        return fourth;
+    }
+
+    /**
+     * New quad with the same first three values and the given fourth value.
+     */
+    public <U> StreamQuad<A, B, C, U> of(U fourth) {
+        return new StreamQuad<>(first, second, third, fourth);
+    }
+
+    /**
+     * for <pre>.map(t -> t.map(d -> ...))</pre>, replacing the fourth value.
+     */
+    public <U> StreamQuad<A, B, C, U> map(Function<D, U> f) {
+        return of(f.apply(fourth));
+    }
+
+    /**
+     * for <pre>.map(t -> t.map((a, b, c, d) -> ...))</pre>, replacing the fourth value.
+     */
+    public <U> StreamQuad<A, B, C, U> map(QuadFunction<A, B, C, D, U> f) {
+        return of(f.apply(first, second, third, fourth));
+    }
+
+    /**
+     * Replace the first value, keeping the others.
+     */
+    public <U> StreamQuad<U, B, C, D> mapFirst(Function<A, U> f) {
+        return new StreamQuad<>(f.apply(first), second, third, fourth);
+    }
+
+    /**
+     * Replace the second value, keeping the others.
+     */
+    public <U> StreamQuad<A, U, C, D> mapSecond(Function<B, U> f) {
+        return new StreamQuad<>(first, f.apply(second), third, fourth);
+    }
+
+    /**
+     * Replace the third value, keeping the others.
+     */
+    public <U> StreamQuad<A, B, U, D> mapThird(Function<C, U> f) {
+        return new StreamQuad<>(first, second, f.apply(third), fourth);
+    }
+
+    /**
+     * Drop the first value.
+     */
+    public StreamTriple<B, C, D> dropFirst() {
+        return new StreamTriple<>(second, third, fourth);
+    }
+
+    /**
+     * for <pre>.filter(t -> t.filter(d -> ...))</pre>
+     */
+    public boolean filter(Predicate<D> predicate) {
+        return predicate.test(fourth);
+    }
+
+    /**
+     * for <pre>.filter(t -> t.filter((a, b, c, d) -> ...))</pre>
+     */
+    public boolean filter(QuadPredicate<A, B, C, D> predicate) {
+        return predicate.test(first, second, third, fourth);
+    }
+
+    /**
+     * for <pre>.flatMap(t -> t.flatMap(d -> ...))</pre>
+     */
+    public <U> Stream<StreamQuad<A, B, C, U>> flatMap(Function<D, Stream<U>> f) {
+        return f.apply(fourth).map(this::of);
+    }
+
+    /**
+     * for <pre>.flatMap(t -> t.flatMap((a, b, c, d) -> ...))</pre>
+     */
+    public <U> Stream<StreamQuad<A, B, C, U>> flatMap(QuadFunction<A, B, C, D, Stream<U>> f) {
+        return f.apply(first, second, third, fourth).map(this::of);
+    }
+
+    @Override
+    public String toString() {
+        return "StreamQuad{" +
+                "first=" + first +
+                ", second=" + second +
+                ", third=" + third +
+                ", fourth=" + fourth +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        StreamQuad<?, ?, ?, ?> that = (StreamQuad<?, ?, ?, ?>) o;
+        return first.equals(that.first) && second.equals(that.second) && third.equals(that.third)
+                && fourth.equals(that.fourth);
+    }
+
+    /**
+     * Same value as {@code Objects.hash(first, second, third, fourth)} without the varargs array.
+     */
+    @Override
+    public int hashCode() {
+        return 31 * (31 * (31 * (31 + first.hashCode()) + second.hashCode()) + third.hashCode()) + fourth.hashCode();
+    }
+}
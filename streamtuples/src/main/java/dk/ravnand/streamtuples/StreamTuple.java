@@ -1,12 +1,18 @@
 package dk.ravnand.streamtuples;
 
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntBiFunction;
+import java.util.function.ToIntFunction;
 import java.util.stream.Stream;
 
 /**
@@ -19,6 +25,11 @@ public class StreamTuple<L, R> implements Comparable<StreamTuple<L, R>> {
     protected final L left;
     protected final R right;
 
+    /**
+     * Cached hash code, 0 until computed.  As for String a hash code which really is 0 is just computed every time.
+     */
+    private int hash;
+
     /**
      * for {@code (l, r) -> new StreamTuple<>(l, r) }
      *
@@ -85,6 +96,70 @@ public class StreamTuple<L, R> implements Comparable<StreamTuple<L, R>> {
         return of(f.apply(left, right));
     }
 
+    /**
+     * Like {@link #map(Function)} but remembers the results in the given cache, so the function is not called again
+     * for a right value seen before (also in later streams using the same cache).  For expensive lookups like
+     * <pre>.map(st -> st.mapCached(id -> lookup(id), cache))</pre>
+     *
+     * @param f     function to apply to the current value to get the new value.  Should not return null.
+     * @param cache cache to look in before calling f, and to save the result of f in.
+     * @return new StreamTuple with the same left value and the (possibly cached) result of applying f to the current
+     * value.
+     */
+    public <U> StreamTuple<L, U> mapCached(Function<R, U> f, TupleCache<R, U> cache) {
+        return of(cache.get(right, f));
+    }
+
+    /**
+     * Like {@link #map(Function)} but runs f on the given executor, for blocking mappings like database lookups.
+     * See {@link AsyncStage} for running a bounded number of these at a time over a whole stream.
+     *
+     * @param f        function to apply to the current value to get the new value.
+     * @param executor executor to run f on.
+     * @return future completed with a new StreamTuple with the same left value and the result of applying f to the
+     * current value, or exceptionally if f throws.
+     */
+    public <U> CompletableFuture<StreamTuple<L, U>> mapAsync(Function<R, U> f, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> of(f.apply(right)), executor);
+    }
+
+    /**
+     * for <pre>.map(st -> st.mapToInt(r -> ...))</pre> when the new value is an {@code int} which should not be boxed.
+     *
+     * @param f function to apply to the current value to get the new value.
+     * @return new ObjIntTuple with the same left value and the result of applying f to current value.
+     */
+    public ObjIntTuple<L> mapToInt(ToIntFunction<R> f) {
+        return new ObjIntTuple<>(left, f.applyAsInt(right));
+    }
+
+    /**
+     * for <pre>.map(st -> st.mapToInt((l, r) -> ...))</pre> when the new value is an {@code int} which should not be
+     * boxed.
+     */
+    public ObjIntTuple<L> mapToInt(ToIntBiFunction<L, R> f) {
+        return new ObjIntTuple<>(left, f.applyAsInt(left, right));
+    }
+
+    /**
+     * for <pre>.map(st -> st.mapToDouble(r -> ...))</pre> when the new value is a {@code double} which should not be
+     * boxed.
+     *
+     * @param f function to apply to the current value to get the new value.
+     * @return new ObjDoubleTuple with the same left value and the result of applying f to current value.
+     */
+    public ObjDoubleTuple<L> mapToDouble(ToDoubleFunction<R> f) {
+        return new ObjDoubleTuple<>(left, f.applyAsDouble(right));
+    }
+
+    /**
+     * for <pre>.map(st -> st.mapToDouble((l, r) -> ...))</pre> when the new value is a {@code double} which should
+     * not be boxed.
+     */
+    public ObjDoubleTuple<L> mapToDouble(ToDoubleBiFunction<L, R> f) {
+        return new ObjDoubleTuple<>(left, f.applyAsDouble(left, right));
+    }
+
     /**
      * for <pre>.filter(st -> st.filter(r -> ...))</pre>
      */
@@ -147,7 +222,9 @@ public class StreamTuple<L, R> implements Comparable<StreamTuple<L, R>> {
 
     /**
      * Make StreamTuples comparable.  The right value is considered first, and then the key.
-     * It is not required that they are comparable so this may fail with a ClassCastException.
+     * It is not required that they are comparable so this may fail with a ClassCastException.  Use
+     * {@link StreamTuples#byRightThenLeft(java.util.Comparator, java.util.Comparator)} or one of the other comparator factories to sort
+     * with type checked comparators instead.
      *
      * @noinspection unchecked
      */
@@ -168,12 +245,22 @@ public class StreamTuple<L, R> implements Comparable<StreamTuple<L, R>> {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         StreamTuple<?, ?> that = (StreamTuple<?, ?>) o;
-        return Objects.equals(left, that.left) &&
-                Objects.equals(right, that.right);
+        if (hash != 0 && that.hash != 0 && hash != that.hash) return false;
+        return left.equals(that.left) && right.equals(that.right);
     }
 
+    /**
+     * Same value as {@code Objects.hash(left, right)} but without allocating the varargs array, and cached as the
+     * tuple is immutable.  Like any hash key the left and right values must not change their own hash code while
+     * in the tuple.
+     */
     @Override
     public int hashCode() {
-        return Objects.hash(left, right);
+        int h = hash;
+        if (h == 0) {
+            h = 31 * (31 + left.hashCode()) + right.hashCode();
+            hash = h;
+        }
+        return h;
     }
 }
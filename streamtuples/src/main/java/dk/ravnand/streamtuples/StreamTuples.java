@@ -1,7 +1,18 @@
 package dk.ravnand.streamtuples;
 
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.LongFunction;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class StreamTuples {
     /**
@@ -27,4 +38,158 @@ public class StreamTuples {
     public static <I> Stream<StreamTuple<I, I>> streamOf(I... items) {
         return Arrays.stream(items).map(StreamTuples::of);
     }
+
+    /**
+     * Create a {@link TupleStream} of the items, which fuses the following steps instead of creating a new tuple
+     * in each of them.  This is the fused version of {@link #streamOf(Object[])}.
+     *
+     * @param items what to return a TupleStream for.
+     * @param <I>   type of item
+     * @return TupleStream with each item as both left and right value.
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs") // the array is only read by the stream
+    public static <I> TupleStream<I, I> tupleStreamOf(I... items) {
+        return TupleStream.of(Arrays.stream(items));
+    }
+
+    /**
+     * Create stream of tuples with the unboxed int keys as left value and the result of looking them up as right
+     * value.  Typically used as {@code StreamTuples.streamOf(IntStream.of(ids), id -> lookup(id))}.
+     *
+     * @param keys the keys to look up.
+     * @param f    function giving the initial right value for a key.
+     * @param <R>  type of right value
+     * @return stream of IntObjTuples for the keys.
+     */
+    public static <R> Stream<IntObjTuple<R>> streamOf(IntStream keys, IntFunction<R> f) {
+        return keys.mapToObj(key -> new IntObjTuple<>(key, f.apply(key)));
+    }
+
+    /**
+     * Create stream of tuples with the unboxed long keys as left value and the result of looking them up as right
+     * value.
+     *
+     * @param keys the keys to look up.
+     * @param f    function giving the initial right value for a key.
+     * @param <R>  type of right value
+     * @return stream of LongObjTuples for the keys.
+     */
+    public static <R> Stream<LongObjTuple<R>> streamOf(LongStream keys, LongFunction<R> f) {
+        return keys.mapToObj(key -> new LongObjTuple<>(key, f.apply(key)));
+    }
+
+    /**
+     * Terminal operation collecting the stream into a map from left to right value, presized when the stream
+     * knows its size (like {@link #streamOf(Object[])} does).  Parallel streams are collected into a single
+     * ConcurrentHashMap shared by all workers instead of merging a map per worker.
+     *
+     * @param tuples stream to collect.
+     * @return map from left to right value.
+     * @throws IllegalStateException if a left value occurs more than once.
+     * @throws NullPointerException  if a left or right value is null.
+     */
+    public static <L, R> Map<L, R> toMap(Stream<StreamTuple<L, R>> tuples) {
+        Spliterator<StreamTuple<L, R>> spliterator = tuples.spliterator();
+        long size = spliterator.getExactSizeIfKnown();
+        if (tuples.isParallel()) {
+            return StreamSupport.stream(spliterator, true).collect(TupleCollectors.toConcurrentMap(size));
+        }
+        Map<L, R> map = new HashMap<>(TupleCollectors.capacityFor(size));
+        spliterator.forEachRemaining(t -> TupleCollectors.putUnique(map, t.left(), t.right()));
+        return map;
+    }
+
+    /**
+     * Comparator ordering tuples by right value and then by left value, like {@link StreamTuple#compareTo} but with
+     * the given comparators instead of casting the values to Comparable.  For
+     * {@code .sorted(StreamTuples.byRightThenLeft(String.CASE_INSENSITIVE_ORDER, Comparator.naturalOrder()))}.
+     *
+     * @param rightComparator comparator for the right values.
+     * @param leftComparator  comparator for the left values, used when the right values are equal.
+     */
+    public static <L, R> Comparator<StreamTuple<L, R>> byRightThenLeft(Comparator<? super R> rightComparator,
+                                                                       Comparator<? super L> leftComparator) {
+        Objects.requireNonNull(rightComparator, "rightComparator");
+        Objects.requireNonNull(leftComparator, "leftComparator");
+        return (a, b) -> {
+            int i = rightComparator.compare(a.right(), b.right());
+            return i != 0 ? i : leftComparator.compare(a.left(), b.left());
+        };
+    }
+
+    /**
+     * Comparator giving the same order as {@link StreamTuple#compareTo}, checked at compile time that both values
+     * are Comparable.
+     */
+    public static <L extends Comparable<? super L>, R extends Comparable<? super R>>
+    Comparator<StreamTuple<L, R>> byRightThenLeft() {
+        return (a, b) -> {
+            int i = a.right().compareTo(b.right());
+            return i != 0 ? i : a.left().compareTo(b.left());
+        };
+    }
+
+    /**
+     * Comparator ordering tuples by left value only.
+     */
+    public static <L, R> Comparator<StreamTuple<L, R>> byLeft(Comparator<? super L> leftComparator) {
+        Objects.requireNonNull(leftComparator, "leftComparator");
+        return (a, b) -> leftComparator.compare(a.left(), b.left());
+    }
+
+    /**
+     * Comparator ordering tuples by the natural order of the left value only.
+     */
+    public static <L extends Comparable<? super L>, R> Comparator<StreamTuple<L, R>> byLeft() {
+        return (a, b) -> a.left().compareTo(b.left());
+    }
+
+    /**
+     * Comparator ordering tuples by right value only.
+     */
+    public static <L, R> Comparator<StreamTuple<L, R>> byRight(Comparator<? super R> rightComparator) {
+        Objects.requireNonNull(rightComparator, "rightComparator");
+        return (a, b) -> rightComparator.compare(a.right(), b.right());
+    }
+
+    /**
+     * Comparator ordering tuples by the natural order of the right value only.
+     */
+    public static <L, R extends Comparable<? super R>> Comparator<StreamTuple<L, R>> byRight() {
+        return (a, b) -> a.right().compareTo(b.right());
+    }
+
+    /**
+     * Triple of the values of the tuple and the result of applying f to the right value, for keeping the right value
+     * when mapping it, like {@code .map(t -> StreamTuples.tripleOf(t, r -> lookup(r)))}.
+     *
+     * @return triple of the left value, the right value and f applied to the right value.
+     */
+    public static <A, B, C> StreamTriple<A, B, C> tripleOf(StreamTuple<A, B> tuple, Function<B, C> f) {
+        return new StreamTriple<>(tuple.left(), tuple.right(), f.apply(tuple.right()));
+    }
+
+    /**
+     * Flatten the nested form of a triple.
+     */
+    public static <A, B, C> StreamTriple<A, B, C> tripleOf(StreamTuple<A, StreamTuple<B, C>> nested) {
+        return new StreamTriple<>(nested.left(), nested.right().left(), nested.right().right());
+    }
+
+    /**
+     * Quad of the values of the triple and the result of applying f to the third value.
+     */
+    public static <A, B, C, D> StreamQuad<A, B, C, D> quadOf(StreamTriple<A, B, C> triple, Function<C, D> f) {
+        return triple.push(f);
+    }
+
+    /**
+     * Flatten the nested form of a quad.
+     */
+    public static <A, B, C, D> StreamQuad<A, B, C, D> quadOf(
+            StreamTuple<A, StreamTuple<B, StreamTuple<C, D>>> nested) {
+        StreamTuple<C, D> last = nested.right().right();
+        return new StreamQuad<>(nested.left(), nested.right().left(), last.left(), last.right());
+    }
 }
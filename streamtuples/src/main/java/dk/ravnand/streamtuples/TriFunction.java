@@ -0,0 +1,9 @@
+package dk.ravnand.streamtuples;
+
+/**
+ * Function of the three values of a {@link StreamTriple}.
+ */
+@FunctionalInterface
+public interface TriFunction<A, B, C, U> {
+    U apply(A first, B second, C third);
+}
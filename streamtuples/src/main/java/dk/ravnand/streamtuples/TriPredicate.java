@@ -0,0 +1,9 @@
+package dk.ravnand.streamtuples;
+
+/**
+ * Predicate of the three values of a {@link StreamTriple}.
+ */
+@FunctionalInterface
+public interface TriPredicate<A, B, C> {
+    boolean test(A first, B second, C third);
+}
@@ -0,0 +1,480 @@
+package dk.ravnand.streamtuples;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * <p>Compact growable collection of tuples, storing the left values and the right values in two parallel columns
+ * instead of a tuple object per element.  A column holding only Integer, Long or Double values is stored as a
+ * primitive {@code int[]}, {@code long[]} or {@code double[]} array, and is changed to an {@code Object[]} column
+ * the first time a value of another type is added.  Collect into one with
+ * {@link TupleCollectors#toTupleBuffer()}:</p>
+ *
+ * <pre>
+ * TupleBuffer&lt;Integer, Double&gt; buffer = StreamTuples.streamOf(ids).map(t -&gt; t.map(id -&gt; price(id)))
+ *         .collect(TupleCollectors.toTupleBuffer());
+ * buffer.sort();
+ * buffer.stream()...
+ * </pre>
+ *
+ * <p>Not thread safe.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public class TupleBuffer<L, R> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private Column lefts;
+    private Column rights;
+    private int size;
+    private int capacity;
+
+    public TupleBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity number of tuples to make room for up front.
+     */
+    public TupleBuffer(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity must not be negative: " + initialCapacity);
+        }
+        this.capacity = initialCapacity;
+    }
+
+    /**
+     * Add a tuple at the end.  Both values must be non-null as for StreamTuple.
+     */
+    public void add(L left, R right) {
+        if (left == null || right == null) {
+            throw new NullPointerException(left == null ? "left" : "right");
+        }
+        if (size == capacity) {
+            grow();
+        }
+        lefts = addTo(lefts, left);
+        rights = addTo(rights, right);
+        size++;
+    }
+
+    /**
+     * Add the values of the tuple at the end.
+     */
+    public void add(StreamTuple<L, R> t) {
+        add(t.left(), t.right());
+    }
+
+    /**
+     * Add all tuples of the other buffer at the end.
+     */
+    public void addAll(TupleBuffer<L, R> other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.left(i), other.right(i));
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the left value of the tuple at the index, boxed if stored in a primitive column.
+     * @noinspection unchecked
+     */
+    public L left(int index) {
+        checkIndex(index);
+        return (L) lefts.get(index);
+    }
+
+    /**
+     * @return the right value of the tuple at the index, boxed if stored in a primitive column.
+     * @noinspection unchecked
+     */
+    public R right(int index) {
+        checkIndex(index);
+        return (R) rights.get(index);
+    }
+
+    /**
+     * @return a new StreamTuple with the values at the index.
+     */
+    public StreamTuple<L, R> get(int index) {
+        return new StreamTuple<>(left(index), right(index));
+    }
+
+    /**
+     * Sort the tuples in place by right value and then left value, which is the order of
+     * {@link StreamTuple#compareTo(StreamTuple)}.  Primitive columns are compared without boxing.
+     *
+     * @throws ClassCastException if values in an Object column are not Comparable.
+     */
+    public void sort() {
+        if (size < 2) {
+            return;
+        }
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        IndexSort.sort(order, size, (i, j) -> {
+            int c = rights.compare(i, j);
+            return c != 0 ? c : lefts.compare(i, j);
+        });
+        lefts.permute(order, size);
+        rights.permute(order, size);
+    }
+
+    /**
+     * Lazy stream of the tuples in the buffer, creating each StreamTuple as it is consumed.  The stream splits
+     * evenly for parallel processing.  The buffer must not be changed while the stream is used.
+     */
+    public Stream<StreamTuple<L, R>> stream() {
+        return IntStream.range(0, size).mapToObj(this::get);
+    }
+
+    /**
+     * Primitive type of the left column ({@code int.class}, {@code long.class} or {@code double.class}), or
+     * {@code Object.class}.
+     */
+    Class<?> leftColumnType() {
+        return lefts == null ? Object.class : lefts.type();
+    }
+
+    /**
+     * Primitive type of the right column, see {@link #leftColumnType()}.
+     */
+    Class<?> rightColumnType() {
+        return rights == null ? Object.class : rights.type();
+    }
+
+    @Override
+    public String toString() {
+        return "TupleBuffer{" +
+                "size=" + size +
+                ", left=" + leftColumnType().getSimpleName() +
+                ", right=" + rightColumnType().getSimpleName() +
+                '}';
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private void grow() {
+        int newCapacity = Math.max(DEFAULT_CAPACITY, capacity + (capacity >> 1));
+        if (newCapacity < 0) {
+            newCapacity = Integer.MAX_VALUE - 8;
+        }
+        if (newCapacity <= capacity) {
+            throw new OutOfMemoryError("TupleBuffer too large");
+        }
+        capacity = newCapacity;
+        if (lefts != null) {
+            lefts.resize(capacity);
+            rights.resize(capacity);
+        }
+    }
+
+    /**
+     * Add the value to the column, first creating it or turning it into an Object column if needed.
+     */
+    private Column addTo(Column column, Object value) {
+        if (column == null) {
+            column = Column.forValue(value, capacity);
+        } else if (!column.accepts(value)) {
+            column = ObjectColumn.copyOf(column, size, capacity);
+        }
+        column.set(size, value);
+        return column;
+    }
+
+    /**
+     * Compares the values at two indexes.
+     */
+    interface IndexComparator {
+        int compare(int i, int j);
+    }
+
+    /**
+     * Stable merge sort of an int array of indexes, so the comparisons need not box the indexes.
+     */
+    static class IndexSort {
+        private static final int INSERTION_SORT_THRESHOLD = 16;
+
+        static void sort(int[] a, int n, IndexComparator c) {
+            int[] work = new int[n];
+            mergeSort(a, work, 0, n, c);
+        }
+
+        private static void mergeSort(int[] a, int[] work, int from, int to, IndexComparator c) {
+            if (to - from <= INSERTION_SORT_THRESHOLD) {
+                for (int i = from + 1; i < to; i++) {
+                    int x = a[i];
+                    int j = i - 1;
+                    while (j >= from && c.compare(a[j], x) > 0) {
+                        a[j + 1] = a[j];
+                        j--;
+                    }
+                    a[j + 1] = x;
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            mergeSort(a, work, from, mid, c);
+            mergeSort(a, work, mid, to, c);
+            if (c.compare(a[mid - 1], a[mid]) <= 0) {
+                return; // already in order
+            }
+            System.arraycopy(a, from, work, from, to - from);
+            int i = from;
+            int j = mid;
+            for (int k = from; k < to; k++) {
+                if (j >= to || (i < mid && c.compare(work[i], work[j]) <= 0)) {
+                    a[k] = work[i++];
+                } else {
+                    a[k] = work[j++];
+                }
+            }
+        }
+    }
+
+    /**
+     * A column of values.  The TupleBuffer keeps track of the size.
+     */
+    private abstract static class Column {
+
+        static Column forValue(Object value, int capacity) {
+            if (value instanceof Integer) {
+                return new IntColumn(capacity);
+            }
+            if (value instanceof Long) {
+                return new LongColumn(capacity);
+            }
+            if (value instanceof Double) {
+                return new DoubleColumn(capacity);
+            }
+            return new ObjectColumn(capacity);
+        }
+
+        abstract Class<?> type();
+
+        abstract boolean accepts(Object value);
+
+        abstract void set(int index, Object value);
+
+        abstract Object get(int index);
+
+        abstract int compare(int i, int j);
+
+        abstract void resize(int capacity);
+
+        /**
+         * Reorder the first size values so the value at {@code order[k]} ends up at k.
+         */
+        abstract void permute(int[] order, int size);
+    }
+
+    private static class IntColumn extends Column {
+        private int[] values;
+
+        IntColumn(int capacity) {
+            values = new int[capacity];
+        }
+
+        @Override
+        Class<?> type() {
+            return int.class;
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Integer;
+        }
+
+        @Override
+        void set(int index, Object value) {
+            values[index] = (Integer) value;
+        }
+
+        @Override
+        Object get(int index) {
+            return values[index];
+        }
+
+        @Override
+        int compare(int i, int j) {
+            return Integer.compare(values[i], values[j]);
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void permute(int[] order, int size) {
+            int[] sorted = new int[values.length];
+            for (int k = 0; k < size; k++) {
+                sorted[k] = values[order[k]];
+            }
+            values = sorted;
+        }
+    }
+
+    private static class LongColumn extends Column {
+        private long[] values;
+
+        LongColumn(int capacity) {
+            values = new long[capacity];
+        }
+
+        @Override
+        Class<?> type() {
+            return long.class;
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Long;
+        }
+
+        @Override
+        void set(int index, Object value) {
+            values[index] = (Long) value;
+        }
+
+        @Override
+        Object get(int index) {
+            return values[index];
+        }
+
+        @Override
+        int compare(int i, int j) {
+            return Long.compare(values[i], values[j]);
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void permute(int[] order, int size) {
+            long[] sorted = new long[values.length];
+            for (int k = 0; k < size; k++) {
+                sorted[k] = values[order[k]];
+            }
+            values = sorted;
+        }
+    }
+
+    private static class DoubleColumn extends Column {
+        private double[] values;
+
+        DoubleColumn(int capacity) {
+            values = new double[capacity];
+        }
+
+        @Override
+        Class<?> type() {
+            return double.class;
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Double;
+        }
+
+        @Override
+        void set(int index, Object value) {
+            values[index] = (Double) value;
+        }
+
+        @Override
+        Object get(int index) {
+            return values[index];
+        }
+
+        @Override
+        int compare(int i, int j) {
+            return Double.compare(values[i], values[j]); // same order as Double.compareTo
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void permute(int[] order, int size) {
+            double[] sorted = new double[values.length];
+            for (int k = 0; k < size; k++) {
+                sorted[k] = values[order[k]];
+            }
+            values = sorted;
+        }
+    }
+
+    private static class ObjectColumn extends Column {
+        private Object[] values;
+
+        ObjectColumn(int capacity) {
+            values = new Object[capacity];
+        }
+
+        static ObjectColumn copyOf(Column column, int size, int capacity) {
+            ObjectColumn copy = new ObjectColumn(capacity);
+            for (int i = 0; i < size; i++) {
+                copy.values[i] = column.get(i);
+            }
+            return copy;
+        }
+
+        @Override
+        Class<?> type() {
+            return Object.class;
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return true;
+        }
+
+        @Override
+        void set(int index, Object value) {
+            values[index] = value;
+        }
+
+        @Override
+        Object get(int index) {
+            return values[index];
+        }
+
+        /**
+         * @noinspection unchecked
+         */
+        @Override
+        int compare(int i, int j) {
+            return ((Comparable<Object>) values[i]).compareTo(values[j]);
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void permute(int[] order, int size) {
+            Object[] sorted = new Object[values.length];
+            for (int k = 0; k < size; k++) {
+                sorted[k] = values[order[k]];
+            }
+            values = sorted;
+        }
+    }
+}
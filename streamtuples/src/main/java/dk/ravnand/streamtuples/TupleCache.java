@@ -0,0 +1,220 @@
+package dk.ravnand.streamtuples;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>Bounded memoizing cache for expensive right value mappings, used with
+ * {@link StreamTuple#mapCached(Function, TupleCache)} so that repeated keys skip the mapping function.  Keep the
+ * cache around between stream invocations to benefit from it.</p>
+ *
+ * <p>Entries are evicted least recently used first when there are more than {@code maximumSize} of them
+ * (approximately, as the cache is split in independently locked stripes to be usable from parallel streams), and
+ * optionally when they are older than the time to live.  The mapping function is called without holding any lock
+ * so two threads missing the same key at the same time may both call it.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public class TupleCache<K, V> {
+
+    private static final int MAXIMUM_STRIPES = 16;
+    private static final int MINIMUM_ENTRIES_PER_STRIPE = 16;
+
+    private final Stripe<K, V>[] stripes;
+    private final long expireAfterWriteNanos;
+    private final LongSupplier ticker;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Cache evicting by size only.
+     *
+     * @param maximumSize approximate maximum number of entries.
+     */
+    public TupleCache(int maximumSize) {
+        this(maximumSize, Long.MAX_VALUE, System::nanoTime);
+    }
+
+    /**
+     * Cache evicting by size and age.
+     *
+     * @param maximumSize      approximate maximum number of entries.
+     * @param expireAfterWrite how long an entry may be used after it was created.
+     * @param unit             unit of expireAfterWrite
+     */
+    public TupleCache(int maximumSize, long expireAfterWrite, TimeUnit unit) {
+        this(maximumSize, unit.toNanos(expireAfterWrite), System::nanoTime);
+    }
+
+    /**
+     * @param ticker source of nanosecond time stamps, replaceable for tests.
+     * @noinspection unchecked
+     */
+    TupleCache(int maximumSize, long expireAfterWriteNanos, LongSupplier ticker) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+        }
+        if (expireAfterWriteNanos < 0) {
+            throw new IllegalArgumentException("expireAfterWrite must not be negative: " + expireAfterWriteNanos);
+        }
+        this.expireAfterWriteNanos = expireAfterWriteNanos;
+        this.ticker = ticker;
+
+        int stripeCount = Integer.highestOneBit(
+                Math.max(1, Math.min(MAXIMUM_STRIPES, maximumSize / MINIMUM_ENTRIES_PER_STRIPE)));
+        int entriesPerStripe = (maximumSize + stripeCount - 1) / stripeCount;
+        @SuppressWarnings("unchecked")
+        Stripe<K, V>[] newStripes = (Stripe<K, V>[]) new Stripe<?, ?>[stripeCount];
+        stripes = newStripes;
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe<>(entriesPerStripe, evictions);
+        }
+    }
+
+    /**
+     * Get the cached value for the key, calling the mapping function to get it if not present or expired.  Null
+     * results are not cached.
+     */
+    public V get(K key, Function<K, V> mappingFunction) {
+        Stripe<K, V> stripe = stripeFor(key);
+        synchronized (stripe) {
+            Timestamped<V> entry = stripe.get(key);
+            if (entry != null) {
+                if (!isExpired(entry)) {
+                    hits.increment();
+                    return entry.value;
+                }
+                stripe.remove(key);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        V value = mappingFunction.apply(key);
+        if (value != null) {
+            Timestamped<V> entry = new Timestamped<>(value, ticker.getAsLong());
+            synchronized (stripe) {
+                stripe.put(key, entry);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Get the cached value for the key without calling any mapping function or updating the counters.
+     *
+     * @return the cached value, or null if not present or expired.
+     */
+    public V getIfPresent(K key) {
+        Stripe<K, V> stripe = stripeFor(key);
+        synchronized (stripe) {
+            Timestamped<V> entry = stripe.get(key);
+            return entry == null || isExpired(entry) ? null : entry.value;
+        }
+    }
+
+    /**
+     * Remove all entries.  The counters are kept.
+     */
+    public void invalidateAll() {
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    /**
+     * Number of entries currently held, including expired entries not yet evicted.
+     */
+    public long size() {
+        long size = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Number of lookups answered from the cache.
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Number of lookups which had to call the mapping function.
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Number of entries removed because the cache was full or the entry had expired.
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "TupleCache{" +
+                "size=" + size() +
+                ", hits=" + hitCount() +
+                ", misses=" + missCount() +
+                ", evictions=" + evictionCount() +
+                '}';
+    }
+
+    private boolean isExpired(Timestamped<V> entry) {
+        return expireAfterWriteNanos != Long.MAX_VALUE && ticker.getAsLong() - entry.writtenAt >= expireAfterWriteNanos;
+    }
+
+    private Stripe<K, V> stripeFor(K key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return stripes[h & (stripes.length - 1)];
+    }
+
+    private static class Timestamped<V> {
+        final V value;
+        final long writtenAt;
+
+        Timestamped(V value, long writtenAt) {
+            this.value = value;
+            this.writtenAt = writtenAt;
+        }
+    }
+
+    /**
+     * Access ordered LinkedHashMap dropping the least recently used entry when full.  Guarded by its own monitor.
+     */
+    private static class Stripe<K, V> extends LinkedHashMap<K, Timestamped<V>> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maximumSize;
+        private final LongAdder evictions;
+
+        Stripe(int maximumSize, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Timestamped<V>> eldest) {
+            if (size() > maximumSize) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
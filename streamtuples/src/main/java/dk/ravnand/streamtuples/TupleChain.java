@@ -0,0 +1,177 @@
+package dk.ravnand.streamtuples;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * <p>The values saved at each step of a stream, newest first, for when more than the one saved value of a
+ * {@link StreamTuple} is needed later.  Each step pushes a node holding the new value onto the chain of the previous
+ * step, which is shared and not copied:</p>
+ *
+ * <pre>
+ * Stream.of(id1, id2)
+ *       .map(TupleChain::of)                        // TupleChain&lt;Integer, Void&gt;
+ *       .map(c -&gt; c.map(id -&gt; lookupName(id)))      // TupleChain&lt;String, TupleChain&lt;Integer, Void&gt;&gt;
+ *       .map(c -&gt; c.map(name -&gt; name.length()))     // TupleChain&lt;Integer, TupleChain&lt;String, ...&gt;&gt;
+ *       .forEach(c -&gt; System.out.println(c.previous().previous().head() + " " + c.head()));
+ * </pre>
+ *
+ * <p>The type of the previous chain is the second type parameter, so the earlier values are typed when reached
+ * through {@link #previous()}.  The first node has {@code Void} there and a null previous chain.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public final class TupleChain<T, P> {
+
+    private final T head;
+    private final P previous;
+    private final int size;
+
+    private TupleChain(T head, P previous, int size) {
+        this.head = Objects.requireNonNull(head, "head");
+        this.previous = previous;
+        this.size = size;
+    }
+
+    /**
+     * Chain of the single value, suitable for {@code .map(TupleChain::of)}.
+     */
+    public static <T> TupleChain<T, Void> of(T first) {
+        return new TupleChain<>(first, null, 1);
+    }
+
+    /**
+     * Chain of the left value followed by the right value.
+     */
+    public static <L, R> TupleChain<R, TupleChain<L, Void>> of(StreamTuple<L, R> tuple) {
+        return of(tuple.left()).push(tuple.right());
+    }
+
+    /**
+     * The newest value.
+     */
+    public T head() {
+        return head;
+    }
+
+    /**
+     * The chain before the newest value was pushed, or null for the first value.
+     */
+    public P previous() {
+        return previous;
+    }
+
+    /**
+     * Number of values in the chain.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * New chain with the value as the newest, sharing this chain as its previous.
+     */
+    public <U> TupleChain<U, TupleChain<T, P>> push(U value) {
+        return new TupleChain<>(value, this, size + 1);
+    }
+
+    /**
+     * for <pre>.map(c -> c.map(v -> ...))</pre>, pushing the result of applying f to the newest value and keeping
+     * the newest value in the chain.
+     */
+    public <U> TupleChain<U, TupleChain<T, P>> map(Function<T, U> f) {
+        return push(f.apply(head));
+    }
+
+    /**
+     * New chain with the newest value replaced, sharing the previous chain.
+     */
+    public <U> TupleChain<U, P> replace(U value) {
+        return new TupleChain<>(value, previous, size);
+    }
+
+    /**
+     * for <pre>.filter(c -> c.filter(v -> ...))</pre>
+     */
+    public boolean filter(Predicate<T> predicate) {
+        return predicate.test(head);
+    }
+
+    /**
+     * for <pre>.flatMap(c -> c.flatMap(v -> ...))</pre>, pushing each value of the stream onto this chain.
+     */
+    public <U> Stream<TupleChain<U, TupleChain<T, P>>> flatMap(Function<T, Stream<U>> f) {
+        return f.apply(head).map(this::push);
+    }
+
+    /**
+     * The value the given number of steps back, unchecked, for deep chains where {@link #previous()} gets long.
+     *
+     * @param stepsBack 0 for the newest value, {@code size() - 1} for the first.
+     * @throws IndexOutOfBoundsException if there are not that many values.
+     * @noinspection unchecked
+     */
+    public <V> V get(int stepsBack) {
+        if (stepsBack < 0 || stepsBack >= size) {
+            throw new IndexOutOfBoundsException("stepsBack " + stepsBack + " for size " + size);
+        }
+        TupleChain<?, ?> chain = this;
+        for (int i = 0; i < stepsBack; i++) {
+            chain = (TupleChain<?, ?>) chain.previous;
+        }
+        return (V) chain.head;
+    }
+
+    /**
+     * The values, first pushed first.
+     */
+    public List<Object> toList() {
+        List<Object> values = new ArrayList<>(size);
+        for (TupleChain<?, ?> chain = this; chain != null; chain = (TupleChain<?, ?>) chain.previous) {
+            values.add(chain.head);
+        }
+        Collections.reverse(values);
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return "TupleChain" + toList();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TupleChain<?, ?> a = this;
+        TupleChain<?, ?> b = (TupleChain<?, ?>) o;
+        if (a.size != b.size) return false;
+        while (a != null) {
+            if (a == b) return true; // shared tail
+            if (!a.head.equals(b.head)) return false;
+            a = (TupleChain<?, ?>) a.previous;
+            b = (TupleChain<?, ?>) b.previous;
+        }
+        return true;
+    }
+
+    /**
+     * Same value as {@code toList().hashCode()}, without creating the list.
+     */
+    @Override
+    public int hashCode() {
+        // toList() is oldest first, so the newest value is the one multiplied by 31 the fewest times
+        int h = 0;
+        int multiplier = 1;
+        for (TupleChain<?, ?> chain = this; chain != null; chain = (TupleChain<?, ?>) chain.previous) {
+            h += multiplier * chain.head.hashCode();
+            multiplier *= 31;
+        }
+        return h + multiplier; // the initial 1 of List.hashCode multiplied 31 once per value
+    }
+}
@@ -0,0 +1,262 @@
+package dk.ravnand.streamtuples;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>Reads the frames written by {@link TupleChannelWriter} back as a lazy stream of tuples.  Files are memory
+ * mapped and the codec decodes each tuple directly from the mapped buffer, and ByteBuffers are decoded in place,
+ * so the frames are not copied to byte arrays on the way.</p>
+ *
+ * <pre>
+ * try (Stream&lt;StreamTuple&lt;Integer, String&gt;&gt; tuples = TupleChannelReader.stream(path, codec)) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * <p>Closing the stream closes the channel.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public class TupleChannelReader {
+
+    /**
+     * Largest part of a file mapped at a time.
+     */
+    static final int WINDOW_SIZE = 1 << 30;
+
+    /**
+     * Stream the tuples in the file.
+     */
+    public static <L, R> Stream<StreamTuple<L, R>> stream(Path file, TupleCodec<StreamTuple<L, R>> codec) {
+        try {
+            return stream(FileChannel.open(file, StandardOpenOption.READ), codec);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stream the tuples from the position of the file channel to the end of the file, through memory mapped
+     * buffers.
+     */
+    public static <L, R> Stream<StreamTuple<L, R>> stream(FileChannel channel, TupleCodec<StreamTuple<L, R>> codec) {
+        return stream(new MappedSource(channel), codec);
+    }
+
+    /**
+     * Stream the tuples from a channel which cannot be mapped, like a pipe or a socket, reading through a direct
+     * buffer.
+     */
+    public static <L, R> Stream<StreamTuple<L, R>> stream(ReadableByteChannel channel,
+                                                          TupleCodec<StreamTuple<L, R>> codec) {
+        if (channel instanceof FileChannel) {
+            return stream((FileChannel) channel, codec);
+        }
+        return stream(new ChannelSource(channel), codec);
+    }
+
+    /**
+     * Stream the tuples from the position to the limit of the buffer, advancing its position as they are read.
+     */
+    public static <L, R> Stream<StreamTuple<L, R>> stream(ByteBuffer buffer, TupleCodec<StreamTuple<L, R>> codec) {
+        return stream(new BufferSource(buffer), codec);
+    }
+
+    private static <L, R> Stream<StreamTuple<L, R>> stream(Source source, TupleCodec<StreamTuple<L, R>> codec) {
+        Objects.requireNonNull(codec, "codec");
+        return StreamSupport.stream(new FrameSpliterator<>(source, codec), false).onClose(source::close);
+    }
+
+    /**
+     * Where the frames come from.  {@link #buffer} holds the bytes from the current position on.
+     */
+    private abstract static class Source implements Closeable {
+        ByteBuffer buffer;
+
+        /**
+         * Make sure at least n bytes are available in the buffer from its position.
+         *
+         * @return false if the end was reached exactly at the position.
+         * @throws UncheckedIOException with an EOFException if the end was reached within the n bytes.
+         */
+        abstract boolean ensure(int n);
+
+        @Override
+        public void close() {
+        }
+
+        static UncheckedIOException truncated() {
+            return new UncheckedIOException(new EOFException("Truncated tuple frame"));
+        }
+    }
+
+    private static class BufferSource extends Source {
+        BufferSource(ByteBuffer buffer) {
+            this.buffer = Objects.requireNonNull(buffer, "buffer");
+        }
+
+        @Override
+        boolean ensure(int n) {
+            if (buffer.remaining() >= n) {
+                return true;
+            }
+            if (buffer.hasRemaining()) {
+                throw truncated();
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Maps a window of the file at a time, moving it forward when a frame is not fully inside it.
+     */
+    private static class MappedSource extends Source {
+        private final FileChannel channel;
+        private long windowStart;
+
+        MappedSource(FileChannel channel) {
+            this.channel = Objects.requireNonNull(channel, "channel");
+            try {
+                windowStart = channel.position();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer = ByteBuffer.allocate(0);
+        }
+
+        @Override
+        boolean ensure(int n) {
+            if (buffer.remaining() >= n) {
+                return true;
+            }
+            try {
+                long position = windowStart + buffer.position();
+                long size = channel.size();
+                if (position == size) {
+                    return false;
+                }
+                if (size - position < n) {
+                    throw truncated();
+                }
+                windowStart = position;
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(size - position, Math.max(n, WINDOW_SIZE)));
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Reads from the channel into a direct buffer, growing it for frames larger than the buffer.
+     */
+    private static class ChannelSource extends Source {
+        private final ReadableByteChannel channel;
+
+        ChannelSource(ReadableByteChannel channel) {
+            this.channel = Objects.requireNonNull(channel, "channel");
+            buffer = ByteBuffer.allocateDirect(TupleChannelWriter.DEFAULT_BUFFER_SIZE);
+            buffer.flip();
+        }
+
+        @Override
+        boolean ensure(int n) {
+            if (buffer.remaining() >= n) {
+                return true;
+            }
+            if (buffer.capacity() < n) {
+                buffer = ByteBuffer.allocateDirect(n).put(buffer);
+            } else {
+                buffer.compact();
+            }
+            try {
+                while (buffer.position() < n) {
+                    if (channel.read(buffer) < 0) {
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                buffer.flip();
+            }
+            if (buffer.remaining() >= n) {
+                return true;
+            }
+            if (buffer.hasRemaining()) {
+                throw truncated();
+            }
+            return false;
+        }
+
+        @Override
+        public void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static class FrameSpliterator<L, R> extends Spliterators.AbstractSpliterator<StreamTuple<L, R>> {
+        private final Source source;
+        private final TupleCodec<StreamTuple<L, R>> codec;
+
+        FrameSpliterator(Source source, TupleCodec<StreamTuple<L, R>> codec) {
+            super(Long.MAX_VALUE, ORDERED | NONNULL);
+            this.source = source;
+            this.codec = codec;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super StreamTuple<L, R>> action) {
+            if (!source.ensure(Integer.BYTES)) {
+                return false;
+            }
+            int size = source.buffer.getInt(source.buffer.position());
+            if (size < 0) {
+                throw new IllegalStateException("Negative tuple frame size " + size);
+            }
+            if (!source.ensure(Integer.BYTES + size)) {
+                throw Source.truncated();
+            }
+            ByteBuffer buffer = source.buffer;
+            int end = buffer.position() + Integer.BYTES + size;
+            int limit = buffer.limit();
+            buffer.position(buffer.position() + Integer.BYTES);
+            buffer.limit(end); // the codec cannot read past the frame
+            StreamTuple<L, R> t = codec.decode(buffer);
+            if (buffer.position() != end) {
+                throw new IllegalStateException("Codec read " + (buffer.position() - end + size)
+                        + " bytes of a frame of " + size);
+            }
+            buffer.limit(limit);
+            action.accept(t);
+            return true;
+        }
+    }
+}
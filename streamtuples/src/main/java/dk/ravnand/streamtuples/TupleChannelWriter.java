@@ -0,0 +1,127 @@
+package dk.ravnand.streamtuples;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * <p>Writes tuples to a channel as frames of a 4 byte length followed by the tuple encoded by a {@link TupleCodec},
+ * to be read back with {@link TupleChannelReader}.  The tuples are encoded directly into a reused direct buffer
+ * which is written to the channel when full.</p>
+ *
+ * <pre>
+ * try (TupleChannelWriter&lt;Integer, String&gt; writer = TupleChannelWriter.open(path, codec)) {
+ *     writer.writeAll(tuples);
+ * }
+ * </pre>
+ *
+ * <p>Not thread safe.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public class TupleChannelWriter<L, R> implements Closeable {
+
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private final TupleCodec<StreamTuple<L, R>> codec;
+    private ByteBuffer buffer;
+
+    /**
+     * @param channel where to write the frames.  Closed when the writer is closed.
+     * @param codec   encodes the tuples.
+     */
+    public TupleChannelWriter(WritableByteChannel channel, TupleCodec<StreamTuple<L, R>> codec) {
+        this.channel = Objects.requireNonNull(channel, "channel");
+        this.codec = Objects.requireNonNull(codec, "codec");
+        this.buffer = ByteBuffer.allocateDirect(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Writer to a new file, or a truncated existing file.
+     */
+    public static <L, R> TupleChannelWriter<L, R> open(Path file, TupleCodec<StreamTuple<L, R>> codec) {
+        try {
+            return new TupleChannelWriter<>(FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), codec);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write a frame with the tuple.
+     *
+     * @throws IllegalStateException if the codec does not write the number of bytes it said it would.
+     */
+    public void write(StreamTuple<L, R> t) {
+        int size = codec.encodedSize(t);
+        int frameSize = Integer.BYTES + size;
+        if (buffer.remaining() < frameSize) {
+            flush();
+            if (buffer.capacity() < frameSize) {
+                buffer = ByteBuffer.allocateDirect(frameSize);
+            }
+        }
+        buffer.putInt(size);
+        int start = buffer.position();
+        codec.encode(t, buffer);
+        if (buffer.position() - start != size) {
+            throw new IllegalStateException("Codec wrote " + (buffer.position() - start) + " bytes for " + t
+                    + " but encodedSize is " + size);
+        }
+    }
+
+    /**
+     * Write a frame for each tuple in the stream.
+     *
+     * @return the number of tuples written.
+     */
+    public long writeAll(Stream<StreamTuple<L, R>> tuples) {
+        long[] count = {0};
+        tuples.sequential().forEachOrdered(t -> {
+            write(t);
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    /**
+     * Write the buffered frames to the channel.
+     */
+    public void flush() {
+        flushTo(channel);
+    }
+
+    private void flushTo(WritableByteChannel target) {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Flush and close the channel.
+     */
+    @Override
+    public void close() {
+        try (WritableByteChannel closing = channel) {
+            flushTo(closing);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package dk.ravnand.streamtuples;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>Writes values to and reads them back from a ByteBuffer, for moving tuples out of the heap.  Combine codecs for
+ * the left and right value with {@link TupleCodecs#tuple(TupleCodec, TupleCodec)}.</p>
+ *
+ * <p>{@link #decode(ByteBuffer)} must read exactly the {@link #encodedSize(Object)} bytes {@link #encode} wrote,
+ * leaving the position after them, so values can be written back to back without any framing.</p>
+ */
+public interface TupleCodec<T> {
+
+    /**
+     * @return the number of bytes encode will write for the value.
+     */
+    int encodedSize(T value);
+
+    /**
+     * Write the value at the position of the buffer, advancing the position by {@link #encodedSize(Object)}.
+     */
+    void encode(T value, ByteBuffer buffer);
+
+    /**
+     * Read a value written by encode at the position of the buffer, advancing the position past it.
+     */
+    T decode(ByteBuffer buffer);
+}
@@ -0,0 +1,206 @@
+package dk.ravnand.streamtuples;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * <p>Ready made {@link TupleCodec}s for primitive wrappers, Strings and tuples of these, nested as deep as needed:</p>
+ *
+ * <pre>
+ * TupleCodec&lt;StreamTuple&lt;Integer, StreamTuple&lt;String, Double&gt;&gt;&gt; codec =
+ *         TupleCodecs.tuple(TupleCodecs.INT, TupleCodecs.tuple(TupleCodecs.STRING, TupleCodecs.DOUBLE));
+ * </pre>
+ *
+ * <p>Numbers are written in the byte order of the buffer, which is big endian unless changed.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public class TupleCodecs {
+
+    /**
+     * Integer as 4 bytes.
+     */
+    public static final TupleCodec<Integer> INT = new TupleCodec<Integer>() {
+        @Override
+        public int encodedSize(Integer value) {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void encode(Integer value, ByteBuffer buffer) {
+            buffer.putInt(value);
+        }
+
+        @Override
+        public Integer decode(ByteBuffer buffer) {
+            return buffer.getInt();
+        }
+    };
+
+    /**
+     * Long as 8 bytes.
+     */
+    public static final TupleCodec<Long> LONG = new TupleCodec<Long>() {
+        @Override
+        public int encodedSize(Long value) {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void encode(Long value, ByteBuffer buffer) {
+            buffer.putLong(value);
+        }
+
+        @Override
+        public Long decode(ByteBuffer buffer) {
+            return buffer.getLong();
+        }
+    };
+
+    /**
+     * Double as 8 bytes.
+     */
+    public static final TupleCodec<Double> DOUBLE = new TupleCodec<Double>() {
+        @Override
+        public int encodedSize(Double value) {
+            return Double.BYTES;
+        }
+
+        @Override
+        public void encode(Double value, ByteBuffer buffer) {
+            buffer.putDouble(value);
+        }
+
+        @Override
+        public Double decode(ByteBuffer buffer) {
+            return buffer.getDouble();
+        }
+    };
+
+    /**
+     * Boolean as 1 byte.
+     */
+    public static final TupleCodec<Boolean> BOOLEAN = new TupleCodec<Boolean>() {
+        @Override
+        public int encodedSize(Boolean value) {
+            return 1;
+        }
+
+        @Override
+        public void encode(Boolean value, ByteBuffer buffer) {
+            buffer.put(value ? (byte) 1 : (byte) 0);
+        }
+
+        @Override
+        public Boolean decode(ByteBuffer buffer) {
+            return buffer.get() != 0;
+        }
+    };
+
+    /**
+     * String as the 4 byte length of the UTF-8 encoding followed by the UTF-8 encoding.  The characters are
+     * encoded directly into the buffer.  Unpaired surrogates are written as '?' like {@link String#getBytes} does.
+     */
+    public static final TupleCodec<String> STRING = new TupleCodec<String>() {
+        @Override
+        public int encodedSize(String value) {
+            return Integer.BYTES + utf8Length(value);
+        }
+
+        @Override
+        public void encode(String value, ByteBuffer buffer) {
+            buffer.putInt(utf8Length(value));
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    buffer.put((byte) c);
+                } else if (c < 0x800) {
+                    buffer.put((byte) (0xc0 | c >> 6));
+                    buffer.put((byte) (0x80 | c & 0x3f));
+                } else if (Character.isSurrogate(c)) {
+                    if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                            && Character.isLowSurrogate(value.charAt(i + 1))) {
+                        int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                        buffer.put((byte) (0xf0 | codePoint >> 18));
+                        buffer.put((byte) (0x80 | codePoint >> 12 & 0x3f));
+                        buffer.put((byte) (0x80 | codePoint >> 6 & 0x3f));
+                        buffer.put((byte) (0x80 | codePoint & 0x3f));
+                    } else {
+                        buffer.put((byte) '?');
+                    }
+                } else {
+                    buffer.put((byte) (0xe0 | c >> 12));
+                    buffer.put((byte) (0x80 | c >> 6 & 0x3f));
+                    buffer.put((byte) (0x80 | c & 0x3f));
+                }
+            }
+        }
+
+        @Override
+        public String decode(ByteBuffer buffer) {
+            int length = buffer.getInt();
+            String s;
+            if (buffer.hasArray()) {
+                s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                        StandardCharsets.UTF_8);
+            } else {
+                byte[] bytes = new byte[length]; // no way to decode a direct buffer without a copy in Java 8
+                buffer.duplicate().get(bytes);
+                s = new String(bytes, StandardCharsets.UTF_8);
+            }
+            buffer.position(buffer.position() + length);
+            return s;
+        }
+    };
+
+    /**
+     * Codec for StreamTuples writing the left value followed by the right value.  Either may be a tuple itself.
+     */
+    public static <L, R> TupleCodec<StreamTuple<L, R>> tuple(TupleCodec<L> leftCodec, TupleCodec<R> rightCodec) {
+        Objects.requireNonNull(leftCodec, "leftCodec");
+        Objects.requireNonNull(rightCodec, "rightCodec");
+        return new TupleCodec<StreamTuple<L, R>>() {
+            @Override
+            public int encodedSize(StreamTuple<L, R> t) {
+                return leftCodec.encodedSize(t.left()) + rightCodec.encodedSize(t.right());
+            }
+
+            @Override
+            public void encode(StreamTuple<L, R> t, ByteBuffer buffer) {
+                leftCodec.encode(t.left(), buffer);
+                rightCodec.encode(t.right(), buffer);
+            }
+
+            @Override
+            public StreamTuple<L, R> decode(ByteBuffer buffer) {
+                L left = leftCodec.decode(buffer);
+                return new StreamTuple<>(left, rightCodec.decode(buffer));
+            }
+        };
+    }
+
+    /**
+     * Number of bytes in the UTF-8 encoding of s, counting unpaired surrogates as one byte.
+     */
+    static int utf8Length(String s) {
+        int length = s.length();
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    length += 1;
+                } else if (Character.isSurrogate(c)) {
+                    if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                            && Character.isLowSurrogate(s.charAt(i + 1))) {
+                        length += 2; // 4 bytes for the two chars
+                        i++;
+                    }
+                } else {
+                    length += 2;
+                }
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,316 @@
+package dk.ravnand.streamtuples;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collector;
+
+/**
+ * <p>Collectors reading {@link StreamTuple#left()} and {@link StreamTuple#right()} directly, for
+ * {@code .collect(TupleCollectors.toMap())} instead of {@code .collect(toMap(t -> t.left(), t -> t.right()))}.</p>
+ *
+ * <p>For parallel streams the concurrent variants accumulate into a single {@link ConcurrentHashMap} shared by all
+ * workers so there is no merge phase at all.  The non-concurrent variants merge the smaller partial result into the
+ * larger one.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public class TupleCollectors {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Collect into a HashMap from left to right value.
+     *
+     * @throws IllegalStateException (when collecting) if a left value occurs more than once.
+     */
+    public static <L, R> Collector<StreamTuple<L, R>, ?, Map<L, R>> toMap() {
+        return toMap(-1);
+    }
+
+    /**
+     * Collect into a HashMap presized for the given number of tuples, like {@link StreamTuples#toMap}
+     * does for streams where the size is known.  Intended for sequential streams as each parallel worker would get a
+     * map of that size.
+     *
+     * @param expectedSize the expected number of tuples, or negative if not known.
+     */
+    public static <L, R> Collector<StreamTuple<L, R>, ?, Map<L, R>> toMap(long expectedSize) {
+        return Collector.of(
+                () -> new HashMap<>(capacityFor(expectedSize)),
+                (Map<L, R> m, StreamTuple<L, R> t) -> putUnique(m, t.left(), t.right()),
+                (m1, m2) -> {
+                    Map<L, R> larger = m1.size() >= m2.size() ? m1 : m2;
+                    Map<L, R> smaller = larger == m1 ? m2 : m1;
+                    smaller.forEach((l, r) -> putUnique(larger, l, r));
+                    return larger;
+                },
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * Collect into a ConcurrentHashMap from left to right value, shared by all workers of a parallel stream.
+     *
+     * @throws IllegalStateException (when collecting) if a left value occurs more than once.
+     */
+    public static <L, R> Collector<StreamTuple<L, R>, ?, ConcurrentMap<L, R>> toConcurrentMap() {
+        return toConcurrentMap(-1);
+    }
+
+    /**
+     * Collect into a ConcurrentHashMap presized for the given number of tuples.
+     *
+     * @param expectedSize the expected number of tuples, or negative if not known.
+     */
+    public static <L, R> Collector<StreamTuple<L, R>, ?, ConcurrentMap<L, R>> toConcurrentMap(long expectedSize) {
+        return Collector.of(
+                () -> new ConcurrentHashMap<>(capacityFor(expectedSize)),
+                (ConcurrentMap<L, R> m, StreamTuple<L, R> t) -> putUnique(m, t.left(), t.right()),
+                (m1, m2) -> {
+                    m2.forEach((l, r) -> putUnique(m1, l, r));
+                    return m1;
+                },
+                Collector.Characteristics.CONCURRENT,
+                Collector.Characteristics.UNORDERED,
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * Collect the right values for each left value, in encounter order.  Equivalent of
+     * {@code groupingBy(t -> t.left(), mapping(t -> t.right(), toList()))}.
+     */
+    public static <L, R> Collector<StreamTuple<L, R>, ?, Map<L, List<R>>> groupingByLeft() {
+        return Collector.of(
+                HashMap::new,
+                (Map<L, List<R>> m, StreamTuple<L, R> t) -> m.computeIfAbsent(t.left(), k -> new ArrayList<>()).add(t.right()),
+                (m1, m2) -> {
+                    m2.forEach((l, rs) -> m1.merge(l, rs, (rs1, rs2) -> {
+                        rs1.addAll(rs2);
+                        return rs1;
+                    }));
+                    return m1;
+                },
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * Collect the right values for each left value into a ConcurrentHashMap shared by all workers of a parallel
+     * stream.  The order of the right values in each list is not defined.
+     */
+    public static <L, R> Collector<StreamTuple<L, R>, ?, ConcurrentMap<L, List<R>>> groupingByLeftConcurrent() {
+        return Collector.of(
+                ConcurrentHashMap::new,
+                (ConcurrentMap<L, List<R>> m, StreamTuple<L, R> t) ->
+                        m.computeIfAbsent(t.left(), k -> Collections.synchronizedList(new ArrayList<>())).add(t.right()),
+                (m1, m2) -> {
+                    m2.forEach((l, rs) -> m1.merge(l, rs, (rs1, rs2) -> {
+                        rs1.addAll(rs2);
+                        return rs1;
+                    }));
+                    return m1;
+                },
+                Collector.Characteristics.CONCURRENT,
+                Collector.Characteristics.UNORDERED,
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * Collect into a {@link TupleBuffer} in encounter order, storing the values in columns instead of a tuple per
+     * element.
+     */
+    public static <L, R> Collector<StreamTuple<L, R>, ?, TupleBuffer<L, R>> toTupleBuffer() {
+        return Collector.of(
+                TupleBuffer::new,
+                TupleBuffer::add,
+                (b1, b2) -> {
+                    b1.addAll(b2);
+                    return b1;
+                },
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * Collect the k greatest tuples by the comparator, greatest first, keeping only k tuples at a time.  Gives the
+     * same list as {@code sorted(comparator.reversed()).limit(k)} (tuples comparing equal come in encounter order)
+     * in O(k) memory and O(n log k) time.
+     *
+     * @throws IllegalArgumentException if k is not positive.
+     */
+    public static <L, R> Collector<StreamTuple<L, R>, ?, List<StreamTuple<L, R>>> topK(
+            int k, Comparator<? super StreamTuple<L, R>> comparator) {
+        // reverseOrder(null) is the reversed natural order, so check before reversing
+        return bottomK(k, Collections.reverseOrder(Objects.requireNonNull(comparator, "comparator")));
+    }
+
+    /**
+     * {@link #topK(int, Comparator)} in the order of {@link StreamTuple#compareTo}, so the right values and then
+     * the left values must be Comparable.
+     */
+    public static <L, R> Collector<StreamTuple<L, R>, ?, List<StreamTuple<L, R>>> topK(int k) {
+        return topK(k, Comparator.naturalOrder());
+    }
+
+    /**
+     * Collect the k least tuples by the comparator, least first, keeping only k tuples at a time.  Gives the same
+     * list as {@code sorted(comparator).limit(k)} in O(k) memory and O(n log k) time.
+     *
+     * @throws IllegalArgumentException if k is not positive.
+     */
+    public static <L, R> Collector<StreamTuple<L, R>, ?, List<StreamTuple<L, R>>> bottomK(
+            int k, Comparator<? super StreamTuple<L, R>> comparator) {
+        checkK(k);
+        Objects.requireNonNull(comparator, "comparator");
+        return Collector.of(
+                () -> new BoundedHeap<StreamTuple<L, R>>(k, comparator),
+                BoundedHeap::add,
+                BoundedHeap::addAll,
+                BoundedHeap::toSortedList);
+    }
+
+    /**
+     * {@link #bottomK(int, Comparator)} in the order of {@link StreamTuple#compareTo}, so {@code sorted().limit(k)}
+     * without sorting everything.
+     */
+    public static <L, R> Collector<StreamTuple<L, R>, ?, List<StreamTuple<L, R>>> bottomK(int k) {
+        return bottomK(k, Comparator.naturalOrder());
+    }
+
+    /**
+     * Collect the k greatest right values by the comparator for each left value, greatest first, keeping only k
+     * values per left value at a time.  Right values comparing equal come in encounter order.
+     *
+     * @throws IllegalArgumentException if k is not positive.
+     */
+    public static <L, R> Collector<StreamTuple<L, R>, ?, Map<L, List<R>>> topKPerLeft(
+            int k, Comparator<? super R> comparator) {
+        checkK(k);
+        Comparator<? super R> reversed = Collections.reverseOrder(Objects.requireNonNull(comparator, "comparator"));
+        return Collector.of(
+                HashMap::new,
+                (Map<L, BoundedHeap<R>> m, StreamTuple<L, R> t) ->
+                        m.computeIfAbsent(t.left(), l -> new BoundedHeap<>(k, reversed)).add(t.right()),
+                (m1, m2) -> {
+                    m2.forEach((l, heap) -> m1.merge(l, heap, BoundedHeap::addAll));
+                    return m1;
+                },
+                m -> {
+                    Map<L, List<R>> result = new HashMap<>(capacityFor(m.size()));
+                    m.forEach((l, heap) -> result.put(l, heap.toSortedList()));
+                    return result;
+                });
+    }
+
+    /**
+     * {@link #topKPerLeft(int, Comparator)} by the natural order of the right values.
+     */
+    public static <L, R extends Comparable<? super R>> Collector<StreamTuple<L, R>, ?, Map<L, List<R>>> topKPerLeft(
+            int k) {
+        return topKPerLeft(k, Comparator.naturalOrder());
+    }
+
+    private static void checkK(int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+    }
+
+    /**
+     * The k least values seen, in a heap with the greatest on top so it can be replaced by a lesser value.  Values
+     * comparing equal are ordered by the sequence number given as they are added, so a later value never replaces
+     * an equal earlier one, as a stable sort would have it.
+     */
+    static class BoundedHeap<T> {
+        private final int k;
+        private final Comparator<? super T> comparator;
+        private final PriorityQueue<Entry<T>> heap;
+        private long count;
+
+        BoundedHeap(int k, Comparator<? super T> comparator) {
+            this.k = k;
+            this.comparator = comparator;
+            this.heap = new PriorityQueue<>(Math.min(k, DEFAULT_CAPACITY), this::compareReversed);
+        }
+
+        private int compare(Entry<T> a, Entry<T> b) {
+            int i = comparator.compare(a.value, b.value);
+            return i != 0 ? i : Long.compare(a.sequence, b.sequence);
+        }
+
+        private int compareReversed(Entry<T> a, Entry<T> b) {
+            return compare(b, a);
+        }
+
+        void add(T value) {
+            add(value, count++);
+        }
+
+        private void add(T value, long sequence) {
+            Entry<T> entry = new Entry<>(value, sequence);
+            if (heap.size() < k) {
+                heap.add(entry);
+            } else if (compare(entry, heap.peek()) < 0) {
+                // the sequence numbers decide between equal values, as entries from a later heap come in any order
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+
+        /**
+         * Add the values of a heap which saw its values after the values this one saw.
+         */
+        BoundedHeap<T> addAll(BoundedHeap<T> later) {
+            for (Entry<T> e : later.heap) {
+                add(e.value, count + e.sequence);
+            }
+            count += later.count;
+            return this;
+        }
+
+        List<T> toSortedList() {
+            List<Entry<T>> entries = new ArrayList<>(heap);
+            entries.sort(this::compare);
+            List<T> values = new ArrayList<>(entries.size());
+            for (Entry<T> e : entries) {
+                values.add(e.value);
+            }
+            return values;
+        }
+
+        private static class Entry<T> {
+            final T value;
+            final long sequence;
+
+            Entry(T value, long sequence) {
+                this.value = value;
+                this.sequence = sequence;
+            }
+        }
+    }
+
+    static int capacityFor(long expectedSize) {
+        return expectedSize < 0 || expectedSize > (1 << 29) ? DEFAULT_CAPACITY : (int) (expectedSize / 0.75f) + 1;
+    }
+
+    /**
+     * Put the value in the map, the same way for HashMap and ConcurrentHashMap, so sequential and parallel streams
+     * fail alike on nulls and duplicates.
+     */
+    static <L, R> void putUnique(Map<L, R> map, L left, R right) {
+        Objects.requireNonNull(left, "null left value");
+        if (right == null) {
+            throw new NullPointerException("null right value for left value " + left);
+        }
+        R old = map.putIfAbsent(left, right);
+        if (old != null) {
+            throw new IllegalStateException(String.format(
+                    "Duplicate key %s (attempted merging values %s and %s)", left, old, right));
+        }
+    }
+}
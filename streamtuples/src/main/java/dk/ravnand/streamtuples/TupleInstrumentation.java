@@ -0,0 +1,541 @@
+package dk.ravnand.streamtuples;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * <p>Opt-in per stage statistics for the functions given to the tuple methods, to find the slow stage of a
+ * pipeline.  Wrap a function with the name of its stage:</p>
+ *
+ * <pre>
+ * Function&lt;String, Integer&gt; parse = TupleInstrumentation.map("parse", s -&gt; Integer.parseInt(s));
+ * Predicate&lt;Integer&gt; positive = TupleInstrumentation.filter("positive", i -&gt; i &gt; 0);
+ *
+ * stream.map(t -&gt; t.map(parse))
+ *       .filter(t -&gt; t.filter(positive))
+ * </pre>
+ *
+ * <p>The wrappers count invocations, count passed and rejected values for filters, count the values emitted by
+ * flatMaps, and time a random sample of one in 16 invocations into a latency histogram.  The statistics are kept
+ * per stage name, shared by all functions wrapped with the same name, and can be read with
+ * {@link #snapshot(String)} or through the {@code dk.ravnand.streamtuples:type=Stage,name=...} MXBeans on the
+ * platform MBean server.</p>
+ *
+ * <p>Instrumentation is disabled unless the {@code dk.ravnand.streamtuples.instrumentation} system property is
+ * {@code true} or {@link #setEnabled(boolean)} is called.  When disabled the wrappers return the function given, so
+ * there is no cost once the pipeline is built.  The setting is read when wrapping, so wrap the functions once like
+ * above and not inside the lambdas given to the stream.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public class TupleInstrumentation {
+
+    /**
+     * System property enabling instrumentation at startup.
+     */
+    public static final String ENABLED_PROPERTY = "dk.ravnand.streamtuples.instrumentation";
+
+    static final String OBJECT_NAME_DOMAIN = "dk.ravnand.streamtuples";
+
+    private static volatile boolean enabled = Boolean.getBoolean(ENABLED_PROPERTY);
+
+    /**
+     * One in this many invocations is timed, as reading the clock costs more than many stage functions.  A power of
+     * two.
+     */
+    static final int SAMPLE_INTERVAL = 16;
+
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private static final ConcurrentMap<String, Stage> stages = new ConcurrentHashMap<>();
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enable or disable instrumentation of the functions wrapped from now on.
+     */
+    public static void setEnabled(boolean enabled) {
+        TupleInstrumentation.enabled = enabled;
+    }
+
+    /**
+     * Instrumented function for {@link StreamTuple#map(Function)}.
+     */
+    public static <R, U> Function<R, U> map(String stage, Function<R, U> f) {
+        Objects.requireNonNull(f, "f");
+        if (!enabled) {
+            return f;
+        }
+        Stage s = stage(stage);
+        return r -> {
+            long start = s.start();
+            U u = f.apply(r);
+            s.invoked(start);
+            return u;
+        };
+    }
+
+    /**
+     * Instrumented function for {@link StreamTuple#map(BiFunction)}.
+     */
+    public static <L, R, U> BiFunction<L, R, U> map(String stage, BiFunction<L, R, U> f) {
+        Objects.requireNonNull(f, "f");
+        if (!enabled) {
+            return f;
+        }
+        Stage s = stage(stage);
+        return (l, r) -> {
+            long start = s.start();
+            U u = f.apply(l, r);
+            s.invoked(start);
+            return u;
+        };
+    }
+
+    /**
+     * Instrumented predicate for {@link StreamTuple#filter(Predicate)}.
+     */
+    public static <R> Predicate<R> filter(String stage, Predicate<R> predicate) {
+        Objects.requireNonNull(predicate, "predicate");
+        if (!enabled) {
+            return predicate;
+        }
+        Stage s = stage(stage);
+        return r -> {
+            long start = s.start();
+            boolean passed = predicate.test(r);
+            s.invoked(start);
+            s.tested(passed);
+            return passed;
+        };
+    }
+
+    /**
+     * Instrumented predicate for {@link StreamTuple#filter(BiPredicate)}.
+     */
+    public static <L, R> BiPredicate<L, R> filter(String stage, BiPredicate<L, R> predicate) {
+        Objects.requireNonNull(predicate, "predicate");
+        if (!enabled) {
+            return predicate;
+        }
+        Stage s = stage(stage);
+        return (l, r) -> {
+            long start = s.start();
+            boolean passed = predicate.test(l, r);
+            s.invoked(start);
+            s.tested(passed);
+            return passed;
+        };
+    }
+
+    /**
+     * Instrumented function for {@link StreamTuple#flatMap(Function)}.  The time is the time to create the stream,
+     * and the values are counted as they are consumed.
+     */
+    public static <R, U> Function<R, Stream<U>> flatMap(String stage, Function<R, Stream<U>> f) {
+        Objects.requireNonNull(f, "f");
+        if (!enabled) {
+            return f;
+        }
+        Stage s = stage(stage);
+        return r -> {
+            long start = s.start();
+            Stream<U> stream = f.apply(r);
+            s.invoked(start);
+            return stream.peek(s::emitted);
+        };
+    }
+
+    /**
+     * Instrumented function for {@link StreamTuple#flatMap(BiFunction)}.
+     */
+    public static <L, R, U> BiFunction<L, R, Stream<U>> flatMap(String stage, BiFunction<L, R, Stream<U>> f) {
+        Objects.requireNonNull(f, "f");
+        if (!enabled) {
+            return f;
+        }
+        Stage s = stage(stage);
+        return (l, r) -> {
+            long start = s.start();
+            Stream<U> stream = f.apply(l, r);
+            s.invoked(start);
+            return stream.peek(s::emitted);
+        };
+    }
+
+    /**
+     * Instrumented consumer for {@link StreamTuple#peek(Consumer)}.
+     */
+    public static <R> Consumer<R> peek(String stage, Consumer<R> f) {
+        Objects.requireNonNull(f, "f");
+        if (!enabled) {
+            return f;
+        }
+        Stage s = stage(stage);
+        return r -> {
+            long start = s.start();
+            f.accept(r);
+            s.invoked(start);
+        };
+    }
+
+    /**
+     * Instrumented consumer for {@link StreamTuple#peek(BiConsumer)}.
+     */
+    public static <L, R> BiConsumer<L, R> peek(String stage, BiConsumer<L, R> f) {
+        Objects.requireNonNull(f, "f");
+        if (!enabled) {
+            return f;
+        }
+        Stage s = stage(stage);
+        return (l, r) -> {
+            long start = s.start();
+            f.accept(l, r);
+            s.invoked(start);
+        };
+    }
+
+    private static Stage stage(String name) {
+        Objects.requireNonNull(name, "stage");
+        Stage stage = stages.get(name);
+        if (stage == null) {
+            Stage created = new Stage(name);
+            stage = stages.putIfAbsent(name, created);
+            if (stage == null) {
+                stage = created;
+                stage.register();
+            }
+        }
+        return stage;
+    }
+
+    /**
+     * The statistics of the stage at this moment, or null if no function has been instrumented with that name.
+     */
+    public static StageSnapshot snapshot(String stage) {
+        Stage s = stages.get(stage);
+        return s == null ? null : s.snapshot();
+    }
+
+    /**
+     * The statistics of all stages by name.
+     */
+    public static Map<String, StageSnapshot> snapshots() {
+        Map<String, StageSnapshot> snapshots = new TreeMap<>();
+        stages.forEach((name, stage) -> snapshots.put(name, stage.snapshot()));
+        return snapshots;
+    }
+
+    /**
+     * Forget all stages and unregister their MXBeans.  Functions already wrapped keep updating their (now
+     * unreachable) statistics.
+     */
+    public static void reset() {
+        stages.values().removeIf(stage -> {
+            stage.unregister();
+            return true;
+        });
+    }
+
+    /**
+     * The statistics of a stage over JMX.  Times are in nanoseconds.
+     */
+    public interface StageMXBean {
+        String getName();
+
+        long getInvocationCount();
+
+        long getPassedCount();
+
+        long getRejectedCount();
+
+        double getPassRatio();
+
+        long getEmittedCount();
+
+        double getFanOut();
+
+        double getMeanNanos();
+
+        long getP50Nanos();
+
+        long getP90Nanos();
+
+        long getP99Nanos();
+
+        long getP999Nanos();
+
+        long getMaxNanos();
+
+        void reset();
+    }
+
+    /**
+     * Live statistics of a stage.
+     */
+    private static class Stage implements StageMXBean {
+        private final String name;
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder passed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder emitted = new LongAdder();
+        private final LongAdder timed = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private ObjectName objectName;
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @return the start time if this invocation is to be timed, else {@link #NOT_TIMED}.
+         */
+        long start() {
+            boolean sampled = (ThreadLocalRandom.current().nextInt() & (SAMPLE_INTERVAL - 1)) == 0;
+            return sampled ? System.nanoTime() : NOT_TIMED;
+        }
+
+        void invoked(long start) {
+            invocations.increment();
+            if (start != NOT_TIMED) {
+                long nanos = System.nanoTime() - start;
+                timed.increment();
+                totalNanos.add(nanos);
+                latencies.record(nanos);
+            }
+        }
+
+        void tested(boolean pass) {
+            (pass ? passed : rejected).increment();
+        }
+
+        void emitted(Object ignored) {
+            emitted.increment();
+        }
+
+        StageSnapshot snapshot() {
+            return new StageSnapshot(name, invocations.sum(), passed.sum(), rejected.sum(), emitted.sum(),
+                    timed.sum(), totalNanos.sum(), latencies.counts());
+        }
+
+        /**
+         * Register the MXBean if possible.  The statistics are still available through
+         * {@link TupleInstrumentation#snapshot(String)}
+         * if not, for instance when another copy of the library registered the name first.
+         */
+        void register() {
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName objectName = new ObjectName(OBJECT_NAME_DOMAIN + ":type=Stage,name="
+                        + ObjectName.quote(name));
+                server.registerMBean(this, objectName);
+                this.objectName = objectName;
+            } catch (JMException | SecurityException e) {
+                // not available over JMX
+            }
+        }
+
+        void unregister() {
+            if (objectName != null) {
+                try {
+                    ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+                } catch (JMException | SecurityException e) {
+                    // already gone
+                }
+            }
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public long getInvocationCount() {
+            return invocations.sum();
+        }
+
+        @Override
+        public long getPassedCount() {
+            return passed.sum();
+        }
+
+        @Override
+        public long getRejectedCount() {
+            return rejected.sum();
+        }
+
+        @Override
+        public double getPassRatio() {
+            return snapshot().passRatio();
+        }
+
+        @Override
+        public long getEmittedCount() {
+            return emitted.sum();
+        }
+
+        @Override
+        public double getFanOut() {
+            return snapshot().fanOut();
+        }
+
+        @Override
+        public double getMeanNanos() {
+            return snapshot().meanNanos();
+        }
+
+        @Override
+        public long getP50Nanos() {
+            return snapshot().percentileNanos(50);
+        }
+
+        @Override
+        public long getP90Nanos() {
+            return snapshot().percentileNanos(90);
+        }
+
+        @Override
+        public long getP99Nanos() {
+            return snapshot().percentileNanos(99);
+        }
+
+        @Override
+        public long getP999Nanos() {
+            return snapshot().percentileNanos(99.9);
+        }
+
+        @Override
+        public long getMaxNanos() {
+            return snapshot().percentileNanos(100);
+        }
+
+        @Override
+        public void reset() {
+            invocations.reset();
+            passed.reset();
+            rejected.reset();
+            emitted.reset();
+            timed.reset();
+            totalNanos.reset();
+            latencies.reset();
+        }
+    }
+
+    /**
+     * The statistics of a stage at one moment.  Latencies are rounded up to within 1.6%.
+     */
+    public static final class StageSnapshot {
+        private final String name;
+        private final long invocationCount;
+        private final long passedCount;
+        private final long rejectedCount;
+        private final long emittedCount;
+        private final long timedCount;
+        private final long totalNanos;
+        private final long[] latencies;
+
+        StageSnapshot(String name, long invocationCount, long passedCount, long rejectedCount, long emittedCount,
+                      long timedCount, long totalNanos, long[] latencies) {
+            this.name = name;
+            this.invocationCount = invocationCount;
+            this.passedCount = passedCount;
+            this.rejectedCount = rejectedCount;
+            this.emittedCount = emittedCount;
+            this.timedCount = timedCount;
+            this.totalNanos = totalNanos;
+            this.latencies = latencies;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Number of calls of the functions of the stage.
+         */
+        public long invocationCount() {
+            return invocationCount;
+        }
+
+        /**
+         * Number of values a filter stage let through.
+         */
+        public long passedCount() {
+            return passedCount;
+        }
+
+        /**
+         * Number of values a filter stage removed.
+         */
+        public long rejectedCount() {
+            return rejectedCount;
+        }
+
+        /**
+         * Fraction of values a filter stage let through, or NaN if nothing was tested.
+         */
+        public double passRatio() {
+            long tested = passedCount + rejectedCount;
+            return tested == 0 ? Double.NaN : (double) passedCount / tested;
+        }
+
+        /**
+         * Number of values emitted by the streams of a flatMap stage.
+         */
+        public long emittedCount() {
+            return emittedCount;
+        }
+
+        /**
+         * Values emitted per invocation of a flatMap stage, or NaN if not invoked.
+         */
+        public double fanOut() {
+            return invocationCount == 0 ? Double.NaN : (double) emittedCount / invocationCount;
+        }
+
+        /**
+         * Number of invocations timed for the latencies.
+         */
+        public long timedCount() {
+            return timedCount;
+        }
+
+        public double meanNanos() {
+            return timedCount == 0 ? Double.NaN : (double) totalNanos / timedCount;
+        }
+
+        /**
+         * @param percentile from 0 to 100.
+         */
+        public long percentileNanos(double percentile) {
+            return LatencyHistogram.percentile(latencies, percentile);
+        }
+
+        @Override
+        public String toString() {
+            return name + "{invocations=" + invocationCount + ", passed=" + passedCount + ", rejected="
+                    + rejectedCount + ", emitted=" + emittedCount + ", p50=" + percentileNanos(50) + "ns, p99="
+                    + percentileNanos(99) + "ns, max=" + percentileNanos(100) + "ns}";
+        }
+    }
+}
@@ -0,0 +1,569 @@
+package dk.ravnand.streamtuples;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>Joins of two tuple streams on their left values:</p>
+ *
+ * <pre>
+ * Stream&lt;StreamTuple&lt;Integer, StreamTuple&lt;String, Double&gt;&gt;&gt; joined = TupleJoins.hashJoin(names, prices);
+ * </pre>
+ *
+ * <p>The hash joins collect the second (build) stream into an open addressing hash table of its left values, and
+ * then stream the first (probe) stream looking up each left value in the table.  The probe stream is not consumed
+ * ahead of the result, keeps its order, and may be parallel as the table is only read once built.  Put the smaller
+ * stream second.  The tuples of a probe tuple are emitted in the order of the build stream.</p>
+ *
+ * <p>{@link #mergeJoin} joins two streams already sorted by left value without building a table.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public class TupleJoins {
+
+    /**
+     * Inner join: a tuple for each pair of probe and build tuples with equal left values.
+     *
+     * @param probe tuples streamed through.
+     * @param build tuples collected into the hash table.
+     * @return tuples with the common left value and a tuple of the probe and build right values.
+     */
+    public static <K, A, B> Stream<StreamTuple<K, StreamTuple<A, B>>> hashJoin(Stream<StreamTuple<K, A>> probe,
+                                                                             Stream<StreamTuple<K, B>> build) {
+        JoinTable<B> table = JoinTable.of(build);
+        Emitter<K, A, StreamTuple<K, StreamTuple<A, B>>> emitter = (t, entry, action) -> {
+            if (entry < 0) {
+                return false;
+            }
+            action.accept(t.of(new StreamTuple<>(t.right(), table.value(entry))));
+            return true;
+        };
+        return probe(probe, table, emitter).onClose(build::close);
+    }
+
+    /**
+     * Left outer join: like {@link #hashJoin} but probe tuples without any match are kept with an empty build
+     * value.
+     */
+    public static <K, A, B> Stream<StreamTuple<K, StreamTuple<A, Optional<B>>>> leftOuterJoin(
+            Stream<StreamTuple<K, A>> probe, Stream<StreamTuple<K, B>> build) {
+        JoinTable<B> table = JoinTable.of(build);
+        Emitter<K, A, StreamTuple<K, StreamTuple<A, Optional<B>>>> emitter = (t, entry, action) -> {
+            if (entry == JoinTable.NOT_FOUND) {
+                action.accept(t.of(new StreamTuple<>(t.right(), Optional.<B>empty())));
+                return true;
+            }
+            if (entry < 0) {
+                return false;
+            }
+            action.accept(t.of(new StreamTuple<>(t.right(), Optional.of(table.value(entry)))));
+            return true;
+        };
+        return probe(probe, table, emitter).onClose(build::close);
+    }
+
+    /**
+     * Semi join: the probe tuples having a left value present in the build stream, each emitted once no matter how
+     * many build tuples match.
+     */
+    public static <K, A, B> Stream<StreamTuple<K, A>> semiJoin(Stream<StreamTuple<K, A>> probe,
+                                                             Stream<StreamTuple<K, B>> build) {
+        JoinTable<B> table = JoinTable.of(build);
+        return probe.filter(t -> table.first(t.left()) >= 0).onClose(build::close);
+    }
+
+    /**
+     * Inner join on unboxed int keys, with a hash table storing the keys in an {@code int[]}.
+     */
+    public static <A, B> Stream<IntObjTuple<StreamTuple<A, B>>> hashJoinInt(Stream<IntObjTuple<A>> probe,
+                                                                           Stream<IntObjTuple<B>> build) {
+        IntJoinTable<B> table = IntJoinTable.of(build);
+        return StreamSupport.stream(new IntProbeSpliterator<>(probe.spliterator(), table), probe.isParallel())
+                .onClose(probe::close)
+                .onClose(build::close);
+    }
+
+    /**
+     * Inner join of two streams both sorted by the natural order of their left values, like
+     * {@code .sorted(StreamTuples.byLeft())} gives.  Tuples with equal left values are joined pairwise, in stream
+     * order.  The result is sequential.
+     *
+     * @throws IllegalStateException (when consumed) if a stream turns out not to be sorted.
+     */
+    public static <K extends Comparable<? super K>, A, B> Stream<StreamTuple<K, StreamTuple<A, B>>> mergeJoin(
+            Stream<StreamTuple<K, A>> first, Stream<StreamTuple<K, B>> second) {
+        return mergeJoin(first, second, Comparator.<K>naturalOrder());
+    }
+
+    /**
+     * Inner join of two streams both sorted by left value with the given comparator.
+     */
+    public static <K, A, B> Stream<StreamTuple<K, StreamTuple<A, B>>> mergeJoin(
+            Stream<StreamTuple<K, A>> first, Stream<StreamTuple<K, B>> second, Comparator<? super K> comparator) {
+        Objects.requireNonNull(comparator, "comparator");
+        MergeJoinSpliterator<K, A, B> spliterator =
+                new MergeJoinSpliterator<>(first.spliterator(), second.spliterator(), comparator);
+        return StreamSupport.stream(spliterator, false)
+                .onClose(first::close)
+                .onClose(second::close);
+    }
+
+    private static <K, A, B, T> Stream<T> probe(Stream<StreamTuple<K, A>> probe, JoinTable<B> table,
+                                                Emitter<K, A, T> emitter) {
+        return StreamSupport.stream(new ProbeSpliterator<>(probe.spliterator(), table, emitter), probe.isParallel())
+                .onClose(probe::close);
+    }
+
+    /**
+     * Emits the result for a probe tuple and one of the entries matching it.
+     */
+    private interface Emitter<K, A, T> {
+        /**
+         * @param entry the matching entry, or {@link JoinTable#NOT_FOUND} if nothing matches, or
+         *              {@link JoinTable#END} after the last match.
+         * @return true if something was emitted.
+         */
+        boolean emit(StreamTuple<K, A> t, int entry, Consumer<? super T> action);
+    }
+
+    /**
+     * Open addressing hash table with linear probing from key to the chain of entries for the key.  The slots hold
+     * the key, the hash and the first and last entry; the entries hold the value and the index of the next entry
+     * with the same key.
+     */
+    static class JoinTable<V> {
+        static final int NOT_FOUND = -1;
+        static final int END = -2;
+
+        private Object[] keys;
+        private int[] hashes;
+        private int[] firsts;
+        private int[] lasts;
+        private int slotsUsed;
+
+        private Object[] values = new Object[16];
+        private int[] nexts = new int[16];
+        private int entries;
+
+        JoinTable() {
+            allocateSlots(16);
+        }
+
+        static <K, V> JoinTable<V> of(Stream<StreamTuple<K, V>> tuples) {
+            JoinTable<V> table = new JoinTable<>();
+            tuples.spliterator().forEachRemaining(t -> table.add(t.left(), t.right()));
+            return table;
+        }
+
+        private void allocateSlots(int capacity) {
+            keys = new Object[capacity];
+            hashes = new int[capacity];
+            firsts = new int[capacity];
+            lasts = new int[capacity];
+        }
+
+        private static int spread(int h) {
+            return h ^ (h >>> 16);
+        }
+
+        void add(Object key, V value) {
+            if (entries == values.length) {
+                values = Arrays.copyOf(values, entries * 2);
+                nexts = Arrays.copyOf(nexts, entries * 2);
+            }
+            int entry = entries++;
+            values[entry] = value;
+            nexts[entry] = END;
+
+            int hash = spread(key.hashCode());
+            int mask = keys.length - 1;
+            int slot = hash & mask;
+            while (keys[slot] != null) {
+                if (hashes[slot] == hash && keys[slot].equals(key)) {
+                    nexts[lasts[slot]] = entry;
+                    lasts[slot] = entry;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            hashes[slot] = hash;
+            firsts[slot] = entry;
+            lasts[slot] = entry;
+            if (++slotsUsed * 2 > keys.length) {
+                rehash();
+            }
+        }
+
+        private void rehash() {
+            Object[] oldKeys = keys;
+            int[] oldHashes = hashes;
+            int[] oldFirsts = firsts;
+            int[] oldLasts = lasts;
+            allocateSlots(oldKeys.length * 2);
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    int slot = oldHashes[i] & mask;
+                    while (keys[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    hashes[slot] = oldHashes[i];
+                    firsts[slot] = oldFirsts[i];
+                    lasts[slot] = oldLasts[i];
+                }
+            }
+        }
+
+        /**
+         * @return the first entry for the key, or {@link #NOT_FOUND}.
+         */
+        int first(Object key) {
+            int hash = spread(key.hashCode());
+            int mask = keys.length - 1;
+            int slot = hash & mask;
+            Object k;
+            while ((k = keys[slot]) != null) {
+                if (hashes[slot] == hash && k.equals(key)) {
+                    return firsts[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return NOT_FOUND;
+        }
+
+        /**
+         * @return the entry after the given one with the same key, or {@link #END}.
+         */
+        int next(int entry) {
+            return nexts[entry];
+        }
+
+        /**
+         * @noinspection unchecked
+         */
+        V value(int entry) {
+            return (V) values[entry];
+        }
+    }
+
+    /**
+     * As {@link JoinTable} with the keys in an {@code int[]}.  A slot is free when its first entry is 0, so
+     * entries are stored from index 1.
+     */
+    static class IntJoinTable<V> {
+        private int[] keys;
+        private int[] firsts;
+        private int[] lasts;
+        private int slotsUsed;
+
+        private Object[] values = new Object[16];
+        private int[] nexts = new int[16];
+        private int entries = 1;
+
+        IntJoinTable() {
+            allocateSlots(16);
+        }
+
+        static <V> IntJoinTable<V> of(Stream<IntObjTuple<V>> tuples) {
+            IntJoinTable<V> table = new IntJoinTable<>();
+            tuples.spliterator().forEachRemaining(t -> table.add(t.left(), t.right()));
+            return table;
+        }
+
+        private void allocateSlots(int capacity) {
+            keys = new int[capacity];
+            firsts = new int[capacity];
+            lasts = new int[capacity];
+        }
+
+        private static int spread(int h) {
+            h *= 0x9e3779b9; // ints are often sequential, so mix the bits before masking
+            return h ^ (h >>> 16);
+        }
+
+        void add(int key, V value) {
+            if (entries == values.length) {
+                values = Arrays.copyOf(values, entries * 2);
+                nexts = Arrays.copyOf(nexts, entries * 2);
+            }
+            int entry = entries++;
+            values[entry] = value;
+            nexts[entry] = 0;
+
+            int mask = keys.length - 1;
+            int slot = spread(key) & mask;
+            while (firsts[slot] != 0) {
+                if (keys[slot] == key) {
+                    nexts[lasts[slot]] = entry;
+                    lasts[slot] = entry;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            firsts[slot] = entry;
+            lasts[slot] = entry;
+            if (++slotsUsed * 2 > keys.length) {
+                rehash();
+            }
+        }
+
+        private void rehash() {
+            int[] oldKeys = keys;
+            int[] oldFirsts = firsts;
+            int[] oldLasts = lasts;
+            allocateSlots(oldKeys.length * 2);
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldFirsts[i] != 0) {
+                    int slot = spread(oldKeys[i]) & mask;
+                    while (firsts[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    firsts[slot] = oldFirsts[i];
+                    lasts[slot] = oldLasts[i];
+                }
+            }
+        }
+
+        /**
+         * @return the first entry for the key, or 0 if none.
+         */
+        int first(int key) {
+            int mask = keys.length - 1;
+            int slot = spread(key) & mask;
+            while (firsts[slot] != 0) {
+                if (keys[slot] == key) {
+                    return firsts[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return 0;
+        }
+
+        /**
+         * @return the entry after the given one with the same key, or 0 if none.
+         */
+        int next(int entry) {
+            return nexts[entry];
+        }
+
+        /**
+         * @noinspection unchecked
+         */
+        V value(int entry) {
+            return (V) values[entry];
+        }
+    }
+
+    /**
+     * Walks the matches of one probe tuple at a time.  Splits by splitting the probe stream.
+     */
+    private static class ProbeSpliterator<K, A, B, T> implements Spliterator<T> {
+        private final Spliterator<StreamTuple<K, A>> source;
+        private final JoinTable<B> table;
+        private final Emitter<K, A, T> emitter;
+        private StreamTuple<K, A> current;
+        private int entry;
+
+        ProbeSpliterator(Spliterator<StreamTuple<K, A>> source, JoinTable<B> table, Emitter<K, A, T> emitter) {
+            this.source = source;
+            this.table = table;
+            this.emitter = emitter;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            while (true) {
+                StreamTuple<K, A> t = current;
+                if (t != null) {
+                    int e = entry;
+                    if (e >= 0) {
+                        entry = table.next(e);
+                    } else {
+                        current = null; // NOT_FOUND and END are given to the emitter once
+                    }
+                    if (emitter.emit(t, e, action)) {
+                        return true;
+                    }
+                }
+                if (!source.tryAdvance(this::probe)) {
+                    return false;
+                }
+            }
+        }
+
+        private void probe(StreamTuple<K, A> t) {
+            current = t;
+            entry = table.first(t.left());
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            Spliterator<StreamTuple<K, A>> split = source.trySplit();
+            return split == null ? null : new ProbeSpliterator<>(split, table, emitter);
+        }
+
+        @Override
+        public long estimateSize() {
+            return source.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return (source.characteristics() & ORDERED) | NONNULL;
+        }
+    }
+
+    private static class IntProbeSpliterator<A, B> implements Spliterator<IntObjTuple<StreamTuple<A, B>>> {
+        private final Spliterator<IntObjTuple<A>> source;
+        private final IntJoinTable<B> table;
+        private IntObjTuple<A> current;
+        private int entry;
+
+        IntProbeSpliterator(Spliterator<IntObjTuple<A>> source, IntJoinTable<B> table) {
+            this.source = source;
+            this.table = table;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super IntObjTuple<StreamTuple<A, B>>> action) {
+            while (entry == 0) {
+                if (!source.tryAdvance(t -> {
+                    current = t;
+                    entry = table.first(t.left());
+                })) {
+                    return false;
+                }
+            }
+            int e = entry;
+            entry = table.next(e);
+            action.accept(new IntObjTuple<>(current.left(), new StreamTuple<>(current.right(), table.value(e))));
+            return true;
+        }
+
+        @Override
+        public Spliterator<IntObjTuple<StreamTuple<A, B>>> trySplit() {
+            Spliterator<IntObjTuple<A>> split = source.trySplit();
+            return split == null ? null : new IntProbeSpliterator<>(split, table);
+        }
+
+        @Override
+        public long estimateSize() {
+            return source.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return (source.characteristics() & ORDERED) | NONNULL;
+        }
+    }
+
+    /**
+     * Reads a run of equal left values from the second stream into a buffer, and joins each tuple of the first
+     * stream with that left value with all of them.
+     */
+    private static class MergeJoinSpliterator<K, A, B>
+            extends Spliterators.AbstractSpliterator<StreamTuple<K, StreamTuple<A, B>>> {
+        private final Spliterator<StreamTuple<K, A>> first;
+        private final Spliterator<StreamTuple<K, B>> second;
+        private final Comparator<? super K> comparator;
+
+        private StreamTuple<K, A> a;          // current tuple of the first stream
+        private StreamTuple<K, B> nextB;      // first tuple of the second stream not in the run
+        private final List<B> run = new ArrayList<>();
+        private K runKey;
+        private int runIndex;
+        private boolean secondExhausted;
+        private StreamTuple<K, A> lastA;
+        private StreamTuple<K, B> lastB;
+
+        MergeJoinSpliterator(Spliterator<StreamTuple<K, A>> first, Spliterator<StreamTuple<K, B>> second,
+                             Comparator<? super K> comparator) {
+            super(Long.MAX_VALUE, ORDERED | NONNULL);
+            this.first = first;
+            this.second = second;
+            this.comparator = comparator;
+        }
+
+        private StreamTuple<K, A> readA() {
+            a = null;
+            first.tryAdvance(t -> a = t);
+            if (a != null) {
+                checkOrder(lastA, a);
+                lastA = a;
+            }
+            return a;
+        }
+
+        private StreamTuple<K, B> readB() {
+            nextB = null;
+            if (!secondExhausted && !second.tryAdvance(t -> nextB = t)) {
+                secondExhausted = true;
+            }
+            if (nextB != null) {
+                checkOrder(lastB, nextB);
+                lastB = nextB;
+            }
+            return nextB;
+        }
+
+        private void checkOrder(StreamTuple<K, ?> previous, StreamTuple<K, ?> t) {
+            if (previous != null && comparator.compare(previous.left(), t.left()) > 0) {
+                throw new IllegalStateException("Stream not sorted by left value: " + t.left() + " after "
+                        + previous.left());
+            }
+        }
+
+        /**
+         * Make the run hold the tuples of the second stream with the given key, if any.
+         */
+        private void advanceRunTo(K key) {
+            if (runKey != null && comparator.compare(runKey, key) == 0) {
+                return;
+            }
+            run.clear();
+            runKey = null;
+            if (lastB == null && !secondExhausted) {
+                readB(); // first time
+            }
+            while (nextB != null && comparator.compare(nextB.left(), key) < 0) {
+                readB();
+            }
+            if (nextB != null && comparator.compare(nextB.left(), key) == 0) {
+                runKey = nextB.left();
+                while (nextB != null && comparator.compare(nextB.left(), runKey) == 0) {
+                    run.add(nextB.right());
+                    readB();
+                }
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super StreamTuple<K, StreamTuple<A, B>>> action) {
+            while (true) {
+                if (a != null && runIndex < run.size()) {
+                    action.accept(a.of(new StreamTuple<>(a.right(), run.get(runIndex++))));
+                    return true;
+                }
+                if (readA() == null) {
+                    return false;
+                }
+                advanceRunTo(a.left());
+                runIndex = 0;
+            }
+        }
+    }
+}
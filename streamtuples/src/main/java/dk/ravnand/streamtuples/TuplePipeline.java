@@ -0,0 +1,192 @@
+package dk.ravnand.streamtuples;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * <p>The steps of a {@link TupleStream} recorded once and applied to any number of streams, for a pipeline which is
+ * run again and again, like one per request:</p>
+ *
+ * <pre>
+ * TuplePipeline&lt;Integer, Integer, String&gt; names = TuplePipeline.&lt;Integer&gt;builder()
+ *         .mapRight(id -&gt; lookup(id))
+ *         .filterRight(s -&gt; s.startsWith("even"))
+ *         .mapRight(s -&gt; s + " OK")
+ *         .build();
+ *
+ * Map&lt;Integer, String&gt; m = names.tupleStream(ids.stream()).toMap();
+ * Stream&lt;StreamTuple&lt;Integer, String&gt;&gt; s = names.apply(otherIds.stream());
+ * </pre>
+ *
+ * <p>The steps are fused as in a TupleStream, so the left and right values are passed as two arguments from step to
+ * step and no tuple is created between them.  The stages are composed once when the pipeline is built, so applying
+ * it to a stream only creates the consumer of each stage.</p>
+ *
+ * <p>A pipeline is immutable and may be applied to several streams at the same time.  Each stream can still only be
+ * consumed once.</p>
+ *
+ * @param <I> type of the items the pipeline is applied to
+ * @param <L> type of the left values coming out
+ * @param <R> type of the right values coming out
+ * @noinspection WeakerAccess
+ */
+public final class TuplePipeline<I, L, R> implements Function<Stream<I>, Stream<StreamTuple<L, R>>> {
+
+    private final Function<BiConsumer<L, R>, Consumer<Object>> stages;
+    private final boolean sizePreserving;
+    private final List<String> steps;
+
+    private TuplePipeline(Builder<I, L, R> builder) {
+        this.stages = builder.stages;
+        this.sizePreserving = builder.sizePreserving;
+        this.steps = Collections.unmodifiableList(new ArrayList<>(builder.steps));
+    }
+
+    /**
+     * Start recording a pipeline with each item as both left and right value, like {@code .map(StreamTuples::of)}.
+     * The item type is usually given explicitly, as in {@code TuplePipeline.<Integer>builder()}.
+     */
+    public static <I> Builder<I, I, I> builder() {
+        return new Builder<>(TupleStream.itemStages(), true, Collections.emptyList());
+    }
+
+    /**
+     * The items run through the pipeline as a standard stream of tuples, created as they are requested.  The result
+     * is parallel if the items are, and closing it closes the items.
+     */
+    @Override
+    public Stream<StreamTuple<L, R>> apply(Stream<I> items) {
+        return tupleStream(items).stream();
+    }
+
+    /**
+     * The items run through the pipeline as a TupleStream, for terminal operations like
+     * {@link TupleStream#forEach(BiConsumer)} and {@link TupleStream#toMap()} which create no tuples at all.
+     */
+    public TupleStream<L, R> tupleStream(Stream<I> items) {
+        Objects.requireNonNull(items, "items");
+        return TupleStream.of(items, stages, sizePreserving);
+    }
+
+    /**
+     * Names of the recorded steps in order.
+     */
+    public List<String> steps() {
+        return steps;
+    }
+
+    @Override
+    public String toString() {
+        return "TuplePipeline" + steps;
+    }
+
+    /**
+     * Records the steps of a pipeline.  Each step returns a new builder, as the types of the values change, so a
+     * builder may be shared as the common start of several pipelines.
+     *
+     * @param <I> type of the items the pipeline is applied to
+     * @param <L> type of the left values after the steps so far
+     * @param <R> type of the right values after the steps so far
+     */
+    public static final class Builder<I, L, R> {
+        private final Function<BiConsumer<L, R>, Consumer<Object>> stages;
+        private final boolean sizePreserving;
+        private final List<String> steps;
+
+        private Builder(Function<BiConsumer<L, R>, Consumer<Object>> stages, boolean sizePreserving,
+                        List<String> steps) {
+            this.stages = stages;
+            this.sizePreserving = sizePreserving;
+            this.steps = steps;
+        }
+
+        private <K, U> Builder<I, K, U> then(String step, Function<BiConsumer<K, U>, BiConsumer<L, R>> stage,
+                                             boolean preservesSize) {
+            List<String> moreSteps = new ArrayList<>(steps);
+            moreSteps.add(step);
+            return new Builder<>(down -> stages.apply(stage.apply(down)), sizePreserving && preservesSize,
+                    moreSteps);
+        }
+
+        /**
+         * Fused equivalent of {@code .map(t -> t.map(r -> ...))}.
+         */
+        public <U> Builder<I, L, U> mapRight(Function<R, U> f) {
+            Objects.requireNonNull(f, "f");
+            return then("mapRight", TupleStream.mapRightStage(f), true);
+        }
+
+        /**
+         * Replace the left value by the result of applying f to it, keeping the right value.
+         */
+        public <K> Builder<I, K, R> mapLeft(Function<L, K> f) {
+            Objects.requireNonNull(f, "f");
+            return then("mapLeft", down -> (l, r) -> down.accept(f.apply(l), r), true);
+        }
+
+        /**
+         * Fused equivalent of {@code .map(t -> t.map((l, r) -> ...))}.
+         */
+        public <U> Builder<I, L, U> mapBoth(BiFunction<L, R, U> f) {
+            Objects.requireNonNull(f, "f");
+            return then("mapBoth", TupleStream.mapBothStage(f), true);
+        }
+
+        /**
+         * Fused equivalent of {@code .filter(t -> t.filter(r -> ...))}.
+         */
+        public Builder<I, L, R> filterRight(Predicate<R> predicate) {
+            Objects.requireNonNull(predicate, "predicate");
+            return then("filterRight", TupleStream.filterRightStage(predicate), false);
+        }
+
+        /**
+         * Keep the left/right pairs where the predicate holds for the left value.
+         */
+        public Builder<I, L, R> filterLeft(Predicate<L> predicate) {
+            Objects.requireNonNull(predicate, "predicate");
+            return then("filterLeft", TupleStream.filterBothStage((l, r) -> predicate.test(l)), false);
+        }
+
+        /**
+         * Fused equivalent of {@code .filter(t -> t.filter((l, r) -> ...))}.
+         */
+        public Builder<I, L, R> filterBoth(BiPredicate<L, R> predicate) {
+            Objects.requireNonNull(predicate, "predicate");
+            return then("filterBoth", TupleStream.filterBothStage(predicate), false);
+        }
+
+        /**
+         * Fused equivalent of {@code .flatMap(t -> t.flatMap(r -> ...))}.  The returned streams are closed after
+         * use.
+         */
+        public <U> Builder<I, L, U> flatMapRight(Function<R, Stream<U>> f) {
+            Objects.requireNonNull(f, "f");
+            return then("flatMapRight", TupleStream.flatMapRightStage(f), false);
+        }
+
+        /**
+         * Fused equivalent of {@code .peek(t -> t.peek((l, r) -> ...))}.
+         */
+        public Builder<I, L, R> peek(BiConsumer<L, R> action) {
+            Objects.requireNonNull(action, "action");
+            return then("peek", TupleStream.peekStage(action), true);
+        }
+
+        /**
+         * The pipeline of the steps recorded so far.
+         */
+        public TuplePipeline<I, L, R> build() {
+            return new TuplePipeline<>(this);
+        }
+    }
+}
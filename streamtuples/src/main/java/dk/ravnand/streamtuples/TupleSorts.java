@@ -0,0 +1,163 @@
+package dk.ravnand.streamtuples;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * <p>Sorts tuple streams in the order of {@link StreamTuple#compareTo(StreamTuple)}, by right value and then left
+ * value, like {@code .sorted()} but doing less work for the common cases:</p>
+ *
+ * <pre>
+ * Stream&lt;StreamTuple&lt;Integer, String&gt;&gt; sorted = TupleSorts.sorted(rowsOrderedById);
+ * </pre>
+ *
+ * <ul>
+ * <li>An already sorted stream is only checked.</li>
+ * <li>When all right values are Integer, Long or String the tuples are sorted by a stable radix sort of the right
+ * values instead of by comparisons.  That gives compareTo order when the tuples are in left value order first, as
+ * the tuples with equal right values then stay in left value order.  A stream already sorted by left value, like
+ * the rows of a query ordered by key, is used as is, otherwise the tuples are first sorted by left value, by radix
+ * sort too if the left values are Integer or Long.</li>
+ * <li>Otherwise the tuples are sorted with {@link Arrays#sort(Object[], Comparator)}, which merges the runs
+ * already in order, or for a large parallel stream with {@link Arrays#parallelSort(Object[], Comparator)}.</li>
+ * </ul>
+ *
+ * <p>All the sorts are stable, so the result is exactly that of {@code .sorted()}.  As for that the whole stream
+ * is read before the first tuple is emitted.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public class TupleSorts {
+
+    /**
+     * Parallel streams shorter than this are sorted sequentially, as {@code Arrays.parallelSort} does.
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    private static final Comparator<StreamTuple<?, ?>> BY_COMPARE_TO = TupleSorts::compare;
+    private static final Comparator<StreamTuple<?, ?>> BY_LEFT = TupleSorts::compareLeft;
+
+    /**
+     * The tuples in {@link StreamTuple#compareTo(StreamTuple)} order.  The result is parallel if the stream is, and
+     * closing it closes the stream.
+     *
+     * @throws ClassCastException as {@code compareTo} when values are not comparable.
+     */
+    public static <L, R> Stream<StreamTuple<L, R>> sorted(Stream<StreamTuple<L, R>> tuples) {
+        StreamTuple<?, ?>[] a = tuples.toArray(StreamTuple<?, ?>[]::new);
+        sort(a, tuples.isParallel());
+        @SuppressWarnings("unchecked")
+        Stream<StreamTuple<L, R>> sorted = Arrays.stream((StreamTuple<L, R>[]) a);
+        return (tuples.isParallel() ? sorted.parallel() : sorted).onClose(tuples::close);
+    }
+
+    /**
+     * Sort the array in place in {@link StreamTuple#compareTo(StreamTuple)} order.
+     */
+    static void sort(StreamTuple<?, ?>[] a, boolean parallel) {
+        if (isSorted(a, BY_COMPARE_TO)) {
+            return;
+        }
+        KeyType right = KeyType.of(a, StreamTuple::right);
+        if (right == KeyType.OTHER) {
+            comparisonSort(a, BY_COMPARE_TO, parallel);
+            return;
+        }
+        // a stable sort by right value of tuples in left value order gives compareTo order
+        if (!isSortedByLeft(a)) {
+            KeyType left = KeyType.of(a, StreamTuple::left);
+            if (left == KeyType.INTEGER || left == KeyType.LONG) {
+                radixSort(a, left, StreamTuple::left);
+            } else {
+                StreamTuple<?, ?>[] byLeft = a.clone();
+                try {
+                    comparisonSort(byLeft, BY_LEFT, parallel);
+                } catch (ClassCastException e) {
+                    // compareTo only compares the left values of tuples with equal right values
+                    comparisonSort(a, BY_COMPARE_TO, parallel);
+                    return;
+                }
+                System.arraycopy(byLeft, 0, a, 0, a.length);
+            }
+        }
+        radixSort(a, right, StreamTuple::right);
+    }
+
+    private static void comparisonSort(StreamTuple<?, ?>[] a, Comparator<StreamTuple<?, ?>> comparator,
+                                       boolean parallel) {
+        if (parallel && a.length >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSort(a, comparator);
+        } else {
+            Arrays.sort(a, comparator);
+        }
+    }
+
+    private static void radixSort(StreamTuple<?, ?>[] a, KeyType type, Function<StreamTuple<?, ?>, Object> key) {
+        if (type == KeyType.STRING) {
+            String[] keys = new String[a.length];
+            for (int i = 0; i < a.length; i++) {
+                keys[i] = (String) key.apply(a[i]);
+            }
+            RadixSort.sort(keys, a);
+        } else {
+            long[] keys = new long[a.length];
+            for (int i = 0; i < a.length; i++) {
+                keys[i] = RadixSort.unsigned(((Number) key.apply(a[i])).longValue());
+            }
+            RadixSort.sort(keys, a);
+        }
+    }
+
+    private static boolean isSortedByLeft(StreamTuple<?, ?>[] a) {
+        try {
+            return isSorted(a, BY_LEFT);
+        } catch (ClassCastException e) {
+            return false; // compareTo may still work if it never needs to compare these left values
+        }
+    }
+
+    private static boolean isSorted(StreamTuple<?, ?>[] a, Comparator<StreamTuple<?, ?>> comparator) {
+        for (int i = 1; i < a.length; i++) {
+            if (comparator.compare(a[i - 1], a[i]) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @noinspection unchecked
+     */
+    private static int compare(StreamTuple<?, ?> a, StreamTuple<?, ?> b) {
+        return ((StreamTuple<Object, Object>) a).compareTo((StreamTuple<Object, Object>) b);
+    }
+
+    /**
+     * @noinspection unchecked
+     */
+    private static int compareLeft(StreamTuple<?, ?> a, StreamTuple<?, ?> b) {
+        return ((Comparable<Object>) a.left()).compareTo(b.left());
+    }
+
+    /**
+     * The type of all the keys, if one the radix sort handles.
+     */
+    private enum KeyType {
+        INTEGER, LONG, STRING, OTHER;
+
+        static KeyType of(StreamTuple<?, ?>[] a, Function<StreamTuple<?, ?>, Object> key) {
+            if (a.length == 0) {
+                return OTHER;
+            }
+            Class<?> type = key.apply(a[0]).getClass();
+            for (StreamTuple<?, ?> t : a) {
+                if (key.apply(t).getClass() != type) {
+                    return OTHER;
+                }
+            }
+            return type == Integer.class ? INTEGER : type == Long.class ? LONG : type == String.class ? STRING : OTHER;
+        }
+    }
+}
@@ -0,0 +1,474 @@
+package dk.ravnand.streamtuples;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>Ready made functions for the stream methods, like</p>
+ *
+ * <pre>
+ * stream.filter(TupleStages.distinctByLeft())
+ * </pre>
+ *
+ * <p>Functions keeping state remember what they have seen for as long as they are referenced, so create a new one
+ * for each stream unless the state is meant to be shared.  They may be used with parallel streams.</p>
+ *
+ * <p>The short-circuiting operations ({@link #findFirstMatching(Stream, BiPredicate)},
+ * {@link #anyMatchLeft(Stream, Predicate)}, {@link #takeWhileRight(Stream, Predicate)} and
+ * {@link #dropWhileRight(Stream, Predicate)}) pull the tuples one at a time, so the stages before them, and the
+ * inner streams of {@link #flatMap(Stream, BiFunction)}, are not run for tuples after the result is known:</p>
+ *
+ * <pre>
+ * Optional&lt;StreamTuple&lt;Id, Record&gt;&gt; first = TupleStages.findFirstMatching(
+ *         TupleStages.flatMap(ids, (id, r) -&gt; lookupAll(id)),
+ *         (id, record) -&gt; record.isWanted());
+ * </pre>
+ *
+ * @noinspection WeakerAccess
+ */
+public class TupleStages {
+
+    /**
+     * A parallel search splits the stream in this many parts per thread, so a thread finishing its part early can
+     * take another.
+     */
+    private static final int SEARCH_PARTS_PER_THREAD = 4;
+
+    /**
+     * Predicate letting the first tuple with each left value through, remembering all left values seen in a
+     * concurrent set.  Unlike {@code distinct()} the right values are not considered, but the memory used still
+     * grows with the number of different left values, see {@link #distinctByLeft(long, double, long)} for bounded
+     * memory.  In a parallel stream it is not defined which of the tuples with the same left value is let through.
+     */
+    public static <L, R> Predicate<StreamTuple<L, R>> distinctByLeft() {
+        return distinctBy(StreamTuple::left);
+    }
+
+    /**
+     * As {@link #distinctByLeft()} for the right values.
+     */
+    public static <L, R> Predicate<StreamTuple<L, R>> distinctByRight() {
+        return distinctBy(StreamTuple::right);
+    }
+
+    /**
+     * Approximate {@link #distinctByLeft()} in bounded memory, remembering the hash codes of the left values in a
+     * Bloom filter.  False positives drop a tuple with a left value not seen before at about the given rate while
+     * no more than the expected number of different left values have been seen, and more often after that.
+     * Duplicates are never let through.
+     *
+     * @param expectedKeys      number of different left values the filter is sized for.
+     * @param falsePositiveRate wanted rate of wrongly dropped tuples, between 0 and 1.
+     * @param maxBytes          the filter uses at most this much memory, even if that gives a higher false
+     *                          positive rate.
+     */
+    public static <L, R> Predicate<StreamTuple<L, R>> distinctByLeft(long expectedKeys, double falsePositiveRate,
+                                                                     long maxBytes) {
+        BloomFilter seen = BloomFilter.of(expectedKeys, falsePositiveRate, maxBytes);
+        return t -> seen.add(t.left());
+    }
+
+    /**
+     * As {@link #distinctByLeft(long, double, long)} for the right values.
+     */
+    public static <L, R> Predicate<StreamTuple<L, R>> distinctByRight(long expectedKeys, double falsePositiveRate,
+                                                                      long maxBytes) {
+        BloomFilter seen = BloomFilter.of(expectedKeys, falsePositiveRate, maxBytes);
+        return t -> seen.add(t.right());
+    }
+
+    /**
+     * The first tuple in encounter order for which the predicate is true, or empty if there is none.  In a parallel
+     * stream the stream is split in parts which are searched in parallel, and a part stops as soon as a part before
+     * it has a match, also in the middle of a tuple's inner stream from {@link #flatMap(Stream, BiFunction)}.
+     * {@code Stream.flatMap} must not be used before this on Java 8, where it runs each inner stream to the end.
+     * The stream is not closed.
+     */
+    public static <L, R> Optional<StreamTuple<L, R>> findFirstMatching(Stream<StreamTuple<L, R>> tuples,
+                                                                       BiPredicate<L, R> predicate) {
+        Objects.requireNonNull(predicate, "predicate");
+        return find(tuples, t -> predicate.test(t.left(), t.right()), true);
+    }
+
+    /**
+     * As {@link #findFirstMatching(Stream, BiPredicate)} with a predicate on the right value.
+     */
+    public static <L, R> Optional<StreamTuple<L, R>> findFirstMatching(Stream<StreamTuple<L, R>> tuples,
+                                                                       Predicate<R> predicate) {
+        Objects.requireNonNull(predicate, "predicate");
+        return find(tuples, t -> predicate.test(t.right()), true);
+    }
+
+    /**
+     * True if the predicate is true for the left value of any tuple.  In a parallel stream all parts stop as soon
+     * as one has a match.  The stream is not closed.
+     */
+    public static <L, R> boolean anyMatchLeft(Stream<StreamTuple<L, R>> tuples, Predicate<L> predicate) {
+        Objects.requireNonNull(predicate, "predicate");
+        return find(tuples, t -> predicate.test(t.left()), false).isPresent();
+    }
+
+    /**
+     * As {@link #anyMatchLeft(Stream, Predicate)} for the right values.
+     */
+    public static <L, R> boolean anyMatchRight(Stream<StreamTuple<L, R>> tuples, Predicate<R> predicate) {
+        Objects.requireNonNull(predicate, "predicate");
+        return find(tuples, t -> predicate.test(t.right()), false).isPresent();
+    }
+
+    /**
+     * The tuples up to, not including, the first one whose right value the predicate is false for.  No tuples are
+     * pulled from the stream after that one, also for a parallel stream where this and the stages before run
+     * sequentially.  Closing the result closes the stream.
+     */
+    public static <L, R> Stream<StreamTuple<L, R>> takeWhileRight(Stream<StreamTuple<L, R>> tuples,
+                                                                  Predicate<R> predicate) {
+        Objects.requireNonNull(predicate, "predicate");
+        return StreamSupport.stream(new TakeWhileSpliterator<>(tuples.spliterator(), predicate), tuples.isParallel())
+                .onClose(tuples::close);
+    }
+
+    /**
+     * The tuples from the first one whose right value the predicate is false for.  The predicate is not called
+     * after that, and in a parallel stream the rest is split as usual.  Closing the result closes the stream.
+     */
+    public static <L, R> Stream<StreamTuple<L, R>> dropWhileRight(Stream<StreamTuple<L, R>> tuples,
+                                                                  Predicate<R> predicate) {
+        Objects.requireNonNull(predicate, "predicate");
+        return StreamSupport.stream(new DropWhileSpliterator<>(tuples.spliterator(), predicate), tuples.isParallel())
+                .onClose(tuples::close);
+    }
+
+    /**
+     * As {@code tuples.flatMap(t -> t.flatMap(f))}, but the inner streams are read one tuple at a time, so a
+     * short-circuiting operation later stops in the middle of an inner stream, which may be infinite.  On Java 8
+     * {@code Stream.flatMap} pushes the whole inner stream through the rest of the stream first.  Each inner stream
+     * is closed when it has been read or the result is closed.  Closing the result closes the stream.
+     */
+    public static <L, R, U> Stream<StreamTuple<L, U>> flatMap(Stream<StreamTuple<L, R>> tuples,
+                                                              BiFunction<L, R, Stream<U>> f) {
+        Objects.requireNonNull(f, "f");
+        FlatMapSpliterator<L, R, U> spliterator = new FlatMapSpliterator<>(tuples.spliterator(), f);
+        return StreamSupport.stream(spliterator, tuples.isParallel())
+                .onClose(spliterator::close)
+                .onClose(tuples::close);
+    }
+
+    /**
+     * As {@link #flatMap(Stream, BiFunction)} with a function of the right value.
+     */
+    public static <L, R, U> Stream<StreamTuple<L, U>> flatMap(Stream<StreamTuple<L, R>> tuples,
+                                                              Function<R, Stream<U>> f) {
+        Objects.requireNonNull(f, "f");
+        return flatMap(tuples, (BiFunction<L, R, Stream<U>>) (l, r) -> f.apply(r));
+    }
+
+    private static <L, R, K> Predicate<StreamTuple<L, R>> distinctBy(Function<StreamTuple<L, R>, K> key) {
+        Set<K> seen = ConcurrentHashMap.newKeySet();
+        return t -> seen.add(key.apply(t));
+    }
+
+    /**
+     * @param ordered if the first match in encounter order is wanted, and not just any.
+     */
+    private static <T> Optional<T> find(Stream<T> stream, Predicate<? super T> predicate, boolean ordered) {
+        Spliterator<T> source = stream.spliterator();
+        if (!stream.isParallel()) {
+            Search<T> search = new Search<>(source, 0, predicate, new AtomicInteger(Integer.MAX_VALUE), ordered);
+            search.run();
+            return Optional.ofNullable(search.match);
+        }
+        List<Spliterator<T>> parts = split(source, SEARCH_PARTS_PER_THREAD * ForkJoinPool.getCommonPoolParallelism());
+        AtomicInteger found = new AtomicInteger(Integer.MAX_VALUE);
+        List<Search<T>> searches = new ArrayList<>(parts.size());
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(parts.size());
+        for (Spliterator<T> part : parts) {
+            Search<T> search = new Search<>(part, searches.size(), predicate, found, ordered);
+            searches.add(search);
+            tasks.add(ForkJoinTask.adapt(search));
+        }
+        if (ForkJoinTask.inForkJoinPool()) {
+            ForkJoinTask.invokeAll(tasks);
+        } else {
+            ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        }
+        int first = found.get();
+        return first == Integer.MAX_VALUE ? Optional.empty() : Optional.of(searches.get(first).match);
+    }
+
+    /**
+     * Split the spliterator into at most about the given number of parts, in encounter order.
+     */
+    private static <T> List<Spliterator<T>> split(Spliterator<T> source, int parts) {
+        List<Spliterator<T>> result = new ArrayList<>();
+        result.add(source);
+        boolean splitAny = true;
+        while (splitAny && result.size() < parts) {
+            splitAny = false;
+            List<Spliterator<T>> next = new ArrayList<>(result.size() * 2);
+            for (Spliterator<T> part : result) {
+                Spliterator<T> prefix = next.size() < parts ? part.trySplit() : null;
+                if (prefix != null) {
+                    next.add(prefix);
+                    splitAny = true;
+                }
+                next.add(part);
+            }
+            result = next;
+        }
+        return result;
+    }
+
+    /**
+     * Searches one part of a stream, stopping when this part has a match or, for an ordered search, a part before
+     * it has one, or for an unordered search, any part has one.
+     */
+    private static class Search<T> implements Runnable, Consumer<T> {
+        private final Spliterator<T> part;
+        private final int index;
+        private final Predicate<? super T> predicate;
+        private final AtomicInteger found;
+        private final boolean ordered;
+        T match;
+
+        /**
+         * @param found the lowest index of the parts with a match.
+         */
+        Search(Spliterator<T> part, int index, Predicate<? super T> predicate, AtomicInteger found, boolean ordered) {
+            this.part = part;
+            this.index = index;
+            this.predicate = predicate;
+            this.found = found;
+            this.ordered = ordered;
+        }
+
+        @Override
+        public void run() {
+            //noinspection StatementWithEmptyBody
+            while (match == null && wanted() && part.tryAdvance(this)) {
+            }
+        }
+
+        private boolean wanted() {
+            int first = found.get();
+            return ordered ? first > index : first == Integer.MAX_VALUE;
+        }
+
+        @Override
+        public void accept(T t) {
+            if (predicate.test(t)) {
+                match = t;
+                found.accumulateAndGet(index, Math::min);
+            }
+        }
+    }
+
+    private static class TakeWhileSpliterator<L, R> implements Spliterator<StreamTuple<L, R>>,
+            Consumer<StreamTuple<L, R>> {
+        private final Spliterator<StreamTuple<L, R>> source;
+        private final Predicate<R> predicate;
+        private StreamTuple<L, R> next;
+        private boolean done;
+
+        TakeWhileSpliterator(Spliterator<StreamTuple<L, R>> source, Predicate<R> predicate) {
+            this.source = source;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public void accept(StreamTuple<L, R> t) {
+            next = t;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super StreamTuple<L, R>> action) {
+            if (done || !source.tryAdvance(this)) {
+                return false;
+            }
+            StreamTuple<L, R> t = next;
+            next = null;
+            if (!predicate.test(t.right())) {
+                done = true;
+                return false;
+            }
+            action.accept(t);
+            return true;
+        }
+
+        @Override
+        public Spliterator<StreamTuple<L, R>> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return done ? 0 : source.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return (source.characteristics() & (ORDERED | IMMUTABLE | CONCURRENT)) | NONNULL;
+        }
+    }
+
+    private static class DropWhileSpliterator<L, R> implements Spliterator<StreamTuple<L, R>>,
+            Consumer<StreamTuple<L, R>> {
+        private final Spliterator<StreamTuple<L, R>> source;
+        private final Predicate<R> predicate;
+        private StreamTuple<L, R> first;
+        private boolean dropping = true;
+
+        DropWhileSpliterator(Spliterator<StreamTuple<L, R>> source, Predicate<R> predicate) {
+            this.source = source;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public void accept(StreamTuple<L, R> t) {
+            if (!predicate.test(t.right())) {
+                first = t;
+            }
+        }
+
+        private void drop() {
+            //noinspection StatementWithEmptyBody
+            while (first == null && source.tryAdvance(this)) {
+            }
+            dropping = false;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super StreamTuple<L, R>> action) {
+            if (dropping) {
+                drop();
+            }
+            if (first != null) {
+                action.accept(first);
+                first = null;
+                return true;
+            }
+            return source.tryAdvance(action);
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super StreamTuple<L, R>> action) {
+            if (tryAdvance(action)) {
+                source.forEachRemaining(action);
+            }
+        }
+
+        @Override
+        public Spliterator<StreamTuple<L, R>> trySplit() {
+            // the tuples after the first one kept are all kept, but it must come first
+            return dropping || first != null ? null : source.trySplit();
+        }
+
+        @Override
+        public long estimateSize() {
+            return source.estimateSize() + (first == null ? 0 : 1);
+        }
+
+        @Override
+        public int characteristics() {
+            return (source.characteristics() & (ORDERED | IMMUTABLE | CONCURRENT)) | NONNULL;
+        }
+    }
+
+    /**
+     * Reads the inner stream of the current tuple with {@code tryAdvance} instead of pushing it all through.
+     */
+    private static class FlatMapSpliterator<L, R, U> implements Spliterator<StreamTuple<L, U>>,
+            Consumer<StreamTuple<L, R>> {
+        private final Spliterator<StreamTuple<L, R>> source;
+        private final BiFunction<L, R, Stream<U>> f;
+        private final List<FlatMapSpliterator<L, R, U>> splits = new ArrayList<>();
+        private StreamTuple<L, R> current;
+        private Stream<U> inner;
+        private Spliterator<U> innerSpliterator;
+
+        FlatMapSpliterator(Spliterator<StreamTuple<L, R>> source, BiFunction<L, R, Stream<U>> f) {
+            this.source = source;
+            this.f = f;
+        }
+
+        @Override
+        public void accept(StreamTuple<L, R> t) {
+            current = t;
+            inner = f.apply(t.left(), t.right());
+            innerSpliterator = inner == null ? null : inner.spliterator();
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super StreamTuple<L, U>> action) {
+            while (true) {
+                if (innerSpliterator != null && innerSpliterator.tryAdvance(u -> action.accept(current.of(u)))) {
+                    return true;
+                }
+                closeInner();
+                if (!source.tryAdvance(this)) {
+                    return false;
+                }
+            }
+        }
+
+        private void closeInner() {
+            if (inner != null) {
+                inner.close();
+            }
+            current = null;
+            inner = null;
+            innerSpliterator = null;
+        }
+
+        /**
+         * Close the inner streams not read to the end.
+         */
+        void close() {
+            closeInner();
+            synchronized (splits) {
+                splits.forEach(FlatMapSpliterator::close);
+            }
+        }
+
+        @Override
+        public Spliterator<StreamTuple<L, U>> trySplit() {
+            if (inner != null) {
+                return null;
+            }
+            Spliterator<StreamTuple<L, R>> prefix = source.trySplit();
+            if (prefix == null) {
+                return null;
+            }
+            FlatMapSpliterator<L, R, U> split = new FlatMapSpliterator<>(prefix, f);
+            synchronized (splits) {
+                splits.add(split);
+            }
+            return split;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return (source.characteristics() & ORDERED) | NONNULL;
+        }
+    }
+}
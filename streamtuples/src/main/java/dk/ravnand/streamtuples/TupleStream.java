@@ -0,0 +1,364 @@
+package dk.ravnand.streamtuples;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>A stream of left/right pairs where the steps are fused into a single {@link Spliterator} instead of
+ * allocating a new {@link StreamTuple} in each {@code .map(t -> t.map(...))}.  The left and right values are passed
+ * as two arguments from step to step, and a StreamTuple is only created when a terminal operation needs one.</p>
+ *
+ * <pre>
+ * Map&lt;String, String&gt; m = TupleStream.of(Stream.of("1", "2", "3"))
+ *         .mapRight(v -&gt; Integer.valueOf(v) * 2)
+ *         .mapBoth((id, v) -&gt; id + "*2=" + v)
+ *         .toMap();
+ * </pre>
+ *
+ * <p>Like a Stream this can only be consumed once, and each instance can only have one step or terminal operation
+ * applied, otherwise an IllegalStateException is thrown.  Intermediate values may be null as long as they are
+ * filtered away before a StreamTuple is needed.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public final class TupleStream<L, R> {
+
+    private final Spliterator<Object> source;
+    private final Function<BiConsumer<L, R>, Consumer<Object>> stages;
+    private final boolean sizePreserving;
+    private final boolean parallel;
+    private final Runnable closeHandler;
+    /**
+     * Set when a step or terminal operation has used this instance, as all instances of a chain share the source.
+     */
+    private boolean linkedOrConsumed;
+
+    private TupleStream(Spliterator<Object> source, Function<BiConsumer<L, R>, Consumer<Object>> stages,
+                        boolean sizePreserving, boolean parallel, Runnable closeHandler) {
+        this.source = source;
+        this.stages = stages;
+        this.sizePreserving = sizePreserving;
+        this.parallel = parallel;
+        this.closeHandler = closeHandler;
+    }
+
+    /**
+     * Start a tuple stream with each item as both left and right value, like {@code .map(StreamTuples::of)}.
+     */
+    public static <I> TupleStream<I, I> of(Stream<I> items) {
+        return of(items, itemStages(), true);
+    }
+
+    /**
+     * Continue a stream of existing tuples.
+     *
+     * @noinspection unchecked
+     */
+    public static <L, R> TupleStream<L, R> ofTuples(Stream<StreamTuple<L, R>> tuples) {
+        return new TupleStream<>((Spliterator<Object>) (Spliterator<?>) tuples.spliterator(),
+                down -> item -> {
+                    StreamTuple<L, R> t = (StreamTuple<L, R>) item;
+                    down.accept(t.left(), t.right());
+                },
+                true, tuples.isParallel(), tuples::close);
+    }
+
+    /**
+     * Continue the items with the given fused stages, as a built {@link TuplePipeline} does.
+     *
+     * @noinspection unchecked
+     */
+    static <I, L, R> TupleStream<L, R> of(Stream<I> items, Function<BiConsumer<L, R>, Consumer<Object>> stages,
+                                          boolean sizePreserving) {
+        return new TupleStream<>((Spliterator<Object>) items.spliterator(), stages,
+                sizePreserving, items.isParallel(), items::close);
+    }
+
+    /**
+     * The stages which pass each item on as both left and right value.
+     *
+     * @noinspection unchecked
+     */
+    static <I> Function<BiConsumer<I, I>, Consumer<Object>> itemStages() {
+        return down -> item -> down.accept((I) item, (I) item);
+    }
+
+    /**
+     * Mark this instance as used, like {@code java.util.stream} does.
+     *
+     * @throws IllegalStateException if it has already been used.
+     */
+    private void link() {
+        if (linkedOrConsumed) {
+            throw new IllegalStateException("stream has already been operated upon or closed");
+        }
+        linkedOrConsumed = true;
+    }
+
+    private <U> TupleStream<L, U> then(Function<BiConsumer<L, U>, BiConsumer<L, R>> stage, boolean preservesSize) {
+        link();
+        return new TupleStream<>(source, down -> stages.apply(stage.apply(down)),
+                sizePreserving && preservesSize, parallel, closeHandler);
+    }
+
+    /**
+     * Fused equivalent of {@code .map(t -> t.map(r -> ...))}.
+     */
+    public <U> TupleStream<L, U> mapRight(Function<R, U> f) {
+        return then(mapRightStage(f), true);
+    }
+
+    /**
+     * Fused equivalent of {@code .map(t -> t.map((l, r) -> ...))}.
+     */
+    public <U> TupleStream<L, U> mapBoth(BiFunction<L, R, U> f) {
+        return then(mapBothStage(f), true);
+    }
+
+    /**
+     * Fused equivalent of {@code .filter(t -> t.filter(r -> ...))}.
+     */
+    public TupleStream<L, R> filterRight(Predicate<R> predicate) {
+        return then(filterRightStage(predicate), false);
+    }
+
+    /**
+     * Fused equivalent of {@code .filter(t -> t.filter((l, r) -> ...))}.
+     */
+    public TupleStream<L, R> filterBoth(BiPredicate<L, R> predicate) {
+        return then(filterBothStage(predicate), false);
+    }
+
+    /**
+     * Fused equivalent of {@code .flatMap(t -> t.flatMap(r -> ...))}.  The returned streams are closed after use.
+     */
+    public <U> TupleStream<L, U> flatMapRight(Function<R, Stream<U>> f) {
+        return then(flatMapRightStage(f), false);
+    }
+
+    /**
+     * Fused equivalent of {@code .peek(t -> t.peek((l, r) -> ...))}.
+     */
+    public TupleStream<L, R> peek(BiConsumer<L, R> action) {
+        return then(peekStage(action), true);
+    }
+
+    static <L, R, U> Function<BiConsumer<L, U>, BiConsumer<L, R>> mapRightStage(Function<R, U> f) {
+        return down -> (l, r) -> down.accept(l, f.apply(r));
+    }
+
+    static <L, R, U> Function<BiConsumer<L, U>, BiConsumer<L, R>> mapBothStage(BiFunction<L, R, U> f) {
+        return down -> (l, r) -> down.accept(l, f.apply(l, r));
+    }
+
+    static <L, R> Function<BiConsumer<L, R>, BiConsumer<L, R>> filterRightStage(Predicate<R> predicate) {
+        return down -> (l, r) -> {
+            if (predicate.test(r)) {
+                down.accept(l, r);
+            }
+        };
+    }
+
+    static <L, R> Function<BiConsumer<L, R>, BiConsumer<L, R>> filterBothStage(BiPredicate<L, R> predicate) {
+        return down -> (l, r) -> {
+            if (predicate.test(l, r)) {
+                down.accept(l, r);
+            }
+        };
+    }
+
+    static <L, R, U> Function<BiConsumer<L, U>, BiConsumer<L, R>> flatMapRightStage(Function<R, Stream<U>> f) {
+        return down -> (l, r) -> {
+            try (Stream<U> us = f.apply(r)) {
+                if (us != null) {
+                    us.sequential().forEach(u -> down.accept(l, u));
+                }
+            }
+        };
+    }
+
+    static <L, R> Function<BiConsumer<L, R>, BiConsumer<L, R>> peekStage(BiConsumer<L, R> action) {
+        return down -> (l, r) -> {
+            action.accept(l, r);
+            down.accept(l, r);
+        };
+    }
+
+    public TupleStream<L, R> parallel() {
+        link();
+        return new TupleStream<>(source, stages, sizePreserving, true, closeHandler);
+    }
+
+    public TupleStream<L, R> sequential() {
+        link();
+        return new TupleStream<>(source, stages, sizePreserving, false, closeHandler);
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Pass each left/right pair to the action.  No tuples are created.
+     */
+    public void forEach(BiConsumer<L, R> action) {
+        link();
+        run(action);
+    }
+
+    private void run(BiConsumer<L, R> action) {
+        Consumer<Object> pipeline = stages.apply(action);
+        if (parallel) {
+            // The fused stages are stateless, so the same consumer can be shared by all workers.
+            StreamSupport.stream(source, true).forEach(pipeline);
+        } else {
+            source.forEachRemaining(pipeline);
+        }
+    }
+
+    /**
+     * Equivalent of {@code .collect(toMap(t -> t.left(), t -> t.right()))} but without creating tuples.  The map is
+     * presized when the number of elements is known up front.  Null values must be filtered away first, also for
+     * sequential streams, as parallel streams collect into a ConcurrentHashMap.
+     *
+     * @throws IllegalStateException if a left value occurs more than once.
+     * @throws NullPointerException  if a left or right value is null.
+     */
+    public Map<L, R> toMap() {
+        link();
+        if (parallel) {
+            ConcurrentMap<L, R> map = new ConcurrentHashMap<>(TupleCollectors.capacityFor(exactSizeIfKnown()));
+            run((l, r) -> TupleCollectors.putUnique(map, l, r));
+            return map;
+        } else {
+            Map<L, R> map = new HashMap<>(TupleCollectors.capacityFor(exactSizeIfKnown()));
+            run((l, r) -> TupleCollectors.putUnique(map, l, r));
+            return map;
+        }
+    }
+
+    /**
+     * Number of left/right pairs in the stream.  No tuples are created.
+     */
+    public long count() {
+        link();
+        long size = exactSizeIfKnown();
+        if (size >= 0) {
+            return size;
+        }
+        LongAdder count = new LongAdder();
+        run((l, r) -> count.increment());
+        return count.sum();
+    }
+
+    private long exactSizeIfKnown() {
+        return sizePreserving ? source.getExactSizeIfKnown() : -1;
+    }
+
+    /**
+     * Collect the tuples with a standard collector.
+     */
+    public <A, X> X collect(Collector<? super StreamTuple<L, R>, A, X> collector) {
+        return stream().collect(collector);
+    }
+
+    /**
+     * Continue as a standard stream of tuples, created by the fused spliterator as they are requested.
+     */
+    public Stream<StreamTuple<L, R>> stream() {
+        link();
+        return StreamSupport.stream(new FusedSpliterator<>(source, stages, sizePreserving), parallel)
+                .onClose(closeHandler);
+    }
+
+    public Spliterator<StreamTuple<L, R>> spliterator() {
+        link();
+        return new FusedSpliterator<>(source, stages, sizePreserving);
+    }
+
+    /**
+     * Close the stream this was created from.
+     */
+    public void close() {
+        closeHandler.run();
+    }
+
+    /**
+     * Pulls source elements through the fused stages until at least one tuple comes out the other end.  More than
+     * one can come out after a flatMap so those are buffered.
+     */
+    private static class FusedSpliterator<L, R> implements Spliterator<StreamTuple<L, R>> {
+        private final Spliterator<Object> source;
+        private final Function<BiConsumer<L, R>, Consumer<Object>> stages;
+        private final boolean sizePreserving;
+        private final ArrayDeque<StreamTuple<L, R>> buffer = new ArrayDeque<>();
+        private Consumer<Object> bufferingPipeline;
+
+        FusedSpliterator(Spliterator<Object> source, Function<BiConsumer<L, R>, Consumer<Object>> stages,
+                         boolean sizePreserving) {
+            this.source = source;
+            this.stages = stages;
+            this.sizePreserving = sizePreserving;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super StreamTuple<L, R>> action) {
+            if (buffer.isEmpty()) {
+                if (bufferingPipeline == null) {
+                    bufferingPipeline = stages.apply((l, r) -> buffer.add(new StreamTuple<>(l, r)));
+                }
+                //noinspection StatementWithEmptyBody
+                while (buffer.isEmpty() && source.tryAdvance(bufferingPipeline)) {
+                }
+                if (buffer.isEmpty()) {
+                    return false;
+                }
+            }
+            action.accept(buffer.poll());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super StreamTuple<L, R>> action) {
+            while (!buffer.isEmpty()) {
+                action.accept(buffer.poll());
+            }
+            source.forEachRemaining(stages.apply((l, r) -> action.accept(new StreamTuple<>(l, r))));
+        }
+
+        @Override
+        public Spliterator<StreamTuple<L, R>> trySplit() {
+            if (!buffer.isEmpty()) {
+                return null;
+            }
+            Spliterator<Object> prefix = source.trySplit();
+            return prefix == null ? null : new FusedSpliterator<>(prefix, stages, sizePreserving);
+        }
+
+        @Override
+        public long estimateSize() {
+            long size = source.estimateSize();
+            return size == Long.MAX_VALUE ? size : size + buffer.size();
+        }
+
+        @Override
+        public int characteristics() {
+            int kept = ORDERED | IMMUTABLE | CONCURRENT | (sizePreserving ? SIZED | SUBSIZED : 0);
+            return (source.characteristics() & kept) | NONNULL;
+        }
+    }
+}
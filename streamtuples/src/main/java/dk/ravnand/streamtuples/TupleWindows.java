@@ -0,0 +1,284 @@
+package dk.ravnand.streamtuples;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>Aggregates the right values per left value over windows of a possibly unbounded stream, emitting a tuple for
+ * each key and window as the window closes instead of when the stream ends:</p>
+ *
+ * <pre>
+ * Stream&lt;StreamTuple&lt;String, Window&lt;Long&gt;&gt;&gt; clicksPerMinute =
+ *         TupleWindows.&lt;String, Click, Long&gt;tumbling(t -&gt; t.right().time(), 60_000, Collectors.counting())
+ *                 .apply(clicks);
+ * </pre>
+ *
+ * <p>The values are accumulated incrementally into one accumulator of the {@link Collector} per key and open window,
+ * so memory is bounded by the keys active in the open windows and not by the number of tuples.  Use
+ * {@code Collectors.summarizingDouble(...)} to get count, sum, min and max at once.</p>
+ *
+ * <p>Time windows are aligned to multiples of the slide (the size for tumbling windows) from time 0.  A window
+ * closes when a tuple with a time at or past its end is seen, so the tuples should come in time order; a tuple
+ * arriving for a window already closed is dropped.  The windows still open when the stream ends are emitted at the
+ * end.  The tuples of a window are emitted in the order their keys were first seen in the window, and windows in
+ * start order.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public class TupleWindows<K, V, R>
+        implements Function<Stream<StreamTuple<K, V>>, Stream<StreamTuple<K, TupleWindows.Window<R>>>> {
+
+    private final ToLongFunction<? super StreamTuple<K, V>> time;
+    private final long size;
+    private final long slide;
+    private final Collector<? super V, ?, R> collector;
+
+    private TupleWindows(ToLongFunction<? super StreamTuple<K, V>> time, long size, long slide,
+                         Collector<? super V, ?, R> collector) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        if (slide <= 0) {
+            throw new IllegalArgumentException("slide must be positive: " + slide);
+        }
+        this.time = time;
+        this.size = size;
+        this.slide = slide;
+        this.collector = Objects.requireNonNull(collector, "collector");
+    }
+
+    /**
+     * Adjacent windows of the given length of time.
+     *
+     * @param time gives the time of a tuple, in any unit.
+     * @param size the length of the windows in the unit of time.
+     */
+    public static <K, V, R> TupleWindows<K, V, R> tumbling(ToLongFunction<? super StreamTuple<K, V>> time, long size,
+                                                           Collector<? super V, ?, R> collector) {
+        return sliding(time, size, size, collector);
+    }
+
+    /**
+     * Windows of the given length of time starting every {@code slide}, so a tuple is in {@code size / slide}
+     * windows when the slide is less than the size.
+     */
+    public static <K, V, R> TupleWindows<K, V, R> sliding(ToLongFunction<? super StreamTuple<K, V>> time, long size,
+                                                          long slide, Collector<? super V, ?, R> collector) {
+        return new TupleWindows<>(Objects.requireNonNull(time, "time"), size, slide, collector);
+    }
+
+    /**
+     * Windows of {@code size} tuples per key: a key's window is emitted when it has that many values.  The start
+     * and end of these windows are the positions in the stream of the first tuple and after the last tuple of the
+     * window.  The windows not yet full when the stream ends are emitted at the end, with the length of the stream
+     * as end.
+     */
+    public static <K, V, R> TupleWindows<K, V, R> count(int size, Collector<? super V, ?, R> collector) {
+        return new TupleWindows<>(null, size, size, collector);
+    }
+
+    @Override
+    public Stream<StreamTuple<K, Window<R>>> apply(Stream<StreamTuple<K, V>> tuples) {
+        Spliterator<StreamTuple<K, V>> source = tuples.spliterator();
+        WindowSpliterator<K, V, ?, R> spliterator = time == null
+                ? new CountWindowSpliterator<>(source, size, collector)
+                : new TimeWindowSpliterator<>(source, time, size, slide, collector);
+        return StreamSupport.stream(spliterator, false).onClose(tuples::close);
+    }
+
+    /**
+     * The result of aggregating the values of a key in a window from {@code start} inclusive to {@code end}
+     * exclusive.
+     */
+    public static final class Window<R> {
+        private final long start;
+        private final long end;
+        private final R result;
+
+        public Window(long start, long end, R result) {
+            this.start = start;
+            this.end = end;
+            this.result = result;
+        }
+
+        public long start() {
+            return start;
+        }
+
+        public long end() {
+            return end;
+        }
+
+        public R result() {
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Window)) {
+                return false;
+            }
+            Window<?> window = (Window<?>) o;
+            return start == window.start && end == window.end && Objects.equals(result, window.result);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(start, end, result);
+        }
+
+        @Override
+        public String toString() {
+            return "[" + start + ", " + end + "): " + result;
+        }
+    }
+
+    /**
+     * Reads tuples from the source until a window closes, and emits the results of the closed windows.
+     */
+    private abstract static class WindowSpliterator<K, V, A, R>
+            extends Spliterators.AbstractSpliterator<StreamTuple<K, Window<R>>>
+            implements Consumer<StreamTuple<K, V>> {
+        private final Spliterator<StreamTuple<K, V>> source;
+        final Supplier<A> supplier;
+        final BiConsumer<A, ? super V> accumulator;
+        private final Function<A, R> finisher;
+        private final ArrayDeque<StreamTuple<K, Window<R>>> closed = new ArrayDeque<>();
+        private boolean ended;
+
+        WindowSpliterator(Spliterator<StreamTuple<K, V>> source, Collector<? super V, A, R> collector) {
+            super(Long.MAX_VALUE, ORDERED | NONNULL);
+            this.source = source;
+            this.supplier = collector.supplier();
+            this.accumulator = collector.accumulator();
+            this.finisher = collector.finisher();
+        }
+
+        void emit(K key, long start, long end, A accumulated) {
+            closed.add(new StreamTuple<>(key, new Window<>(start, end, finisher.apply(accumulated))));
+        }
+
+        /**
+         * Emit all the windows still open.
+         */
+        abstract void flush();
+
+        @Override
+        public boolean tryAdvance(Consumer<? super StreamTuple<K, Window<R>>> action) {
+            while (closed.isEmpty()) {
+                if (ended) {
+                    return false;
+                }
+                if (!source.tryAdvance(this)) {
+                    ended = true;
+                    flush();
+                }
+            }
+            action.accept(closed.poll());
+            return true;
+        }
+    }
+
+    private static class TimeWindowSpliterator<K, V, A, R> extends WindowSpliterator<K, V, A, R> {
+        private final ToLongFunction<? super StreamTuple<K, V>> time;
+        private final long size;
+        private final long slide;
+        private final TreeMap<Long, Map<K, A>> open = new TreeMap<>();
+        private long watermark = Long.MIN_VALUE;
+
+        TimeWindowSpliterator(Spliterator<StreamTuple<K, V>> source, ToLongFunction<? super StreamTuple<K, V>> time,
+                              long size, long slide, Collector<? super V, A, R> collector) {
+            super(source, collector);
+            this.time = time;
+            this.size = size;
+            this.slide = slide;
+        }
+
+        @Override
+        public void accept(StreamTuple<K, V> t) {
+            long time = this.time.applyAsLong(t);
+            if (time > watermark) {
+                watermark = time;
+                close(open.headMap(watermark - size, true));
+            }
+            for (long start = time - Math.floorMod(time, slide); start > time - size; start -= slide) {
+                if (start + size <= watermark) {
+                    break; // late, this and earlier windows are closed
+                }
+                A accumulated = open.computeIfAbsent(start, s -> new LinkedHashMap<>())
+                        .computeIfAbsent(t.left(), k -> supplier.get());
+                accumulator.accept(accumulated, t.right());
+            }
+        }
+
+        private void close(Map<Long, Map<K, A>> windows) {
+            for (Iterator<Map.Entry<Long, Map<K, A>>> i = windows.entrySet().iterator(); i.hasNext(); ) {
+                Map.Entry<Long, Map<K, A>> window = i.next();
+                long start = window.getKey();
+                window.getValue().forEach((key, accumulated) -> emit(key, start, start + size, accumulated));
+                i.remove();
+            }
+        }
+
+        @Override
+        void flush() {
+            close(open);
+        }
+    }
+
+    private static class CountWindowSpliterator<K, V, A, R> extends WindowSpliterator<K, V, A, R> {
+        private final long size;
+        private final Map<K, CountWindow<A>> open = new LinkedHashMap<>();
+        private long position;
+
+        CountWindowSpliterator(Spliterator<StreamTuple<K, V>> source, long size, Collector<? super V, A, R> collector) {
+            super(source, collector);
+            this.size = size;
+        }
+
+        @Override
+        public void accept(StreamTuple<K, V> t) {
+            long p = position++;
+            CountWindow<A> window = open.computeIfAbsent(t.left(), k -> new CountWindow<>(p, supplier.get()));
+            accumulator.accept(window.accumulated, t.right());
+            if (++window.count == size) {
+                open.remove(t.left());
+                emit(t.left(), window.start, position, window.accumulated);
+            }
+        }
+
+        @Override
+        void flush() {
+            open.forEach((key, window) -> emit(key, window.start, position, window.accumulated));
+            open.clear();
+        }
+    }
+
+    private static class CountWindow<A> {
+        final long start;
+        final A accumulated;
+        long count;
+
+        CountWindow(long start, A accumulated) {
+            this.start = start;
+            this.accumulated = accumulated;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package dk.ravnand.streamtuples;
+
+import java.sql.SQLException;
+
+/**
+ * Wraps an {@link SQLException} thrown inside a stream step, where checked exceptions cannot be thrown.
+ *
+ * @noinspection WeakerAccess
+ */
+public class UncheckedSQLException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public UncheckedSQLException(SQLException cause) {
+        super(cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
@@ -9,8 +9,10 @@
  * cumbersome.  This is an experiment to see if a helper class that
  * knows the original value plus some suitable helper methods can
  * replace these custom classes.  As the JRE does only have two-argument
- * but not three-argument definitions, this is for
- * two-tuples only for now. </p>
+ * but not three-argument definitions, this is mostly for
+ * two-tuples, with {@link dk.ravnand.streamtuples.StreamTriple} and
+ * {@link dk.ravnand.streamtuples.StreamQuad} and their own functional
+ * interfaces for when more values must be kept. </p>
  * <p>Due to the way Java works the general idea is that each Stream
  * method, like {@code filter(...)} has a corresponding helper
  * method here which returns what the outer method needs to do its
@@ -0,0 +1,129 @@
+package dk.ravnand.streamtuples;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+// the record version used on Java 16 and later, keep in step with src/main/java
+/**
+ * <p>A {@link StreamTuple} with a primitive {@code long} left value, so that long keys are carried
+ * through the stream without boxing.  Get a stream of these with
+ * {@link StreamTuples#streamOf(java.util.stream.LongStream, java.util.function.LongFunction)}.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public record LongObjTuple<R>(long left, R right) implements Comparable<LongObjTuple<R>> {
+
+    /**
+     * for {@code (l, r) -> new LongObjTuple<>(l, r) }
+     *
+     * @param left  leftmost item in tuple.
+     * @param right rightmost item in tuple. Must be non-null.
+     */
+    public LongObjTuple {
+        Objects.requireNonNull(right, "right");
+    }
+
+    /**
+     * Return new tuple with the given right value and the same left value.
+     */
+    public <U> LongObjTuple<U> of(U right) {
+        return new LongObjTuple<>(left, right);
+    }
+
+    /**
+     * for <pre>.map(t -> t.map(r -> ...))</pre>
+     */
+    public <U> LongObjTuple<U> map(Function<R, U> f) {
+        return of(f.apply(right));
+    }
+
+    /**
+     * for <pre>.map(t -> t.map((l, r) -> ...))</pre>
+     */
+    public <U> LongObjTuple<U> map(LongObjFunction<R, U> f) {
+        return of(f.apply(left, right));
+    }
+
+    /**
+     * for <pre>.filter(t -> t.filter(r -> ...))</pre>
+     */
+    public boolean filter(Predicate<R> predicate) {
+        return predicate.test(right);
+    }
+
+    /**
+     * for <pre>.filter(t -> t.filter((l, r) -> ...))</pre>
+     */
+    public boolean filter(LongObjPredicate<R> predicate) {
+        return predicate.test(left, right);
+    }
+
+    /**
+     * for <pre>.flatMap(t -> t.flatMap(r -> ....))</pre>
+     */
+    public <U> Stream<LongObjTuple<U>> flatMap(Function<R, Stream<U>> f) {
+        return f.apply(right).map(this::of);
+    }
+
+    /**
+     * for <pre>.flatMap(t -> t.flatMap((l, r) -> ....))</pre>
+     */
+    public <U> Stream<LongObjTuple<U>> flatMap(LongObjFunction<R, Stream<U>> f) {
+        return f.apply(left, right).map(this::of);
+    }
+
+    /**
+     * for <pre>.peek(t -> t.peek(r -> ....))</pre>
+     */
+    public void peek(Consumer<R> f) {
+        f.accept(right);
+    }
+
+    /**
+     * for <pre>.peek(t -> t.peek((l, r) -> ....))</pre>
+     */
+    public void peek(LongObjConsumer<R> f) {
+        f.accept(left, right);
+    }
+
+    /**
+     * Box the left value, for when the rest of the stream needs a plain {@link StreamTuple}.
+     */
+    public StreamTuple<Long, R> toStreamTuple() {
+        return new StreamTuple<>(left, right);
+    }
+
+    @Override
+    public String toString() {
+        return "LongObjTuple{" +
+                "left=" + left +
+                ", right=" + right +
+                '}';
+    }
+
+    /**
+     * Same ordering as {@link StreamTuple#compareTo(StreamTuple)}: the right value is considered first, and then the
+     * key.  The right value must be comparable so this may fail with a ClassCastException.
+     *
+     * @noinspection unchecked
+     */
+    @Override
+    public int compareTo(LongObjTuple<R> that) {
+        int i = ((Comparable<R>) right).compareTo(that.right);
+        if (i == 0) {
+            i = Long.compare(left, that.left);
+        }
+        return i;
+    }
+
+    /**
+     * Same value as {@link StreamTuple#hashCode()} for the boxed tuple, but without boxing or varargs.
+     */
+    @Override
+    public int hashCode() {
+        return 31 * (31 + Long.hashCode(left)) + right.hashCode();
+    }
+}
@@ -0,0 +1,137 @@
+package dk.ravnand.streamtuples;
+
+import java.util.Objects;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.ObjDoubleConsumer;
+import java.util.stream.Stream;
+
+// the record version used on Java 16 and later, keep in step with src/main/java
+/**
+ * <p>A {@link StreamTuple} with a primitive {@code double} right value, typically a measurement or a score
+ * calculated from the left value.  Created with {@link StreamTuple#mapToDouble(java.util.function.ToDoubleFunction)}.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public record ObjDoubleTuple<L>(L left, double right) implements Comparable<ObjDoubleTuple<L>> {
+
+    /**
+     * for {@code (l, r) -> new ObjDoubleTuple<>(l, r) }
+     *
+     * @param left  leftmost item in tuple. Must be non-null.
+     * @param right rightmost item in tuple.
+     */
+    public ObjDoubleTuple {
+        Objects.requireNonNull(left, "left");
+    }
+
+    /**
+     * Return new tuple with the given right value and the same left value.
+     */
+    public <U> StreamTuple<L, U> of(U right) {
+        return new StreamTuple<>(left, right);
+    }
+
+    /**
+     * for <pre>.map(t -> t.map(r -> ...))</pre>
+     */
+    public <U> StreamTuple<L, U> map(DoubleFunction<U> f) {
+        return of(f.apply(right));
+    }
+
+    /**
+     * for <pre>.map(t -> t.map((l, r) -> ...))</pre>
+     */
+    public <U> StreamTuple<L, U> map(ObjDoubleFunction<L, U> f) {
+        return of(f.apply(left, right));
+    }
+
+    /**
+     * for <pre>.map(t -> t.mapToDouble(r -> ...))</pre> keeping the right value unboxed.
+     */
+    public ObjDoubleTuple<L> mapToDouble(DoubleUnaryOperator f) {
+        return new ObjDoubleTuple<>(left, f.applyAsDouble(right));
+    }
+
+    /**
+     * for <pre>.filter(t -> t.filter(r -> ...))</pre>
+     */
+    public boolean filter(DoublePredicate predicate) {
+        return predicate.test(right);
+    }
+
+    /**
+     * for <pre>.filter(t -> t.filter((l, r) -> ...))</pre>
+     */
+    public boolean filter(ObjDoublePredicate<L> predicate) {
+        return predicate.test(left, right);
+    }
+
+    /**
+     * for <pre>.flatMap(t -> t.flatMap(r -> ....))</pre>
+     */
+    public <U> Stream<StreamTuple<L, U>> flatMap(DoubleFunction<Stream<U>> f) {
+        return f.apply(right).map(this::of);
+    }
+
+    /**
+     * for <pre>.flatMap(t -> t.flatMap((l, r) -> ....))</pre>
+     */
+    public <U> Stream<StreamTuple<L, U>> flatMap(ObjDoubleFunction<L, Stream<U>> f) {
+        return f.apply(left, right).map(this::of);
+    }
+
+    /**
+     * for <pre>.peek(t -> t.peek(r -> ....))</pre>
+     */
+    public void peek(DoubleConsumer f) {
+        f.accept(right);
+    }
+
+    /**
+     * for <pre>.peek(t -> t.peek((l, r) -> ....))</pre>
+     */
+    public void peek(ObjDoubleConsumer<L> f) {
+        f.accept(left, right);
+    }
+
+    /**
+     * Box the right value, for when the rest of the stream needs a plain {@link StreamTuple}.
+     */
+    public StreamTuple<L, Double> toStreamTuple() {
+        return new StreamTuple<>(left, right);
+    }
+
+    @Override
+    public String toString() {
+        return "ObjDoubleTuple{" +
+                "left=" + left +
+                ", right=" + right +
+                '}';
+    }
+
+    /**
+     * Same ordering as {@link StreamTuple#compareTo(StreamTuple)}: the right value is considered first, and then the
+     * key.  The left value must be comparable if right values are equal so this may fail with a ClassCastException.
+     *
+     * @noinspection unchecked
+     */
+    @Override
+    public int compareTo(ObjDoubleTuple<L> that) {
+        int i = Double.compare(right, that.right);
+        if (i == 0) {
+            i = ((Comparable<L>) left).compareTo(that.left);
+        }
+        return i;
+    }
+
+    /**
+     * Same value as {@link StreamTuple#hashCode()} for the boxed tuple, but without boxing or varargs.
+     */
+    @Override
+    public int hashCode() {
+        return 31 * (31 + left.hashCode()) + Double.hashCode(right);
+    }
+}
@@ -0,0 +1,124 @@
+package dk.ravnand.streamtuples;
+
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+// the record version used on Java 16 and later, keep in step with src/main/java
+/**
+ * <p>Three values in one object, for carrying two saved values along with the current value without nesting
+ * {@code StreamTuple<A, StreamTuple<B, C>>}, which takes two objects per step and two indirections per access.  As
+ * for {@link StreamTuple} the last value is the current one, which {@link #map(Function)} and
+ * {@link #filter(Predicate)} work on, and the others are the context.  Get these from a StreamTuple with
+ * {@link StreamTuples#tripleOf(StreamTuple, Function)}.</p>
+ *
+ * @noinspection WeakerAccess
+ */
+public record StreamTriple<A, B, C>(A first, B second, C third) {
+
+    /**
+     * @param first  first value.  Must be non-null.
+     * @param second second value.  Must be non-null.
+     * @param third  third value, the current one.  Must be non-null.
+     */
+    public StreamTriple {
+        Objects.requireNonNull(first, "first");
+        Objects.requireNonNull(second, "second");
+        Objects.requireNonNull(third, "third");
+    }
+
+    /**
+     * New triple with the same first and second value and the given third value.
+     */
+    public <U> StreamTriple<A, B, U> of(U third) {
+        return new StreamTriple<>(first, second, third);
+    }
+
+    /**
+     * for <pre>.map(t -> t.map(c -> ...))</pre>, replacing the third value.
+     */
+    public <U> StreamTriple<A, B, U> map(Function<C, U> f) {
+        return of(f.apply(third));
+    }
+
+    /**
+     * for <pre>.map(t -> t.map((a, b, c) -> ...))</pre>, replacing the third value.
+     */
+    public <U> StreamTriple<A, B, U> map(TriFunction<A, B, C, U> f) {
+        return of(f.apply(first, second, third));
+    }
+
+    /**
+     * Replace the first value, keeping the others.
+     */
+    public <U> StreamTriple<U, B, C> mapFirst(Function<A, U> f) {
+        return new StreamTriple<>(f.apply(first), second, third);
+    }
+
+    /**
+     * Replace the second value, keeping the others.
+     */
+    public <U> StreamTriple<A, U, C> mapSecond(Function<B, U> f) {
+        return new StreamTriple<>(first, f.apply(second), third);
+    }
+
+    /**
+     * Add a fourth value computed from the third, for when yet another value must be kept.
+     */
+    public <U> StreamQuad<A, B, C, U> push(Function<C, U> f) {
+        return new StreamQuad<>(first, second, third, f.apply(third));
+    }
+
+    /**
+     * Drop the first value.
+     */
+    public StreamTuple<B, C> dropFirst() {
+        return new StreamTuple<>(second, third);
+    }
+
+    /**
+     * for <pre>.filter(t -> t.filter(c -> ...))</pre>
+     */
+    public boolean filter(Predicate<C> predicate) {
+        return predicate.test(third);
+    }
+
+    /**
+     * for <pre>.filter(t -> t.filter((a, b, c) -> ...))</pre>
+     */
+    public boolean filter(TriPredicate<A, B, C> predicate) {
+        return predicate.test(first, second, third);
+    }
+
+    /**
+     * for <pre>.flatMap(t -> t.flatMap(c -> ...))</pre>
+     */
+    public <U> Stream<StreamTriple<A, B, U>> flatMap(Function<C, Stream<U>> f) {
+        return f.apply(third).map(this::of);
+    }
+
+    /**
+     * for <pre>.flatMap(t -> t.flatMap((a, b, c) -> ...))</pre>
+     */
+    public <U> Stream<StreamTriple<A, B, U>> flatMap(TriFunction<A, B, C, Stream<U>> f) {
+        return f.apply(first, second, third).map(this::of);
+    }
+
+    @Override
+    public String toString() {
+        return "StreamTriple{" +
+                "first=" + first +
+                ", second=" + second +
+                ", third=" + third +
+                '}';
+    }
+
+    /**
+     * Same value as {@code Objects.hash(first, second, third)} without the varargs array.
+     */
+    @Override
+    public int hashCode() {
+        return 31 * (31 * (31 + first.hashCode()) + second.hashCode()) + third.hashCode();
+    }
+}
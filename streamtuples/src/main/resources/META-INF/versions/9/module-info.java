@@ -11,4 +11,6 @@
  */
 
 module dk.ravnand.streamtuples {
+    requires java.sql;
+    requires java.management;
 }